@@ -1,9 +1,12 @@
 package us.dtaylor.mcpserver;
 
+import org.springframework.ai.mcp.server.autoconfigure.McpWebFluxServerAutoConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+// The WebFlux MCP transport is on the classpath for ASYNC mode, where
+// McpAsyncTransportConfig serves it through the servlet container.
+@SpringBootApplication(exclude = McpWebFluxServerAutoConfiguration.class)
 public class AssetMcpServerApplication {
 
     public static void main(String[] args) {
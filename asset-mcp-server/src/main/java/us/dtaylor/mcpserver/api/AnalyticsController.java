@@ -0,0 +1,37 @@
+package us.dtaylor.mcpserver.api;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import us.dtaylor.mcpserver.dto.UtilizationReport;
+import us.dtaylor.mcpserver.service.analytics.WorkLogAnalyticsService;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics/v1")
+public class AnalyticsController {
+
+    private static final int DEFAULT_DAYS = 28;
+
+    private final WorkLogAnalyticsService analyticsService;
+
+    public AnalyticsController(WorkLogAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // GET /api/analytics/v1/utilization?from=2025-01-06&to=2025-02-03
+    // Minutes and jobs per technician and per asset type, plus a weekly trend, for the
+    // days [from, to).  'to' defaults to tomorrow (today included), 'from' to 28 days before 'to'.
+    @GetMapping("/utilization")
+    public ResponseEntity<UtilizationReport> utilization(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate until = to == null ? analyticsService.today().plusDays(1) : to;
+        LocalDate since = from == null ? until.minusDays(DEFAULT_DAYS) : from;
+        return ResponseEntity.ok(analyticsService.utilization(since, until));
+    }
+}
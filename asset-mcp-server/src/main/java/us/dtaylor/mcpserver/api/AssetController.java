@@ -1,6 +1,9 @@
 package us.dtaylor.mcpserver.api;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -10,17 +13,32 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
+import us.dtaylor.mcpserver.dto.AssetImportReport;
 import us.dtaylor.mcpserver.dto.AssetResponse;
+import us.dtaylor.mcpserver.dto.AssetView;
 import us.dtaylor.mcpserver.dto.CreateAssetRequest;
+import us.dtaylor.mcpserver.dto.PageCursor;
 import us.dtaylor.mcpserver.service.AssetCreationService;
 import us.dtaylor.mcpserver.service.AssetService;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService;
+import us.dtaylor.mcpserver.service.bulk.AssetImportService;
+import us.dtaylor.mcpserver.service.export.ExportFormat;
+import us.dtaylor.mcpserver.service.export.ExportService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
@@ -30,45 +48,165 @@ public class AssetController {
 
     private final AssetCreationService createService;
     private final AssetService assetService;
+    private final ExportService exportService;
+    private final AssetImportService importService;
+    private final AssetWorkSummaryService workSummaryService;
+    private final Duration exportTimeout;
 
-    public AssetController(AssetCreationService createService, AssetService assetService) {
+    public AssetController(AssetCreationService createService,
+                           AssetService assetService,
+                           ExportService exportService,
+                           AssetImportService importService,
+                           AssetWorkSummaryService workSummaryService,
+                           @Value("${app.export.timeout:30m}") Duration exportTimeout) {
         this.createService = createService;
         this.assetService = assetService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.workSummaryService = workSummaryService;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
      * GET /api/assets/v1?query=&page=0&size=20
      * Returns only the array of assets (to match your UI expectation),
      * but includes pagination metadata in headers (X-Total-Count, etc).
+     *
+     * <p>Passing {@code cursor} switches to keyset paging on (name, id):
+     * send an empty cursor for the first page, then the value of the
+     * {@code X-Next-Cursor} response header for each following page.  The
+     * header is absent on the last page.</p>
+     *
+     * <p>{@code count} controls the total: {@code exact} runs a COUNT query
+     * (the default for offset paging), {@code estimate} returns
+     * {@code X-Total-Count-Estimate} from database statistics and
+     * {@code none} (the default for keyset paging) skips it.</p>
      */
     @GetMapping
-    public ResponseEntity<List<Asset>> listAssets(
+    public ResponseEntity<List<AssetView>> listAssets(
             @RequestParam(name = "query", defaultValue = "") String query,
             @RequestParam(name = "page", defaultValue = "0") int page,
-            @RequestParam(name = "size", defaultValue = "20") int size) {
-
-        Page<Asset> result = assetService.search(query, page, size);
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "count", required = false) String count) {
 
+        boolean keyset = cursor != null;
+        CountMode countMode = CountMode.parse(count, keyset ? CountMode.NONE : CountMode.EXACT);
         HttpHeaders headers = new HttpHeaders();
-        headers.add("X-Total-Count", String.valueOf(result.getTotalElements()));
-        headers.add("X-Total-Pages", String.valueOf(result.getTotalPages()));
-        headers.add("X-Page", String.valueOf(result.getNumber()));
+
+        Slice<AssetView> result;
+        if (keyset) {
+            PageCursor after = cursor.isEmpty() ? null : PageCursor.decode(cursor);
+            result = assetService.searchAfter(query, after, size);
+            if (result.hasNext()) {
+                AssetView last = result.getContent().get(result.getNumberOfElements() - 1);
+                headers.add("X-Next-Cursor", new PageCursor(last.name(), last.id()).encode());
+            }
+            if (countMode == CountMode.EXACT) {
+                headers.add("X-Total-Count", String.valueOf(assetService.count(query)));
+            }
+        } else if (countMode == CountMode.EXACT) {
+            Page<AssetView> pageResult = assetService.search(query, page, size);
+            headers.add("X-Total-Count", String.valueOf(pageResult.getTotalElements()));
+            headers.add("X-Total-Pages", String.valueOf(pageResult.getTotalPages()));
+            result = pageResult;
+        } else {
+            result = assetService.searchSlice(query, page, size);
+        }
+
+        if (countMode == CountMode.ESTIMATE) {
+            assetService.estimateCount(query)
+                    .ifPresent(n -> headers.add("X-Total-Count-Estimate", String.valueOf(n)));
+        }
+        if (!keyset) {
+            headers.add("X-Page", String.valueOf(result.getNumber()));
+        }
         headers.add("X-Size", String.valueOf(result.getSize()));
 
         // Body is just the array, as your fetch() expects Asset[]
         return new ResponseEntity<>(result.getContent(), headers, HttpStatus.OK);
     }
 
+    private enum CountMode {
+        EXACT, ESTIMATE, NONE;
+
+        static CountMode parse(String value, CountMode defaultMode) {
+            if (value == null || value.isBlank()) {
+                return defaultMode;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid count mode: " + value + " (expected exact, estimate or none)");
+            }
+        }
+    }
+
+    /**
+     * GET /api/assets/v1/export?format=ndjson|csv
+     * Streams the whole asset register in one response, without paging or
+     * counting, for up to {@code app.export.timeout}.
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> export(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        return StreamingExport.stream(response, exportTimeout, exportFormat, "assets",
+                out -> exportService.exportAssets(exportFormat, out));
+    }
+
+    /**
+     * POST /api/assets/v1/import?format=ndjson|csv
+     * Creates assets in bulk, one per NDJSON line or CSV row (same fields
+     * as the single-asset POST; the output of /export is accepted too).
+     * The format defaults from the Content-Type.  Responds 200 with a
+     * per-row report even when some rows fail.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<AssetImportReport> importAssets(
+            @RequestParam(name = "format", required = false) String format,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+        ExportFormat importFormat;
+        if (format != null) {
+            importFormat = ExportFormat.parse(format);
+        } else {
+            boolean csv = contentType != null && MediaType.parseMediaType(contentType)
+                    .isCompatibleWith(ExportFormat.CSV.mediaType());
+            importFormat = csv ? ExportFormat.CSV : ExportFormat.NDJSON;
+        }
+        return ResponseEntity.ok(importService.importAssets(importFormat, body));
+    }
+
     // GET /api/assets/v1/{id}
+    // Honours If-None-Match: 304 with no body while the asset is unchanged.
     @GetMapping("/{id}")
-    public ResponseEntity<Asset> getById(@PathVariable UUID id) {
-        return ResponseEntity.ok(assetService.getById(id));
+    public ResponseEntity<AssetView> getById(@PathVariable UUID id, WebRequest request) {
+        Asset asset = assetService.getById(id);
+        if (notModified(asset, request)) {
+            return null; // 304 already set on the response
+        }
+        return ResponseEntity.ok(AssetView.of(asset));
+    }
+
+    // GET /api/assets/v1/{id}/work-summary
+    // Job count, total minutes, last technician and last worked-at, without reading the logs.
+    @GetMapping("/{id}/work-summary")
+    public ResponseEntity<AssetWorkSummary> getWorkSummary(@PathVariable UUID id) {
+        assetService.getById(id); // 404 for unknown assets
+        return ResponseEntity.ok(workSummaryService.get(id));
     }
 
     // GET /api/assets/v1/by-qr/{qrCode}
+    // Conditional like GET /{id}.
     @GetMapping("/by-qr/{qrCode}")
-    public ResponseEntity<Asset> getByQr(@PathVariable String qrCode) {
-        return ResponseEntity.ok(assetService.getByQr(qrCode));
+    public ResponseEntity<AssetView> getByQr(@PathVariable String qrCode, WebRequest request) {
+        Asset asset = assetService.getByQr(qrCode);
+        if (notModified(asset, request)) {
+            return null;
+        }
+        return ResponseEntity.ok(AssetView.of(asset));
     }
 
     @PostMapping
@@ -96,4 +234,18 @@ public class AssetController {
                 saved.getAssetType()
         ));
     }
+
+    /**
+     * Checks the request's {@code If-None-Match} against {@code asset} and
+     * sets the ETag header.  The ETag carries the id as well as the version
+     * because a QR code can be moved to another asset, whose version may
+     * happen to match.  It is the only validator; no Last-Modified is sent,
+     * since its one-second resolution would answer {@code If-Modified-Since}
+     * with 304 for a change made in the same second as the client's copy.
+     *
+     * @return true if the response has been answered with 304
+     */
+    private static boolean notModified(Asset asset, WebRequest request) {
+        return request.checkNotModified("\"" + asset.getId() + "." + asset.getVersion() + "\"");
+    }
 }
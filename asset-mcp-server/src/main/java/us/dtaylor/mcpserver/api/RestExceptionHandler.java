@@ -1,9 +1,12 @@
 package us.dtaylor.mcpserver.api;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import us.dtaylor.mcpserver.service.ingest.IngestQueueFullException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -51,4 +54,21 @@ public class RestExceptionHandler {
         });
         return ResponseEntity.badRequest().body(errors);
     }
+
+    /**
+     * Handles a full work log ingest queue.  Returns 503 Service
+     * Unavailable with a {@code Retry-After} header so that clients back
+     * off and resend the same entries.
+     *
+     * @param ex the exception
+     * @return a response entity with status 503 and the error message
+     */
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleIngestQueueFull(IngestQueueFullException ex) {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
 }
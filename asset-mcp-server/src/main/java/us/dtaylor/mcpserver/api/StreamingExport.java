@@ -0,0 +1,45 @@
+package us.dtaylor.mcpserver.api;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import us.dtaylor.mcpserver.service.export.ExportFormat;
+
+import java.io.OutputStream;
+import java.time.Duration;
+
+/**
+ * Runs a streaming export as an async request with a timeout of its own,
+ * {@code app.export.timeout}.  A {@link StreamingResponseBody} returned by a
+ * handler is bounded by {@code spring.mvc.async.request-timeout}, which
+ * also bounds the MCP SSE streams and the ingest futures; exports need far
+ * longer than those should be allowed, so the body is written from a
+ * {@link WebAsyncTask} instead.
+ */
+final class StreamingExport {
+
+    private StreamingExport() {
+    }
+
+    /**
+     * Sets the download headers and returns the task writing {@code body}
+     * to the response.  The handler must take the {@link HttpServletResponse}
+     * as an argument, so that Spring MVC leaves the response to the task.
+     *
+     * @param filename the download name, without extension
+     */
+    static WebAsyncTask<Void> stream(HttpServletResponse response, Duration timeout, ExportFormat format,
+                                     String filename, StreamingResponseBody body) {
+        response.setContentType(format.mediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(filename + "." + format.extension()).build().toString());
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            OutputStream out = response.getOutputStream();
+            body.writeTo(out);
+            out.flush();
+            return null;
+        });
+    }
+}
@@ -1,6 +1,11 @@
 package us.dtaylor.mcpserver.api;
 
-
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -8,31 +13,137 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
 import us.dtaylor.mcpserver.domain.WorkLog;
+import us.dtaylor.mcpserver.dto.PageCursor;
+import us.dtaylor.mcpserver.dto.WorkLogIngestReport;
+import us.dtaylor.mcpserver.dto.WorkLogView;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService;
 import us.dtaylor.mcpserver.service.WorkLogService;
+import us.dtaylor.mcpserver.service.export.ExportFormat;
+import us.dtaylor.mcpserver.service.export.ExportService;
+import us.dtaylor.mcpserver.service.ingest.WorkLogIngestor;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/worklogs/v1")
 public class WorkLogController {
 
     private final WorkLogService workLogService;
+    private final ExportService exportService;
+    private final WorkLogIngestor ingestor;
+    private final AssetWorkSummaryService summaryService;
+    private final Duration exportTimeout;
 
-    public WorkLogController(WorkLogService workLogService) {
+    public WorkLogController(WorkLogService workLogService, ExportService exportService,
+                             WorkLogIngestor ingestor, AssetWorkSummaryService summaryService,
+                             @Value("${app.export.timeout:30m}") Duration exportTimeout) {
         this.workLogService = workLogService;
+        this.exportService = exportService;
+        this.ingestor = ingestor;
+        this.summaryService = summaryService;
+        this.exportTimeout = exportTimeout;
     }
 
     // GET /api/worklogs/v1?assetId=<uuid>
+    // Honours If-None-Match: 304 with no body until a log is added.
     @GetMapping
-    public ResponseEntity<List<WorkLog>> listForAsset(@RequestParam UUID assetId) {
+    public ResponseEntity<List<WorkLogView>> listForAsset(@RequestParam UUID assetId, WebRequest request) {
+        if (notModified(summaryService.get(assetId), request)) {
+            return null; // 304 already set on the response
+        }
         return ResponseEntity.ok(workLogService.listForAsset(assetId));
     }
 
+    // GET /api/worklogs/v1/history?assetId=<uuid>&sync=<token>&cursor=<token>&size=50
+    // Newest first, one keyset page at a time; follow X-Next-Cursor until it is absent.
+    // 'sync' limits the history to logs after a previous sync: the first page carries
+    // X-Sync-Cursor, to send as 'sync' next time; logs too recent to be settled are
+    // sent again then, so clients upsert by id.  'since' (an ISO instant) is the older,
+    // lossy form: logs created at or committed late before it are skipped.
+    @GetMapping("/history")
+    public ResponseEntity<List<WorkLogView>> history(
+            @RequestParam UUID assetId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+            @RequestParam(required = false) String sync,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        if (since != null && sync != null && !sync.isEmpty()) {
+            throw new IllegalArgumentException("Pass either 'since' or 'sync', not both");
+        }
+        PageCursor after = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        PageCursor from = sync == null || sync.isEmpty()
+                ? (since == null ? null : WorkLogService.syncCursorOf(since))
+                : PageCursor.decode(sync);
+        HttpHeaders headers = new HttpHeaders();
+        if (after == null) {
+            // taken before the page is read, so it never passes a log the page misses
+            headers.add("X-Sync-Cursor", workLogService.syncCursor(assetId, from).encode());
+        }
+        Slice<WorkLogView> result = since != null
+                ? workLogService.history(assetId, since, after, size)
+                : workLogService.sync(assetId, from, after, size);
+        if (result.hasNext()) {
+            WorkLogView last = result.getContent().get(result.getNumberOfElements() - 1);
+            headers.add("X-Next-Cursor", WorkLogService.cursorOf(last).encode());
+        }
+        headers.add("X-Size", String.valueOf(result.getSize()));
+        return new ResponseEntity<>(result.getContent(), headers, HttpStatus.OK);
+    }
+
+    // GET /api/worklogs/v1/export?from=<iso instant>&to=<iso instant>&format=ndjson|csv
+    // Streams every work log created in [from, to); 'to' defaults to now.  Bounded by
+    // app.export.timeout rather than the MVC async request timeout.
+    @GetMapping("/export")
+    public WebAsyncTask<Void> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        Instant until = to == null ? Instant.now() : to;
+        if (!from.isBefore(until)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return StreamingExport.stream(response, exportTimeout, exportFormat, "worklogs",
+                out -> exportService.exportWorkLogs(from, until, exportFormat, out));
+    }
+
     // POST /api/worklogs/v1
     @PostMapping
     public ResponseEntity<WorkLog> create(@RequestBody WorkLogService.CreateWorkLogRequest body) {
         return ResponseEntity.ok(workLogService.create(body));
     }
+
+    // POST /api/worklogs/v1/ingest  (JSON array of the same bodies as POST /)
+    // Queued and group-committed with other callers' entries; responds once every
+    // entry is stored or has failed, with a per-entry report.  503 + Retry-After
+    // when the queue is full.
+    @PostMapping("/ingest")
+    public CompletableFuture<ResponseEntity<WorkLogIngestReport>> ingest(
+            @RequestBody List<WorkLogService.CreateWorkLogRequest> body) {
+        return ingestor.submitAll(body).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Checks the request's {@code If-None-Match} against the asset's work
+     * summary (a primary key read) and sets the ETag header.  The ETag
+     * includes the job count, which changes whenever a log is added,
+     * whichever path wrote it.  No Last-Modified is sent: the newest log's
+     * time does not move when an older-dated log commits late.
+     *
+     * @return true if the response has been answered with 304
+     */
+    private static boolean notModified(AssetWorkSummary summary, WebRequest request) {
+        Instant latest = summary.getLastWorkedAt();
+        long latestMillis = latest == null ? -1 : latest.toEpochMilli();
+        return request.checkNotModified("\"" + summary.getJobCount() + "." + latestMillis + "\"");
+    }
 }
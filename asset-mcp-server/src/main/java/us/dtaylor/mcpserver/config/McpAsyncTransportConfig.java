@@ -0,0 +1,62 @@
+package us.dtaylor.mcpserver.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.WebFluxSseServerTransportProvider;
+import org.springframework.ai.mcp.server.autoconfigure.McpServerProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+/**
+ * WebFlux SSE transport for the MCP server in ASYNC mode
+ * ({@code spring.ai.mcp.server.type=ASYNC}).
+ *
+ * <p>The application stays a servlet application: the transport's router
+ * is served by Tomcat through Spring's reactive servlet adapter, mounted
+ * under {@code app.mcp.async.path}, next to the MVC endpoints and behind
+ * the same security filter chain.  Requests are handled with non-blocking
+ * servlet I/O, so no container thread waits while a tool call is in
+ * flight; in SYNC mode the MVC transport holds the request thread until
+ * the tool returns.  Clients connect to
+ * {@code <path><spring.ai.mcp.server.sse-endpoint>}, by default
+ * {@code /mcp-async/sse}, and are told where to post messages by the
+ * transport.</p>
+ *
+ * <p>Defining the transport here makes Spring AI's WebMVC transport back
+ * off; its WebFlux transport auto-configuration is excluded on
+ * {@link us.dtaylor.mcpserver.AssetMcpServerApplication} because it
+ * assumes a reactive web server.</p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+public class McpAsyncTransportConfig {
+
+    @Bean
+    WebFluxSseServerTransportProvider webFluxSseServerTransportProvider(
+            ObjectMapper objectMapper, McpServerProperties properties,
+            @Value("${server.servlet.context-path:}") String contextPath,
+            @Value("${app.mcp.async.path:/mcp-async}") String path) {
+        return WebFluxSseServerTransportProvider.builder()
+                .objectMapper(objectMapper)
+                .basePath(contextPath + path)
+                .sseEndpoint(properties.getSseEndpoint())
+                .messageEndpoint(properties.getSseMessageEndpoint())
+                .build();
+    }
+
+    @Bean
+    ServletRegistrationBean<ServletHttpHandlerAdapter> mcpAsyncServlet(
+            WebFluxSseServerTransportProvider transport,
+            @Value("${app.mcp.async.path:/mcp-async}") String path) {
+        var handler = new ServletHttpHandlerAdapter(RouterFunctions.toHttpHandler(transport.getRouterFunction()));
+        var registration = new ServletRegistrationBean<>(handler, path + "/*");
+        registration.setName("mcpAsyncTransport");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+}
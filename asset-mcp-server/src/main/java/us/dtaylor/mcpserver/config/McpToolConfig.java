@@ -1,24 +1,39 @@
 package us.dtaylor.mcpserver.config;
 
+import io.modelcontextprotocol.server.McpServerFeatures.AsyncToolSpecification;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import us.dtaylor.mcpserver.tools.AssetTools;
+import us.dtaylor.mcpserver.tools.AsyncAssetTools;
+
+import java.util.List;
 
 /**
  * Configuration class responsible for exposing {@link AssetTools} as
  * Model Context Protocol (MCP) tools.  The Spring AI MCP server
  * starter will automatically discover beans of type {@link ToolCallbackProvider}
  * and publish their tool methods over the MCP transport.
+ *
+ * <p>When the server runs in ASYNC mode the same tools are published as
+ * the non-blocking {@link AsyncAssetTools} specifications instead.</p>
  */
 @Configuration
 public class McpToolConfig {
 
     @Bean
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "SYNC", matchIfMissing = true)
     public ToolCallbackProvider assetToolCallbackProvider(AssetTools assetTools) {
         return MethodToolCallbackProvider.builder()
                 .toolObjects(assetTools)
                 .build();
     }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+    public List<AsyncToolSpecification> assetAsyncToolSpecifications(AsyncAssetTools assetTools) {
+        return assetTools.specifications();
+    }
 }
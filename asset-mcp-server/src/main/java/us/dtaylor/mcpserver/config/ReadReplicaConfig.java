@@ -0,0 +1,69 @@
+package us.dtaylor.mcpserver.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Splits the connection pool into a primary and a read replica when
+ * {@code app.datasource.replica.url} is set; otherwise Spring Boot's
+ * single data source is used unchanged.
+ *
+ * <p>The primary is configured by {@code spring.datasource.*} as before.
+ * The replica takes its URL from {@code app.datasource.replica.url}, its
+ * credentials from {@code app.datasource.replica.username/password}
+ * (defaulting to the primary's) and its pool settings from
+ * {@code spring.datasource.hikari.*} overridden by
+ * {@code app.datasource.replica.hikari.*}.  Routing and the replica-lag
+ * guard are described on {@link ReplicaRoutingDataSource}; the guard
+ * follows each client through {@link ReplicaLagFilter}.</p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment env,
+                                                      @Value("${app.datasource.replica.max-lag:2s}") Duration maxLag) {
+        Binder binder = Binder.get(env);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(env.getRequiredProperty("app.datasource.replica.url"))
+                .username(env.getProperty("app.datasource.replica.username", properties.determineUsername()))
+                .password(env.getProperty("app.datasource.replica.password", properties.determinePassword()))
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        binder.bind("app.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+
+        return new ReplicaRoutingDataSource(primary, replica, maxLag);
+    }
+
+    /** The data source used by JPA, JdbcTemplate and every other consumer. */
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return routing.lazy();
+    }
+
+    @Bean
+    ReplicaLagFilter replicaLagFilter(ReplicaRoutingDataSource routing) {
+        return new ReplicaLagFilter(routing);
+    }
+}
@@ -0,0 +1,72 @@
+package us.dtaylor.mcpserver.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import us.dtaylor.mcpserver.config.ReplicaRoutingDataSource.Caller;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Makes each HTTP request a caller of {@link ReplicaRoutingDataSource},
+ * so that only the client that wrote is kept off the replica.
+ *
+ * <p>The time of the client's last write travels in the {@code last_write}
+ * cookie (epoch milliseconds), set on the response of every request that
+ * commits a write and kept for the data source's {@code maxLag}.  A later
+ * request carrying it reads from the primary until the replica can be
+ * assumed to have caught up, whichever instance serves it; this assumes
+ * the instances' clocks agree to well within {@code maxLag}.  Clients
+ * that do not keep cookies only read their own writes within a request.</p>
+ */
+public class ReplicaLagFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "last_write";
+
+    private final ReplicaRoutingDataSource routing;
+
+    public ReplicaLagFilter(ReplicaRoutingDataSource routing) {
+        this.routing = routing;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (Caller ignored = ReplicaRoutingDataSource.beginCaller(lastWrite(request),
+                at -> remember(response, at))) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static Instant lastWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Instant.ofEpochMilli(Long.parseLong(cookie.getValue()));
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void remember(HttpServletResponse response, Instant at) {
+        if (response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, Long.toString(at.toEpochMilli()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(routing.maxLag().toSeconds() + 1, 1));
+        response.addCookie(cookie);
+    }
+}
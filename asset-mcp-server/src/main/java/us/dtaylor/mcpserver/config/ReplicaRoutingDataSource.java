@@ -0,0 +1,173 @@
+package us.dtaylor.mcpserver.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a read replica and everything else to
+ * the primary.  Read-only means {@code @Transactional(readOnly = true)},
+ * a read-only {@code TransactionTemplate} or Spring Data's built-in
+ * finders; work outside a transaction always uses the primary, which
+ * keeps schema management and the cache invalidator's LISTEN connection
+ * there.
+ *
+ * <p>Replica-lag guard: a committed read-write transaction keeps the
+ * reads of the caller that made it on the primary for {@code maxLag}, so
+ * the caller reads its own write even though the replica has not replayed
+ * it yet.  A caller is the work between {@link #beginCaller} and the
+ * close of the returned {@link Caller}, on one thread; {@link ReplicaLagFilter}
+ * makes every HTTP request one and carries the time of its last write to
+ * the client's next request, on whichever instance that lands.  Other
+ * callers keep reading from the replica, and writes made for no caller,
+ * such as the work log ingestor's group commits, keep no one off it.
+ * {@code maxLag} should be set above the replica's usual replay lag; a
+ * replica that falls further behind serves stale reads until it catches
+ * up.  Writes done outside a transaction do not count.</p>
+ *
+ * <p>Reads whose result outlives the request, such as the loads of a
+ * near-cache, must not come from a lagging replica at all: the stale row
+ * would be kept long after the window has passed.  They run inside
+ * {@link #onPrimary}, which keeps the read-only transactions started on
+ * the current thread on the primary.</p>
+ *
+ * <p>The transaction's read-only flag is only published after the
+ * transaction manager has asked for a connection, so this data source
+ * must be used behind a {@link LazyConnectionDataSourceProxy} (see
+ * {@link #lazy()}), which defers the choice to the first statement.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    enum Target { PRIMARY, REPLICA }
+
+    /** Set while the current thread runs {@link #onPrimary} work. */
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+    /** The caller the current thread works for, if any. */
+    private static final ThreadLocal<Caller> CALLER = new ThreadLocal<>();
+
+    private final Duration maxLag;
+    private final Clock clock;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag) {
+        this(primary, replica, maxLag, Clock.systemUTC());
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, Clock clock) {
+        this.maxLag = maxLag;
+        this.clock = clock;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /** Wraps this data source so that routing happens at the first statement. */
+    public LazyConnectionDataSourceProxy lazy() {
+        return new LazyConnectionDataSourceProxy(this);
+    }
+
+    /**
+     * Runs {@code work} with every transaction it starts on the primary,
+     * read-only ones included.  A transaction already under way keeps the
+     * connection it has.  Without a replica this just runs {@code work}.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PRIMARY_ONLY.get() != null) {
+            return work.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    /**
+     * Makes the current thread work for a caller until the returned
+     * {@link Caller} is closed.
+     *
+     * @param lastWrite when the caller last committed a write, as far as
+     *                  it is known, or null
+     * @param onWrite   told the commit time of each write the caller makes
+     */
+    public static Caller beginCaller(Instant lastWrite, Consumer<Instant> onWrite) {
+        Caller caller = new Caller(lastWrite, onWrite);
+        CALLER.set(caller);
+        return caller;
+    }
+
+    /** Whether a recent write of the current caller keeps its reads on the primary. */
+    public boolean pinnedToPrimary() {
+        Caller caller = CALLER.get();
+        Instant lastWrite = caller == null ? null : caller.lastWrite;
+        return lastWrite != null && clock.instant().isBefore(lastWrite.plus(maxLag));
+    }
+
+    /** How long after a write its caller's reads stay on the primary. */
+    public Duration maxLag() {
+        return maxLag;
+    }
+
+    /** Closes both pools. */
+    @Override
+    public void close() throws Exception {
+        for (DataSource target : getResolvedDataSources().values()) {
+            if (target instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Caller caller = CALLER.get();
+            if (caller != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        caller.wrote(clock.instant());
+                    }
+                });
+            }
+            return Target.PRIMARY;
+        }
+        return pinnedToPrimary() || PRIMARY_ONLY.get() != null ? Target.PRIMARY : Target.REPLICA;
+    }
+
+    /** A caller whose own writes its reads must see; see {@link #beginCaller}. */
+    public static final class Caller implements AutoCloseable {
+
+        private final Consumer<Instant> onWrite;
+        private volatile Instant lastWrite;
+
+        private Caller(Instant lastWrite, Consumer<Instant> onWrite) {
+            this.lastWrite = lastWrite;
+            this.onWrite = onWrite;
+        }
+
+        private void wrote(Instant at) {
+            lastWrite = at;
+            onWrite.accept(at);
+        }
+
+        /** Ends the caller's work on the current thread. */
+        @Override
+        public void close() {
+            CALLER.remove();
+        }
+    }
+}
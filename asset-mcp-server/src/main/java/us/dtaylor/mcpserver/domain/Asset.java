@@ -1,14 +1,21 @@
 package us.dtaylor.mcpserver.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(AssetChangeListener.class)
+// name_id backs the (name, id) keyset pages of the asset listing (see
+// AssetRepository.searchFirst/searchAfter).
+@Table(indexes = @Index(name = "idx_asset_name_id", columnList = "name, id"))
 public class Asset {
     @Id
     @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
     @Column(unique = true)
     private String qrCode;
@@ -20,6 +27,32 @@ public class Asset {
     private Instant installedAt;
     private String qrImagePath;  // e.g., "https://cdn.example.com/qr/QR-12345.png"
     private String assetType;
+    // optimistic lock version; with updatedAt, the validator for conditional GETs
+    @Version
+    private Long version;
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    /**
+     * Returns a detached field-by-field copy, for in-memory views of the
+     * asset table that must not share instances with callers.
+     */
+    public static Asset copyOf(Asset source) {
+        Asset copy = new Asset();
+        copy.setId(source.getId());
+        copy.setQrCode(source.getQrCode());
+        copy.setName(source.getName());
+        copy.setModel(source.getModel());
+        copy.setSerialNumber(source.getSerialNumber());
+        copy.setBrand(source.getBrand());
+        copy.setManualPath(source.getManualPath());
+        copy.setInstalledAt(source.getInstalledAt());
+        copy.setQrImagePath(source.getQrImagePath());
+        copy.setAssetType(source.getAssetType());
+        copy.setVersion(source.getVersion());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
 
     // Getters and Setters
     public UUID getId() {
@@ -102,4 +135,20 @@ public class Asset {
         this.assetType = assetType;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
 }
@@ -0,0 +1,32 @@
+package us.dtaylor.mcpserver.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns {@link Asset} lifecycle callbacks into
+ * {@link AssetChangedEvent}s.  Hibernate instantiates it through Spring's
+ * bean container, so the publisher is injected.  Listeners should use
+ * {@code @TransactionalEventListener} so they only observe committed data.
+ */
+public class AssetChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public AssetChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onSave(Asset asset) {
+        publisher.publishEvent(AssetChangedEvent.saved(asset));
+    }
+
+    @PostRemove
+    void onRemove(Asset asset) {
+        publisher.publishEvent(AssetChangedEvent.deleted(asset));
+    }
+}
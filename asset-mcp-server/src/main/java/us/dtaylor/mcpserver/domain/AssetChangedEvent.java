@@ -0,0 +1,22 @@
+package us.dtaylor.mcpserver.domain;
+
+/**
+ * Application event published whenever an {@link Asset} row is inserted,
+ * updated or deleted through JPA.  In-memory views of the asset table
+ * (search index, lookup caches) listen for it after commit to stay
+ * consistent with the database without every write path having to know
+ * about them.
+ *
+ * @param asset   the entity that changed, in its committed state
+ * @param deleted whether the row was removed
+ */
+public record AssetChangedEvent(Asset asset, boolean deleted) {
+
+    public static AssetChangedEvent saved(Asset asset) {
+        return new AssetChangedEvent(asset, false);
+    }
+
+    public static AssetChangedEvent deleted(Asset asset) {
+        return new AssetChangedEvent(asset, true);
+    }
+}
@@ -0,0 +1,73 @@
+package us.dtaylor.mcpserver.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Running totals of an asset's work logs, one row per asset that has any.
+ * Rows are written only by {@code AssetWorkSummaryService}, with an
+ * upsert in the same transaction as each work log insert, so JPA treats
+ * the entity as read-only.
+ */
+@Entity
+@Immutable
+@Table(name = "asset_work_summary")
+public class AssetWorkSummary {
+    @Id
+    @Column(name = "asset_id")
+    private UUID assetId;
+    private long jobCount;
+    private long totalMinutes;
+    private String lastTechnician;
+    private Instant lastWorkedAt;
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "asset_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_work_summary_asset"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Asset asset;
+
+    protected AssetWorkSummary() {
+    }
+
+    /** Summary of an asset without work logs. */
+    public static AssetWorkSummary empty(UUID assetId) {
+        AssetWorkSummary summary = new AssetWorkSummary();
+        summary.assetId = assetId;
+        return summary;
+    }
+
+    public UUID getAssetId() {
+        return assetId;
+    }
+
+    public long getJobCount() {
+        return jobCount;
+    }
+
+    public long getTotalMinutes() {
+        return totalMinutes;
+    }
+
+    public String getLastTechnician() {
+        return lastTechnician;
+    }
+
+    public Instant getLastWorkedAt() {
+        return lastWorkedAt;
+    }
+}
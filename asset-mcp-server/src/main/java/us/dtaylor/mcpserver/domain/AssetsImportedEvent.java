@@ -0,0 +1,20 @@
+package us.dtaylor.mcpserver.domain;
+
+import java.util.List;
+
+/**
+ * Application event published by the bulk import once a chunk of new
+ * {@link Asset} rows has committed.  The rows are written with JDBC, so no
+ * {@link AssetChangedEvent} is published for them; listeners of that event
+ * that keep views of the asset table listen for this one too and handle
+ * the chunk in one go, e.g. one notification to the other replicas
+ * instead of one per row.
+ *
+ * @param assets the inserted entities, in their committed state
+ */
+public record AssetsImportedEvent(List<Asset> assets) {
+
+    public AssetsImportedEvent {
+        assets = List.copyOf(assets);
+    }
+}
@@ -0,0 +1,37 @@
+package us.dtaylor.mcpserver.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * Marks a one-off data backfill as done on this database, so that it
+ * runs once rather than on every start.  Rows are written only by the
+ * service that runs the backfill, over JDBC, so JPA treats the entity as
+ * read-only; it is mapped so that the schema includes the table.
+ */
+@Entity
+@Immutable
+@Table(name = "data_backfill")
+public class DataBackfill {
+    @Id
+    @Column(length = 64)
+    private String name;
+    @Column(nullable = false)
+    private Instant completedAt;
+
+    protected DataBackfill() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,20 @@
+package us.dtaylor.mcpserver.domain;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+import us.dtaylor.mcpserver.util.UuidV7;
+
+import java.util.UUID;
+
+/**
+ * Hibernate id algorithm producing time-ordered {@link UuidV7} values.
+ * Plugged into entities with
+ * {@code @UuidGenerator(algorithm = UuidV7Generator.class)}.
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return UuidV7.next();
+    }
+}
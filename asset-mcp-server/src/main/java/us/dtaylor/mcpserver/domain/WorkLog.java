@@ -7,17 +7,26 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+// asset_created backs the newest-first history of one asset, including keyset
+// paging and incremental sync (see WorkLogRepository); created_at backs the
+// time-range scans of the export and analytics.
+@Table(indexes = {
+        @Index(name = "idx_work_log_asset_created", columnList = "asset_id, created_at desc, id desc"),
+        @Index(name = "idx_work_log_created_at", columnList = "created_at")})
 public class WorkLog {
-    @Id @GeneratedValue private UUID id;
+    @Id @GeneratedValue @UuidGenerator(algorithm = UuidV7Generator.class) private UUID id;
     private String technician;
     private String action;
     private Integer durationMinutes;
@@ -0,0 +1,30 @@
+package us.dtaylor.mcpserver.dto;
+
+import java.util.List;
+
+/**
+ * Result of a bulk asset import: totals plus one entry per input row, in
+ * input order.  Row numbers count data rows from 1, excluding the CSV
+ * header line.
+ */
+public record AssetImportReport(int total, int created, int failed, List<Row> rows) {
+
+    public static AssetImportReport of(List<Row> rows) {
+        int created = (int) rows.stream().filter(r -> Row.CREATED.equals(r.status())).count();
+        return new AssetImportReport(rows.size(), created, rows.size() - created, rows);
+    }
+
+    public record Row(int row, String status, String id, String qrCode, String error) {
+
+        public static final String CREATED = "CREATED";
+        public static final String FAILED = "FAILED";
+
+        public static Row created(int row, String id, String qrCode) {
+            return new Row(row, CREATED, id, qrCode, null);
+        }
+
+        public static Row failed(int row, String qrCode, String error) {
+            return new Row(row, FAILED, null, qrCode, error);
+        }
+    }
+}
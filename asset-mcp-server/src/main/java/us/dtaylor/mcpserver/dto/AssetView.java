@@ -0,0 +1,37 @@
+package us.dtaylor.mcpserver.dto;
+
+import us.dtaylor.mcpserver.domain.Asset;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only view of an asset with the same JSON shape as the {@link Asset}
+ * entity.  List queries build it straight from the selected columns with a
+ * JPQL constructor expression, so no entity is hydrated, tracked by the
+ * persistence context or snapshotted for dirty checking.
+ */
+public record AssetView(UUID id,
+                        String qrCode,
+                        String name,
+                        String model,
+                        String serialNumber,
+                        String brand,
+                        String manualPath,
+                        Instant installedAt,
+                        String qrImagePath,
+                        String assetType,
+                        Long version,
+                        Instant updatedAt) {
+
+    /** JPQL select item producing this record from an {@code Asset a}. */
+    public static final String JPQL = "new us.dtaylor.mcpserver.dto.AssetView(a.id, a.qrCode, a.name, a.model, "
+            + "a.serialNumber, a.brand, a.manualPath, a.installedAt, a.qrImagePath, a.assetType, "
+            + "a.version, a.updatedAt)";
+
+    public static AssetView of(Asset a) {
+        return new AssetView(a.getId(), a.getQrCode(), a.getName(), a.getModel(), a.getSerialNumber(),
+                a.getBrand(), a.getManualPath(), a.getInstalledAt(), a.getQrImagePath(), a.getAssetType(),
+                a.getVersion(), a.getUpdatedAt());
+    }
+}
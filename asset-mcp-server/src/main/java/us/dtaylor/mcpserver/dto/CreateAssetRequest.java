@@ -1,17 +1,19 @@
 package us.dtaylor.mcpserver.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import jakarta.validation.constraints.NotBlank;
 
 import java.time.Instant;
 
-// Incoming payload
+// Incoming payload.  The snake_case aliases accept rows written by the
+// export endpoint, so an export can be re-imported as is.
 public record CreateAssetRequest(
-        String qrCode, // optional; auto-generated if blank
+        @JsonAlias("qr_code") String qrCode, // optional; auto-generated if blank
         @NotBlank String name,
         String model,
-        String serialNumber,
+        @JsonAlias("serial_number") String serialNumber,
         String brand,
-        String assetType,
-        @NotBlank String manualPath, // e.g. file:/... or s3://...
-        Instant installedAt
+        @JsonAlias("asset_type") String assetType,
+        @JsonAlias("manual_path") @NotBlank String manualPath, // e.g. file:/... or s3://...
+        @JsonAlias("installed_at") Instant installedAt
 ) {}
@@ -0,0 +1,43 @@
+package us.dtaylor.mcpserver.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row of a keyset (seek) page: the value of the sort
+ * key plus the row id as tie-breaker.  Clients receive it as an opaque
+ * URL-safe token in the {@code X-Next-Cursor} header and send it back
+ * unchanged to fetch the following page.
+ *
+ * @param key the sort key of the last row (never null; null keys are
+ *            encoded as an empty string)
+ * @param id  the id of the last row
+ */
+public record PageCursor(String key, UUID id) {
+
+    private static final int UUID_LENGTH = 36;
+
+    public PageCursor {
+        key = key == null ? "" : key;
+    }
+
+    public String encode() {
+        byte[] raw = (id + key).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return new PageCursor(raw.substring(UUID_LENGTH), UUID.fromString(raw.substring(0, UUID_LENGTH)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
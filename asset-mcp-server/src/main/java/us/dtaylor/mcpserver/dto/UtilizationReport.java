@@ -0,0 +1,28 @@
+package us.dtaylor.mcpserver.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Work log rollups for the days {@code from} (inclusive) to {@code to}
+ * (exclusive): jobs and minutes per technician and per asset type, largest
+ * first, plus one entry per week (weeks start on Monday; the first and last
+ * may be partial).
+ */
+public record UtilizationReport(LocalDate from,
+                                LocalDate to,
+                                long jobs,
+                                long minutes,
+                                List<TechnicianUsage> technicians,
+                                List<AssetTypeUsage> assetTypes,
+                                List<WeeklyUsage> weekly) {
+
+    public record TechnicianUsage(String technician, long jobs, long minutes) {
+    }
+
+    public record AssetTypeUsage(String assetType, long jobs, long minutes) {
+    }
+
+    public record WeeklyUsage(LocalDate weekStart, long jobs, long minutes) {
+    }
+}
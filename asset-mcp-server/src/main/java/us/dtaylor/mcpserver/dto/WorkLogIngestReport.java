@@ -0,0 +1,31 @@
+package us.dtaylor.mcpserver.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of a work log ingest request: totals plus one entry per submitted
+ * log, in submission order.  Entry numbers count from 1.  A {@code STORED}
+ * entry has been committed to the database.
+ */
+public record WorkLogIngestReport(int total, int stored, int failed, List<Entry> entries) {
+
+    public static WorkLogIngestReport of(List<Entry> entries) {
+        int stored = (int) entries.stream().filter(e -> Entry.STORED.equals(e.status())).count();
+        return new WorkLogIngestReport(entries.size(), stored, entries.size() - stored, entries);
+    }
+
+    public record Entry(int entry, String status, String id, Instant createdAt, String error) {
+
+        public static final String STORED = "STORED";
+        public static final String FAILED = "FAILED";
+
+        public static Entry stored(int entry, String id, Instant createdAt) {
+            return new Entry(entry, STORED, id, createdAt, null);
+        }
+
+        public static Entry failed(int entry, String error) {
+            return new Entry(entry, FAILED, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package us.dtaylor.mcpserver.dto;
+
+import us.dtaylor.mcpserver.domain.WorkLog;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only view of a work log with the same JSON shape as the
+ * {@link WorkLog} entity, built directly from the selected columns.  The
+ * asset is not part of it, so reads never touch the lazy asset proxy.
+ */
+public record WorkLogView(UUID id,
+                          String technician,
+                          String action,
+                          Integer durationMinutes,
+                          Instant createdAt,
+                          String notes) {
+
+    /** JPQL select item producing this record from a {@code WorkLog w}. */
+    public static final String JPQL = "new us.dtaylor.mcpserver.dto.WorkLogView(w.id, w.technician, w.action, "
+            + "w.durationMinutes, w.createdAt, w.notes)";
+
+    public static WorkLogView of(WorkLog wl) {
+        return new WorkLogView(wl.getId(), wl.getTechnician(), wl.getAction(), wl.getDurationMinutes(),
+                wl.getCreatedAt(), wl.getNotes());
+    }
+}
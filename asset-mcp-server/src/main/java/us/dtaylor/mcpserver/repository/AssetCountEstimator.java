@@ -0,0 +1,82 @@
+package us.dtaylor.mcpserver.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import us.dtaylor.mcpserver.util.DatabasePlatform;
+
+import javax.sql.DataSource;
+import java.util.OptionalLong;
+
+/**
+ * Cheap, approximate row counts for the asset listing, used instead of an
+ * exact {@code COUNT(*)} when a client asks for {@code count=estimate}.
+ *
+ * <p>On PostgreSQL an unfiltered listing reads {@code pg_class.reltuples}
+ * (maintained by ANALYZE/autovacuum) and a filtered one asks the planner
+ * for its row estimate via {@code EXPLAIN}, which never touches the table.
+ * H2 only offers a table-level estimate, so filtered queries have none.</p>
+ */
+@Repository
+public class AssetCountEstimator {
+
+    private static final String LIKE_FILTER = """
+            LOWER(name) LIKE ? OR LOWER(model) LIKE ? OR LOWER(serial_number) LIKE ?
+            OR LOWER(brand) LIKE ? OR LOWER(asset_type) LIKE ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean postgres;
+
+    public AssetCountEstimator(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.postgres = DatabasePlatform.isPostgres(dataSource);
+    }
+
+    /**
+     * Estimates how many assets match the LIKE search for the query.
+     *
+     * @param query the search text, possibly blank
+     * @return the estimate, or empty when none is available
+     */
+    public OptionalLong estimate(String query) {
+        try {
+            if (query == null || query.isBlank()) {
+                return postgres ? tableEstimatePostgres() : tableEstimateH2();
+            }
+            return postgres ? plannerEstimate(query) : OptionalLong.empty();
+        } catch (DataAccessException ex) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private OptionalLong tableEstimatePostgres() {
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass('asset')", Long.class);
+        // -1 means the table has never been analyzed
+        return rows == null || rows < 0 ? OptionalLong.empty() : OptionalLong.of(rows);
+    }
+
+    private OptionalLong tableEstimateH2() {
+        Long rows = jdbcTemplate.queryForObject("""
+                SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES
+                WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'ASSET'""", Long.class);
+        return rows == null ? OptionalLong.empty() : OptionalLong.of(rows);
+    }
+
+    private OptionalLong plannerEstimate(String query) {
+        String pattern = "%" + query.toLowerCase() + "%";
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN (FORMAT JSON) SELECT 1 FROM asset WHERE " + LIKE_FILTER,
+                String.class, pattern, pattern, pattern, pattern, pattern);
+        try {
+            JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isNumber() ? OptionalLong.of(rows.asLong()) : OptionalLong.empty();
+        } catch (Exception ex) {
+            return OptionalLong.empty();
+        }
+    }
+}
@@ -1,31 +1,139 @@
 package us.dtaylor.mcpserver.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.dto.AssetView;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface AssetRepository extends JpaRepository<Asset, UUID> {
+
+    /**
+     * Lower-cased concatenation of every searchable column.  The Postgres
+     * trigram index created by RankedAssetSearchEngine is built on exactly
+     * this expression, so keep the two in sync.
+     */
+    String SEARCH_DOCUMENT = """
+            LOWER(COALESCE(a.name, '') || ' ' || COALESCE(a.model, '') || ' ' ||
+                  COALESCE(a.serial_number, '') || ' ' || COALESCE(a.brand, '') || ' ' ||
+                  COALESCE(a.asset_type, ''))""";
+
+    /**
+     * JPQL filter behind {@link #search}: case-insensitive substring match on
+     * name, model, serialNumber, brand and assetType.  A blank :query
+     * matches every asset.
+     */
+    String SEARCH_FILTER = """
+            (:query IS NULL OR :query = '' OR
+                  LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%')) OR
+                  LOWER(a.model) LIKE LOWER(CONCAT('%', :query, '%')) OR
+                  LOWER(a.serialNumber) LIKE LOWER(CONCAT('%', :query, '%')) OR
+                  LOWER(a.brand) LIKE LOWER(CONCAT('%', :query, '%')) OR
+                  LOWER(a.assetType) LIKE LOWER(CONCAT('%', :query, '%')))""";
+
+    @Transactional(readOnly = true)
     Optional<Asset> findByQrCode(String qr);
 
+    /**
+     * Streams every asset using a JDBC fetch size so large tables are read
+     * in chunks.  Must be consumed inside a transaction and closed.
+     */
+    @Query("SELECT a FROM Asset a")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Asset> streamAll();
+
     /**
      * Case-insensitive search across name, model, serialNumber, and brand.
      * If :query is blank/null, all assets are returned (paginated).
      */
-    @Query("""
-        SELECT a
-        FROM Asset a
-        WHERE (:query IS NULL OR :query = '' OR
-              LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%')) OR
-              LOWER(a.model) LIKE LOWER(CONCAT('%', :query, '%')) OR
-              LOWER(a.serialNumber) LIKE LOWER(CONCAT('%', :query, '%')) OR
-              LOWER(a.brand) LIKE LOWER(CONCAT('%', :query, '%')) OR
-              LOWER(a.assetType) LIKE LOWER(CONCAT('%', :query, '%')))
-        """)
+    @Query("SELECT a FROM Asset a WHERE " + SEARCH_FILTER)
     Page<Asset> search(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Same as {@link #search} but returns a {@link Slice}, so no COUNT query
+     * is issued.
+     */
+    @Query("SELECT a FROM Asset a WHERE " + SEARCH_FILTER)
+    Slice<Asset> searchSlice(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Read-only variant of {@link #search} that projects rows straight into
+     * {@link AssetView}s without hydrating entities.
+     */
+    @Query(value = "SELECT " + AssetView.JPQL + " FROM Asset a WHERE " + SEARCH_FILTER,
+            countQuery = "SELECT COUNT(a) FROM Asset a WHERE " + SEARCH_FILTER)
+    Page<AssetView> searchViews(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Read-only variant of {@link #searchSlice}.
+     */
+    @Query("SELECT " + AssetView.JPQL + " FROM Asset a WHERE " + SEARCH_FILTER)
+    Slice<AssetView> searchViewSlice(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Number of assets matching {@link #search}.
+     */
+    @Query("SELECT COUNT(a) FROM Asset a WHERE " + SEARCH_FILTER)
+    long countSearch(@Param("query") String query);
+
+    /**
+     * First keyset page of {@link #search}, ordered by (name, id), as
+     * read-only views.  Pass an unsorted pageable; only its size is used.
+     */
+    @Query("SELECT " + AssetView.JPQL + " FROM Asset a WHERE " + SEARCH_FILTER + " ORDER BY a.name, a.id")
+    Slice<AssetView> searchFirst(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Keyset page of {@link #search} following the row (afterName, afterId).
+     * Seeks on the {@code (name, id)} index instead of skipping an offset,
+     * so deep pages cost the same as the first one.
+     */
+    @Query("SELECT " + AssetView.JPQL + " FROM Asset a WHERE " + SEARCH_FILTER + """
+             AND (a.name > :afterName OR (a.name = :afterName AND a.id > :afterId))
+            ORDER BY a.name, a.id
+            """)
+    Slice<AssetView> searchAfter(@Param("query") String query,
+                                 @Param("afterName") String afterName,
+                                 @Param("afterId") UUID afterId,
+                                 Pageable pageable);
+
+    /**
+     * Postgres search over the trigram-indexed {@link #SEARCH_DOCUMENT}.
+     * pg_trgm lets the GIN index answer the {@code LIKE '%q%'} predicate and
+     * {@code word_similarity} ranks the matches.  The query must not be blank.
+     */
+    @Query(value = "SELECT a.* FROM asset a WHERE " + SEARCH_DOCUMENT + " LIKE CONCAT('%', LOWER(:query), '%')"
+            + " ORDER BY word_similarity(LOWER(:query), " + SEARCH_DOCUMENT + ") DESC, a.name, a.id",
+            countQuery = "SELECT COUNT(*) FROM asset a WHERE " + SEARCH_DOCUMENT + " LIKE CONCAT('%', LOWER(:query), '%')",
+            nativeQuery = true)
+    Page<Asset> searchRankedTrigram(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Portable (H2) equivalent of {@link #searchRankedTrigram}.  Ranks exact
+     * name or serial number hits first, then name prefixes, then any other
+     * name match, then matches on the remaining columns.
+     */
+    @Query(value = "SELECT a.* FROM asset a WHERE " + SEARCH_DOCUMENT + " LIKE CONCAT('%', LOWER(:query), '%')"
+            + " ORDER BY CASE"
+            + " WHEN LOWER(a.name) = LOWER(:query) OR LOWER(a.serial_number) = LOWER(:query) THEN 0"
+            + " WHEN LOWER(a.name) LIKE CONCAT(LOWER(:query), '%') THEN 1"
+            + " WHEN LOWER(a.name) LIKE CONCAT('%', LOWER(:query), '%') THEN 2"
+            + " ELSE 3 END, a.name, a.id",
+            countQuery = "SELECT COUNT(*) FROM asset a WHERE " + SEARCH_DOCUMENT + " LIKE CONCAT('%', LOWER(:query), '%')",
+            nativeQuery = true)
+    Page<Asset> searchRanked(@Param("query") String query, Pageable pageable);
 }
@@ -0,0 +1,9 @@
+package us.dtaylor.mcpserver.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
+
+import java.util.UUID;
+
+public interface AssetWorkSummaryRepository extends JpaRepository<AssetWorkSummary, UUID> {
+}
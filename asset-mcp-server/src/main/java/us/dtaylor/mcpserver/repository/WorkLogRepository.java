@@ -1,13 +1,71 @@
 package us.dtaylor.mcpserver.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import us.dtaylor.mcpserver.domain.WorkLog;
+import us.dtaylor.mcpserver.dto.WorkLogView;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public interface WorkLogRepository extends JpaRepository<WorkLog, UUID> {
 
-    // Return all work logs for an asset ordered by newest first (for the UI table)
-    List<WorkLog> findByAsset_IdOrderByCreatedAtDesc(UUID assetId);
+    // Return all work logs for an asset ordered by newest first (for the UI table),
+    // as read-only views built from the selected columns
+    @Query("SELECT " + WorkLogView.JPQL + " FROM WorkLog w WHERE w.asset.id = :assetId"
+            + " ORDER BY w.createdAt DESC, w.id DESC")
+    List<WorkLogView> findViewsByAssetId(@Param("assetId") UUID assetId);
+
+    /**
+     * First page of an asset's history as read-only views, newest first,
+     * limited to logs after the row {@code (sinceCreatedAt, sinceId)} in
+     * {@code (createdAt, id)} order.  Served by the
+     * {@code (asset_id, created_at desc, id desc)} index.
+     */
+    @Query("SELECT " + WorkLogView.JPQL + """
+             FROM WorkLog w
+            WHERE w.asset.id = :assetId
+              AND (w.createdAt > :sinceCreatedAt OR (w.createdAt = :sinceCreatedAt AND w.id > :sinceId))
+            ORDER BY w.createdAt DESC, w.id DESC""")
+    Slice<WorkLogView> historyFirst(@Param("assetId") UUID assetId,
+                                    @Param("sinceCreatedAt") Instant sinceCreatedAt,
+                                    @Param("sinceId") UUID sinceId,
+                                    Pageable pageable);
+
+    /**
+     * Page of an asset's history following the row {@code (afterCreatedAt,
+     * afterId)}, using the same ordering and filter as {@link #historyFirst}.
+     */
+    @Query("SELECT " + WorkLogView.JPQL + """
+             FROM WorkLog w
+            WHERE w.asset.id = :assetId
+              AND (w.createdAt > :sinceCreatedAt OR (w.createdAt = :sinceCreatedAt AND w.id > :sinceId))
+              AND (w.createdAt < :afterCreatedAt OR (w.createdAt = :afterCreatedAt AND w.id < :afterId))
+            ORDER BY w.createdAt DESC, w.id DESC""")
+    Slice<WorkLogView> historyAfter(@Param("assetId") UUID assetId,
+                                    @Param("sinceCreatedAt") Instant sinceCreatedAt,
+                                    @Param("sinceId") UUID sinceId,
+                                    @Param("afterCreatedAt") Instant afterCreatedAt,
+                                    @Param("afterId") UUID afterId,
+                                    Pageable pageable);
+
+    /**
+     * The newest of an asset's logs after the row {@code (sinceCreatedAt,
+     * sinceId)} that were created at or before {@code settledAt}, as a
+     * one-element list, or empty when there is none.
+     */
+    @Query("SELECT " + WorkLogView.JPQL + """
+             FROM WorkLog w
+            WHERE w.asset.id = :assetId AND w.createdAt <= :settledAt
+              AND (w.createdAt > :sinceCreatedAt OR (w.createdAt = :sinceCreatedAt AND w.id > :sinceId))
+            ORDER BY w.createdAt DESC, w.id DESC""")
+    List<WorkLogView> newestSettled(@Param("assetId") UUID assetId,
+                                    @Param("sinceCreatedAt") Instant sinceCreatedAt,
+                                    @Param("sinceId") UUID sinceId,
+                                    @Param("settledAt") Instant settledAt,
+                                    Pageable pageable);
 }
@@ -60,21 +60,38 @@ public class AssetCreationService {
         }
         // persist to obtain an ID
         Asset saved = repo.save(asset);
+        // update asset with image URL
+        saved.setQrImagePath(renderQrImage(saved.getQrCode()));
+        return repo.save(saved);
+    }
 
+    /**
+     * Renders the QR image for a code and stores it.  The image encodes
+     * the scan URL composed of the configured base URL and the code.  Safe
+     * to call concurrently; the bulk importer renders from a worker pool.
+     *
+     * @param qrCode the asset's QR code
+     * @return the public URL of the stored image
+     */
+    public String renderQrImage(String qrCode) throws Exception {
         // Build scan URL (what the QR encodes)
-        String qrData = scanBaseUrl + "/" + saved.getQrCode();
+        String qrData = scanBaseUrl + "/" + qrCode;
         // generate QR image into a temporary location
         Path tmpDir = Files.createTempDirectory("qr-asset");
-        Path tmpFile = tmpDir.resolve(saved.getQrCode() + ".png");
-        qrCodeService.generatePng(qrData, tmpFile);
-        // store the image and obtain a public URL
-        String qrImageUrl = qrStorage.storeAndGetPublicUrl(tmpFile, saved.getQrCode() + ".png");
-        // update asset with image URL
-        saved.setQrImagePath(qrImageUrl);
-        return repo.save(saved);
+        Path tmpFile = tmpDir.resolve(qrCode + ".png");
+        try {
+            qrCodeService.generatePng(qrData, tmpFile);
+            // store the image and obtain a public URL
+            return qrStorage.storeAndGetPublicUrl(tmpFile, qrCode + ".png");
+        } finally {
+            // storage normally moves the file away; remove what is left
+            Files.deleteIfExists(tmpFile);
+            Files.deleteIfExists(tmpDir);
+        }
     }
 
-    private String generateShortCode() {
+    /** Generates a random code for assets created without one. */
+    public String generateShortCode() {
         // simple, friendly code: QR-<first8 of UUID> (customize to your needs)
         return "QR-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
@@ -1,54 +1,169 @@
 package us.dtaylor.mcpserver.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import us.dtaylor.mcpserver.config.ReplicaRoutingDataSource;
 import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.dto.AssetView;
+import us.dtaylor.mcpserver.dto.PageCursor;
+import us.dtaylor.mcpserver.repository.AssetCountEstimator;
 import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.service.cache.AssetLookupCache;
+import us.dtaylor.mcpserver.service.search.AssetSearchEngine;
+import us.dtaylor.mcpserver.service.search.LikeAssetSearchEngine;
 
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
 public class AssetService {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final AssetRepository repo;
+    private final AssetSearchEngine searchEngine;
+    private final AssetCountEstimator countEstimator;
+    private final AssetLookupCache lookupCache;
 
+    /**
+     * Creates a service using the LIKE search engine, without count
+     * estimates and without a lookup cache.  Used by slim test
+     * configurations.
+     */
     public AssetService(AssetRepository repo) {
+        this(repo, new LikeAssetSearchEngine(repo), null, AssetLookupCache.disabled());
+    }
+
+    @Autowired
+    public AssetService(AssetRepository repo,
+                        AssetSearchEngine searchEngine,
+                        AssetCountEstimator countEstimator,
+                        AssetLookupCache lookupCache) {
         this.repo = repo;
+        this.searchEngine = searchEngine;
+        this.countEstimator = countEstimator;
+        this.lookupCache = lookupCache;
     }
 
     public Optional<Asset> findByQrOrId(String qrOrId) {
-        try {
-            return repo.findById(UUID.fromString(qrOrId));
-        } catch (IllegalArgumentException ignore) {
+        if (isCanonicalUuid(qrOrId)) {
+            return findById(UUID.fromString(qrOrId));
         }
-        return repo.findByQrCode(qrOrId);
+        return findByQr(qrOrId);
+    }
+
+    /**
+     * Search (or list all when query is blank) with pagination.  Matching
+     * and ordering of non-blank queries is delegated to the configured
+     * {@link AssetSearchEngine}.  Results are read-only views.
+     */
+    @Transactional(readOnly = true)
+    public Page<AssetView> search(String query, int page, int size) {
+        return searchEngine.searchViews(query, byName(page, size));
     }
 
     /**
-     * Search (or list all when query is blank) with pagination.
+     * Same as {@link #search} but without the total count, which saves the
+     * COUNT query where the search engine supports it.
      */
-    public Page<Asset> search(String query, int page, int size) {
-        int sanitizedPage = Math.max(page, 0);
-        int sanitizedSize = Math.min(Math.max(size, 1), 200); // cap to avoid abuse
-        Pageable pageable = PageRequest.of(sanitizedPage, sanitizedSize, Sort.by("name").ascending());
-        return repo.search(query, pageable);
+    @Transactional(readOnly = true)
+    public Slice<AssetView> searchSlice(String query, int page, int size) {
+        return searchEngine.searchViewSlice(query, byName(page, size));
     }
 
+    /**
+     * Keyset (seek) variant of the name-ordered LIKE search.  Pages are
+     * ordered by (name, id) and continue after the given cursor, so deep
+     * pages do not pay for skipped rows.  Relevance ranking of the
+     * configured search engine does not apply to this mode.
+     *
+     * @param query the search text, possibly blank
+     * @param after the last row of the previous page, or null for the first page
+     * @param size  the page size
+     * @return the page; {@link Slice#hasNext()} tells whether more rows follow
+     */
+    @Transactional(readOnly = true)
+    public Slice<AssetView> searchAfter(String query, PageCursor after, int size) {
+        Pageable limit = PageRequest.of(0, sanitizeSize(size));
+        if (after == null) {
+            return repo.searchFirst(query, limit);
+        }
+        return repo.searchAfter(query, after.key(), after.id(), limit);
+    }
+
+    /**
+     * Exact number of assets matching the LIKE search.
+     */
+    @Transactional(readOnly = true)
+    public long count(String query) {
+        return repo.countSearch(query);
+    }
+
+    /**
+     * Approximate number of assets matching the LIKE search, read from
+     * database statistics instead of counting rows.
+     */
+    @Transactional(readOnly = true)
+    public OptionalLong estimateCount(String query) {
+        return countEstimator == null ? OptionalLong.empty() : countEstimator.estimate(query);
+    }
+
+    /**
+     * Checks the 8-4-4-4-12 hex layout up front so that QR codes, the
+     * common case on a scan, do not pay for a failed {@link UUID#fromString}.
+     */
+    public static boolean isCanonicalUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            boolean ok = (i == 8 || i == 13 || i == 18 || i == 23)
+                    ? c == '-'
+                    : Character.digit(c, 16) >= 0;
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Pageable byName(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), sanitizeSize(size), Sort.by("name").ascending());
+    }
+
+    private static int sanitizeSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE); // cap to avoid abuse
+    }
 
     public Asset getById(UUID id) {
-        return repo.findById(id)
+        return findById(id)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Asset not found: " + id));
     }
 
     public Asset getByQr(String qrCode) {
-        return repo.findByQrCode(qrCode)
+        return findByQr(qrCode)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Asset not found for QR: " + qrCode));
     }
 
+    // cache misses are read from the primary even when a read replica is
+    // configured: a row the replica has not caught up on would otherwise be
+    // cached for the whole expiry, long after the replica-lag window
+    private Optional<Asset> findById(UUID id) {
+        return lookupCache.getById(id, key -> ReplicaRoutingDataSource.onPrimary(() -> repo.findById(key)));
+    }
+
+    private Optional<Asset> findByQr(String qrCode) {
+        return lookupCache.getByQr(qrCode, key -> ReplicaRoutingDataSource.onPrimary(() -> repo.findByQrCode(key)));
+    }
+
 }
@@ -0,0 +1,209 @@
+package us.dtaylor.mcpserver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
+import us.dtaylor.mcpserver.domain.WorkLog;
+import us.dtaylor.mcpserver.repository.AssetWorkSummaryRepository;
+import us.dtaylor.mcpserver.util.DatabasePlatform;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maintains the {@link AssetWorkSummary} read model: job count, total
+ * minutes, last technician and last worked-at per asset.
+ *
+ * <p>Writers call {@link #record} inside the transaction that inserts the
+ * work logs.  The row is updated with a single atomic upsert that adds to
+ * the running totals, so concurrent writers for the same asset never lose
+ * an update and a rolled-back insert leaves the summary untouched.  Reads
+ * are a primary key lookup regardless of how many logs an asset has.</p>
+ *
+ * <p>Assets that have work logs but no summary row yet (logs written before
+ * this read model existed) are backfilled from the {@code work_log} table
+ * once per database, by the first instance to start; a row in
+ * {@code data_backfill} ({@link us.dtaylor.mcpserver.domain.DataBackfill})
+ * records that it is done.  On PostgreSQL the
+ * instances agree on who runs it with an advisory lock, and the backfill
+ * holds off work log writers ({@code LOCK TABLE work_log IN SHARE MODE})
+ * until it commits, so a log committed meanwhile is counted exactly once.</p>
+ */
+@Service
+public class AssetWorkSummaryService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetWorkSummaryService.class);
+
+    // The newest entry wins the "last" columns; ties keep the incoming row.
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO asset_work_summary AS s
+                   (asset_id, job_count, total_minutes, last_technician, last_worked_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (asset_id) DO UPDATE SET
+                job_count = s.job_count + EXCLUDED.job_count,
+                total_minutes = s.total_minutes + EXCLUDED.total_minutes,
+                last_technician = CASE WHEN s.last_worked_at IS NULL OR EXCLUDED.last_worked_at >= s.last_worked_at
+                                       THEN EXCLUDED.last_technician ELSE s.last_technician END,
+                last_worked_at = GREATEST(s.last_worked_at, EXCLUDED.last_worked_at)""";
+
+    private static final String PORTABLE_UPSERT = """
+            MERGE INTO asset_work_summary s
+            USING (VALUES (CAST(? AS UUID), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(255)),
+                           CAST(? AS TIMESTAMP WITH TIME ZONE)))
+                  AS v (asset_id, job_count, total_minutes, last_technician, last_worked_at)
+            ON s.asset_id = v.asset_id
+            WHEN MATCHED THEN UPDATE SET
+                job_count = s.job_count + v.job_count,
+                total_minutes = s.total_minutes + v.total_minutes,
+                last_technician = CASE WHEN s.last_worked_at IS NULL OR v.last_worked_at >= s.last_worked_at
+                                       THEN v.last_technician ELSE s.last_technician END,
+                last_worked_at = GREATEST(s.last_worked_at, v.last_worked_at)
+            WHEN NOT MATCHED THEN INSERT (asset_id, job_count, total_minutes, last_technician, last_worked_at)
+                VALUES (v.asset_id, v.job_count, v.total_minutes, v.last_technician, v.last_worked_at)""";
+
+    private static final String BACKFILL = """
+            INSERT INTO asset_work_summary (asset_id, job_count, total_minutes, last_technician, last_worked_at)
+            SELECT w.asset_id, COUNT(*), COALESCE(SUM(w.duration_minutes), 0),
+                   (SELECT l.technician FROM work_log l WHERE l.asset_id = w.asset_id
+                    ORDER BY l.created_at DESC, l.id DESC FETCH FIRST 1 ROW ONLY),
+                   MAX(w.created_at)
+            FROM work_log w
+            WHERE NOT EXISTS (SELECT 1 FROM asset_work_summary s WHERE s.asset_id = w.asset_id)
+            GROUP BY w.asset_id""";
+
+    private static final String BACKFILL_NAME = "asset_work_summary";
+    /** Advisory lock key of the backfill, shared by every instance. */
+    private static final long BACKFILL_LOCK = 0x6173_7365_7477_736CL;
+
+    private final AssetWorkSummaryRepository repo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final boolean postgres;
+    private final String upsertSql;
+
+    public AssetWorkSummaryService(AssetWorkSummaryRepository repo, DataSource dataSource,
+                                   PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.postgres = DatabasePlatform.isPostgres(dataSource);
+        this.upsertSql = postgres ? POSTGRES_UPSERT : PORTABLE_UPSERT;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int backfilled = backfillOnce();
+        if (backfilled > 0) {
+            log.info("Backfilled work summaries for {} assets", backfilled);
+        }
+    }
+
+    /** Returns the asset's summary; all zeros if it has no work logs. */
+    public AssetWorkSummary get(UUID assetId) {
+        return repo.findById(assetId).orElseGet(() -> AssetWorkSummary.empty(assetId));
+    }
+
+    /** Adds a newly inserted work log to its asset's summary. */
+    public void record(WorkLog wl) {
+        recordAll(List.of(Delta.of(wl.getAsset().getId(), wl.getDurationMinutes(),
+                wl.getTechnician(), wl.getCreatedAt())));
+    }
+
+    /**
+     * Adds the deltas to their assets' summaries with one batched upsert.
+     * Must run in the transaction that inserts the corresponding logs;
+     * callers should merge deltas per asset first.
+     */
+    public void recordAll(Collection<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsertSql, new ArrayList<>(deltas), deltas.size(), (ps, d) -> {
+            ps.setObject(1, d.assetId());
+            ps.setLong(2, d.jobs());
+            ps.setLong(3, d.minutes());
+            ps.setString(4, d.lastTechnician());
+            if (d.lastWorkedAt() == null) {
+                ps.setNull(5, Types.TIMESTAMP_WITH_TIMEZONE);
+            } else {
+                ps.setTimestamp(5, Timestamp.from(d.lastWorkedAt()));
+            }
+        });
+    }
+
+    /**
+     * Runs {@link #backfill} unless it has run on this database before or
+     * another instance is running it now, and records that it has run.
+     *
+     * @return the number of summaries created
+     */
+    public int backfillOnce() {
+        Integer backfilled = tx.execute(status -> {
+            if (postgres && !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, BACKFILL_LOCK))) {
+                log.debug("Work summary backfill is running on another instance");
+                return 0;
+            }
+            Integer done = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM data_backfill WHERE name = ?", Integer.class, BACKFILL_NAME);
+            if (done != null && done > 0) {
+                return 0;
+            }
+            if (postgres) {
+                // waits for work log writers in flight and holds off new ones
+                // until commit, so the backfill sees every log and summary
+                jdbcTemplate.execute("LOCK TABLE work_log IN SHARE MODE");
+            }
+            int created = backfill();
+            jdbcTemplate.update("INSERT INTO data_backfill (name, completed_at) VALUES (?, ?)",
+                    BACKFILL_NAME, Timestamp.from(Instant.now()));
+            return created;
+        });
+        return backfilled == null ? 0 : backfilled;
+    }
+
+    /**
+     * Creates summaries for assets that have work logs but no summary row.
+     * Not safe against concurrent work log writers; see {@link #backfillOnce}.
+     *
+     * @return the number of summaries created
+     */
+    public int backfill() {
+        return jdbcTemplate.update(BACKFILL);
+    }
+
+    /**
+     * Change to one asset's summary.
+     *
+     * @param jobs           number of logs added
+     * @param minutes        sum of their durations
+     * @param lastTechnician technician of the newest of them
+     * @param lastWorkedAt   creation time of the newest of them
+     */
+    public record Delta(UUID assetId, long jobs, long minutes, String lastTechnician, Instant lastWorkedAt) {
+
+        public static Delta of(UUID assetId, Integer durationMinutes, String technician, Instant createdAt) {
+            return new Delta(assetId, 1, durationMinutes == null ? 0 : durationMinutes, technician, createdAt);
+        }
+
+        /** Combines two deltas for the same asset. */
+        public Delta plus(Delta other) {
+            boolean newer = lastWorkedAt == null
+                    || (other.lastWorkedAt != null && !other.lastWorkedAt.isBefore(lastWorkedAt));
+            return new Delta(assetId, jobs + other.jobs, minutes + other.minutes,
+                    newer ? other.lastTechnician : lastTechnician,
+                    newer ? other.lastWorkedAt : lastWorkedAt);
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package us.dtaylor.mcpserver.service;
 
-import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import us.dtaylor.mcpserver.domain.Asset;
 import us.dtaylor.mcpserver.domain.WorkLog;
+import us.dtaylor.mcpserver.dto.PageCursor;
+import us.dtaylor.mcpserver.dto.WorkLogView;
 import us.dtaylor.mcpserver.repository.WorkLogRepository;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,16 +25,139 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
 public class WorkLogService {
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final Duration DEFAULT_SYNC_SETTLE_TIME = Duration.ofSeconds(30);
+
+    /** Sorts before every id, so a bare instant bound keeps the logs created at it. */
+    private static final UUID FIRST_ID = new UUID(0, 0);
+    /** Sorts after every id, so a bare instant bound drops the logs created at it. */
+    private static final UUID LAST_ID = new UUID(-1, -1);
+
     private final WorkLogRepository repo;
     private final AssetService assetService;
-    public WorkLogService(WorkLogRepository repo, AssetService assetService) { this.repo = repo;
+    private final AssetWorkSummaryService summaries;
+    private final Clock clock;
+    private final Duration syncSettleTime;
+
+    public WorkLogService(WorkLogRepository repo, AssetService assetService, AssetWorkSummaryService summaries) {
+        this(repo, assetService, summaries, Clock.systemUTC(), DEFAULT_SYNC_SETTLE_TIME);
+    }
+
+    @Autowired
+    public WorkLogService(WorkLogRepository repo, AssetService assetService, AssetWorkSummaryService summaries,
+                          @Value("${app.worklogs.sync.settle-time:30s}") Duration syncSettleTime) {
+        this(repo, assetService, summaries, Clock.systemUTC(), syncSettleTime);
+    }
+
+    WorkLogService(WorkLogRepository repo, AssetService assetService, AssetWorkSummaryService summaries,
+                   Clock clock, Duration syncSettleTime) {
+        if (syncSettleTime.isNegative()) {
+            throw new IllegalArgumentException("sync settle-time must not be negative: " + syncSettleTime);
+        }
+        this.repo = repo;
         this.assetService = assetService;
+        this.summaries = summaries;
+        this.clock = clock;
+        this.syncSettleTime = syncSettleTime;
+    }
+
+    @Transactional
+    public WorkLog create(WorkLog wl) {
+        // flush first so the JDBC upsert sees the pending inserts of this transaction
+        WorkLog saved = repo.saveAndFlush(wl);
+        summaries.record(saved);
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<WorkLogView> listForAsset(UUID assetId) {
+        return repo.findViewsByAssetId(assetId);
     }
 
-    public WorkLog create(WorkLog wl) { return repo.save(wl); }
+    /**
+     * One keyset page of an asset's history, newest first, as read-only views.
+     *
+     * @param assetId the asset
+     * @param since   only logs created strictly after this instant, or null
+     *                for the whole history.  Logs sharing a timestamp, or
+     *                committed after a sync with an earlier {@code createdAt},
+     *                can be missed; clients syncing incrementally should
+     *                use {@link #sync} instead
+     * @param after   cursor of the last row of the previous page, or null
+     *                for the first page
+     * @param size    page size, capped at {@link #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException if the cursor was not produced by
+     *                                  {@link #cursorOf(WorkLogView)}
+     */
+    @Transactional(readOnly = true)
+    public Slice<WorkLogView> history(UUID assetId, Instant since, PageCursor after, int size) {
+        return page(assetId, since == null ? Instant.EPOCH : since, LAST_ID, after, size);
+    }
+
+    /**
+     * One keyset page of the logs of an asset after the sync cursor
+     * {@code since}, newest first, in the same order and with the same
+     * {@code after} paging as {@link #history}.
+     *
+     * @param since a cursor returned by {@link #syncCursor}, or null for the
+     *              whole history
+     * @throws IllegalArgumentException if a cursor was not produced by this
+     *                                  service
+     */
+    @Transactional(readOnly = true)
+    public Slice<WorkLogView> sync(UUID assetId, PageCursor since, PageCursor after, int size) {
+        if (since == null) {
+            return page(assetId, Instant.EPOCH, FIRST_ID, after, size);
+        }
+        return page(assetId, createdAtOf(since), since.id(), after, size);
+    }
+
+    /**
+     * The cursor a client passes to {@link #sync} next, having fetched every
+     * log after {@code since}.  It only moves past logs created more than
+     * {@code app.worklogs.sync.settle-time} ago: {@code createdAt} is stamped
+     * when a log is submitted, and the write-behind ingestor may commit it a
+     * little later, after newer logs are visible.  Logs newer than that are
+     * therefore sent again by the next sync; clients upsert them by id.
+     *
+     * @param since the cursor the client synced from, or null
+     */
+    @Transactional(readOnly = true)
+    public PageCursor syncCursor(UUID assetId, PageCursor since) {
+        Instant sinceCreatedAt = since == null ? Instant.EPOCH : createdAtOf(since);
+        UUID sinceId = since == null ? FIRST_ID : since.id();
+        List<WorkLogView> newest = repo.newestSettled(assetId, sinceCreatedAt, sinceId,
+                clock.instant().minus(syncSettleTime), PageRequest.of(0, 1));
+        if (newest.isEmpty()) {
+            return since == null ? new PageCursor(Instant.EPOCH.toString(), FIRST_ID) : since;
+        }
+        return cursorOf(newest.get(0));
+    }
+
+    /** The sync cursor equivalent to {@code history(assetId, since, ...)}. */
+    public static PageCursor syncCursorOf(Instant since) {
+        return new PageCursor(since.toString(), LAST_ID);
+    }
+
+    /** Cursor pointing just past {@code wl} in {@link #history} order. */
+    public static PageCursor cursorOf(WorkLogView wl) {
+        return new PageCursor(wl.createdAt().toString(), wl.id());
+    }
+
+    private Slice<WorkLogView> page(UUID assetId, Instant sinceCreatedAt, UUID sinceId, PageCursor after, int size) {
+        Pageable limit = PageRequest.of(0, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        if (after == null) {
+            return repo.historyFirst(assetId, sinceCreatedAt, sinceId, limit);
+        }
+        return repo.historyAfter(assetId, sinceCreatedAt, sinceId, createdAtOf(after), after.id(), limit);
+    }
 
-    public List<WorkLog> listForAsset(UUID assetId) {
-        return repo.findByAsset_IdOrderByCreatedAtDesc(assetId);
+    private static Instant createdAtOf(PageCursor cursor) {
+        try {
+            return Instant.parse(cursor.key());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor.encode());
+        }
     }
 
     @Transactional
@@ -36,7 +170,7 @@ public class WorkLogService {
         wl.setDurationMinutes(req.durationMinutes());
         wl.setNotes(req.notes());
 
-        return repo.save(wl);
+        return create(wl);
     }
 
     // DTO for POST body (matches your UI omission of id/createdAt)
@@ -0,0 +1,57 @@
+package us.dtaylor.mcpserver.service.analytics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Jobs and minutes per (technician, asset type) pair for some time range.
+ * Immutable, so closed days can be cached and shared; rollups of adjacent
+ * ranges combine with {@link #plus}.
+ */
+final class Rollup {
+
+    static final Rollup EMPTY = new Rollup(Map.of());
+
+    private final Map<Key, Totals> cells;
+
+    Rollup(Map<Key, Totals> cells) {
+        this.cells = Collections.unmodifiableMap(cells);
+    }
+
+    Map<Key, Totals> cells() {
+        return cells;
+    }
+
+    Totals total() {
+        Totals sum = Totals.ZERO;
+        for (Totals t : cells.values()) {
+            sum = sum.plus(t);
+        }
+        return sum;
+    }
+
+    Rollup plus(Rollup other) {
+        if (other.cells.isEmpty()) {
+            return this;
+        }
+        if (cells.isEmpty()) {
+            return other;
+        }
+        Map<Key, Totals> merged = new HashMap<>(cells);
+        other.cells.forEach((key, totals) -> merged.merge(key, totals, Totals::plus));
+        return new Rollup(merged);
+    }
+
+    record Key(String technician, String assetType) {
+    }
+
+    record Totals(long jobs, long minutes) {
+
+        static final Totals ZERO = new Totals(0, 0);
+
+        Totals plus(Totals other) {
+            return new Totals(jobs + other.jobs, minutes + other.minutes);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package us.dtaylor.mcpserver.service.analytics;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import us.dtaylor.mcpserver.dto.UtilizationReport;
+import us.dtaylor.mcpserver.dto.UtilizationReport.AssetTypeUsage;
+import us.dtaylor.mcpserver.dto.UtilizationReport.TechnicianUsage;
+import us.dtaylor.mcpserver.dto.UtilizationReport.WeeklyUsage;
+import us.dtaylor.mcpserver.service.analytics.Rollup.Key;
+import us.dtaylor.mcpserver.service.analytics.Rollup.Totals;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Technician and asset type utilization rolled up from the work log.
+ *
+ * <p>The unit of work is one calendar day in {@code app.analytics.zone}.
+ * A day that ended more than {@code app.analytics.settle-time} ago can no
+ * longer receive work logs (their {@code createdAt} is stamped by the
+ * server), so its rollup is computed once, kept in memory and never
+ * recomputed.  Only the days still open (today, and yesterday just after
+ * midnight) are read on every request, each split into
+ * {@code app.analytics.live-partitions} time slices that are aggregated
+ * concurrently and merged.  A dashboard refresh therefore scans at most a
+ * day of logs, through the {@code created_at} index, however long the
+ * history is.</p>
+ *
+ * <p>Every query, closed days and open-day slices alike, runs on one pool
+ * of {@code app.analytics.live-partitions} threads (virtual ones when
+ * {@code spring.threads.virtual.enabled}), so a report holds at most that
+ * many connections of the pool it shares with request traffic, however
+ * many days it covers.</p>
+ *
+ * <p>Closed days are cached per instance and in memory only: after a
+ * restart the first report over a long range rolls every day up again,
+ * {@code live-partitions} days at a time, and takes seconds rather than
+ * milliseconds.  Later reports are served from the cache.</p>
+ *
+ * <p>Cached days keep the asset type an asset had when the day was rolled
+ * up; re-typing an asset does not rewrite history.</p>
+ */
+@Service
+public class WorkLogAnalyticsService {
+
+    /** Longest range a single report may cover. */
+    public static final int MAX_DAYS = 366;
+
+    private static final String ROLLUP_SQL = """
+            SELECT w.technician, a.asset_type, COUNT(*), COALESCE(SUM(w.duration_minutes), 0)
+            FROM work_log w JOIN asset a ON a.id = w.asset_id
+            WHERE w.created_at >= ? AND w.created_at < ?
+            GROUP BY w.technician, a.asset_type""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final ZoneId zone;
+    private final Duration settleTime;
+    private final int livePartitions;
+    private final ExecutorService pool;
+    private final AsyncCache<LocalDate, Rollup> closedDays;
+
+    @Autowired
+    public WorkLogAnalyticsService(DataSource dataSource,
+                                   @Value("${app.analytics.zone:UTC}") String zone,
+                                   @Value("${app.analytics.settle-time:5m}") Duration settleTime,
+                                   @Value("${app.analytics.live-partitions:4}") int livePartitions,
+                                   @Value("${app.analytics.max-cached-days:3660}") long maxCachedDays,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(dataSource, Clock.system(ZoneId.of(zone)), settleTime, livePartitions, maxCachedDays, virtualThreads);
+    }
+
+    WorkLogAnalyticsService(DataSource dataSource, Clock clock, Duration settleTime,
+                            int livePartitions, long maxCachedDays, boolean virtualThreads) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.clock = clock;
+        this.zone = clock.getZone();
+        this.settleTime = settleTime;
+        this.livePartitions = Math.max(livePartitions, 1);
+        // a fixed number of workers whatever the thread type: the connection
+        // pool is shared with request traffic, so it must not be the bound
+        this.pool = Executors.newFixedThreadPool(this.livePartitions, virtualThreads
+                ? Thread.ofVirtual().name("analytics-", 0).factory()
+                : Thread.ofPlatform().name("analytics-", 0).daemon().factory());
+        this.closedDays = Caffeine.newBuilder()
+                .maximumSize(maxCachedDays)
+                .executor(pool)
+                .buildAsync();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Rolls up the work logs created on the days {@code from} (inclusive)
+     * to {@code to} (exclusive).
+     *
+     * @throws IllegalArgumentException if the range is empty or longer than
+     *                                  {@link #MAX_DAYS}
+     */
+    public UtilizationReport utilization(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_DAYS) {
+            throw new IllegalArgumentException("At most " + MAX_DAYS + " days may be requested");
+        }
+        Instant now = clock.instant();
+        Map<LocalDate, CompletableFuture<Rollup>> days = new TreeMap<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            days.put(day, rollupOf(day, now));
+        }
+        CompletableFuture.allOf(days.values().toArray(CompletableFuture[]::new)).join();
+
+        Rollup all = Rollup.EMPTY;
+        Map<LocalDate, Totals> weeks = new TreeMap<>();
+        for (Map.Entry<LocalDate, CompletableFuture<Rollup>> e : days.entrySet()) {
+            Rollup day = e.getValue().join();
+            all = all.plus(day);
+            weeks.merge(e.getKey().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), day.total(), Totals::plus);
+        }
+
+        Totals total = all.total();
+        return new UtilizationReport(from, to, total.jobs(), total.minutes(),
+                byLargest(all, Key::technician, (name, t) -> new TechnicianUsage(name, t.jobs(), t.minutes())),
+                byLargest(all, Key::assetType, (name, t) -> new AssetTypeUsage(name, t.jobs(), t.minutes())),
+                weeks.entrySet().stream()
+                        .map(w -> new WeeklyUsage(w.getKey(), w.getValue().jobs(), w.getValue().minutes()))
+                        .toList());
+    }
+
+    /** The current date in the reporting time zone. */
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /** Number of closed days currently held in memory. */
+    public long cachedDays() {
+        return closedDays.synchronous().estimatedSize();
+    }
+
+    private CompletableFuture<Rollup> rollupOf(LocalDate day, Instant now) {
+        Instant start = day.atStartOfDay(zone).toInstant();
+        Instant end = day.plusDays(1).atStartOfDay(zone).toInstant();
+        if (!start.isBefore(now)) {
+            return CompletableFuture.completedFuture(Rollup.EMPTY);
+        }
+        if (!end.plus(settleTime).isAfter(now)) {
+            return closedDays.get(day, (d, executor) -> CompletableFuture.supplyAsync(() -> query(start, end), executor));
+        }
+        // still open: split the elapsed part into slices aggregated concurrently;
+        // the last slice runs to the end of the day so that nothing is missed
+        long slice = Duration.between(start, now.isBefore(end) ? now : end).toNanos() / livePartitions;
+        List<CompletableFuture<Rollup>> parts = new ArrayList<>(livePartitions);
+        for (int i = 0; i < livePartitions; i++) {
+            Instant sliceStart = start.plusNanos(slice * i);
+            Instant sliceEnd = i == livePartitions - 1 ? end : start.plusNanos(slice * (i + 1));
+            parts.add(CompletableFuture.supplyAsync(() -> query(sliceStart, sliceEnd), pool));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenApply(done -> parts.stream().map(CompletableFuture::join).reduce(Rollup.EMPTY, Rollup::plus));
+    }
+
+    private Rollup query(Instant from, Instant to) {
+        Map<Key, Totals> cells = new HashMap<>();
+        jdbcTemplate.query(ROLLUP_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.from(from));
+            ps.setTimestamp(2, Timestamp.from(to));
+        }, rs -> {
+            cells.merge(new Key(rs.getString(1), rs.getString(2)),
+                    new Totals(rs.getLong(3), rs.getLong(4)), Totals::plus);
+        });
+        return cells.isEmpty() ? Rollup.EMPTY : new Rollup(cells);
+    }
+
+    private static <T> List<T> byLargest(Rollup rollup, Function<Key, String> dimension,
+                                         BiFunction<String, Totals, T> row) {
+        Map<String, Totals> grouped = new HashMap<>();
+        rollup.cells().forEach((key, totals) -> grouped.merge(dimension.apply(key), totals, Totals::plus));
+        return grouped.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Totals> e) -> e.getValue().minutes()).reversed()
+                        .thenComparing(e -> e.getValue().jobs(), Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(e -> row.apply(e.getKey(), e.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,319 @@
+package us.dtaylor.mcpserver.service.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetChangedEvent;
+import us.dtaylor.mcpserver.domain.AssetsImportedEvent;
+import us.dtaylor.mcpserver.dto.AssetImportReport;
+import us.dtaylor.mcpserver.dto.AssetImportReport.Row;
+import us.dtaylor.mcpserver.dto.CreateAssetRequest;
+import us.dtaylor.mcpserver.service.AssetCreationService;
+import us.dtaylor.mcpserver.service.export.ExportFormat;
+import us.dtaylor.mcpserver.util.UuidV7;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates assets in bulk from an NDJSON or CSV upload.
+ *
+ * <p>Rows are processed in chunks of {@code app.import.batch-size}.  For
+ * each chunk the QR codes are checked against the input and the table,
+ * the QR images are rendered on a pool of {@code app.import.qr-threads}
+ * workers, and the rows are written with one JDBC batch insert in a
+ * transaction of their own.  Because the image URL is known before the
+ * insert, each asset is written once instead of the insert-then-update
+ * done by {@link AssetCreationService#createWithQr}.  If a batch fails
+ * (for example a QR code taken concurrently) its rows are retried one by
+ * one so that only the offending rows are reported as failed.</p>
+ *
+ * <p>The rows bypass JPA, so no {@link AssetChangedEvent}s are published
+ * for them; one {@link AssetsImportedEvent} is published per committed
+ * chunk instead, so caches and the other replicas are told about the
+ * chunk at once rather than row by row.</p>
+ */
+@Service
+public class AssetImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetImportService.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO asset (id, qr_code, name, model, serial_number, brand, asset_type,
+                               manual_path, installed_at, qr_image_path, version, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final int MAX_QR_CODE_LENGTH = 255;
+
+    private final AssetCreationService creationService;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate tx;
+    private final ExecutorService qrPool;
+    private final int batchSize;
+
+    public AssetImportService(AssetCreationService creationService,
+                              ApplicationEventPublisher events,
+                              ObjectMapper objectMapper,
+                              DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.import.batch-size:500}") int batchSize,
+                              @Value("${app.import.qr-threads:0}") int qrThreads) {
+        this.creationService = creationService;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+        int threads = qrThreads > 0 ? qrThreads : Runtime.getRuntime().availableProcessors();
+        this.qrPool = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("qr-render-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        qrPool.shutdownNow();
+    }
+
+    /**
+     * Imports every row of the upload.
+     *
+     * @param format the upload format
+     * @param in     the upload body
+     * @return one result per input row, in input order
+     * @throws IllegalArgumentException if a CSV upload has no usable header
+     */
+    public AssetImportReport importAssets(ExportFormat format, InputStream in) throws IOException {
+        long started = System.nanoTime();
+        AssetRowReader reader = new AssetRowReader(format, in, objectMapper);
+        List<Row> results = new ArrayList<>();
+        List<Pending> chunk = new ArrayList<>(batchSize);
+        AssetRowReader.ParsedRow parsed;
+        while ((parsed = reader.next()) != null) {
+            String error = parsed.error() != null ? parsed.error() : validate(parsed.request());
+            if (error != null) {
+                String qrCode = parsed.request() == null ? null : parsed.request().qrCode();
+                results.add(Row.failed(parsed.number(), qrCode, error));
+                continue;
+            }
+            chunk.add(new Pending(parsed.number(), toAsset(parsed.request())));
+            if (chunk.size() == batchSize) {
+                processChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, results);
+        }
+        results.sort(Comparator.comparingInt(Row::row));
+        AssetImportReport report = AssetImportReport.of(results);
+        log.info("Imported {} of {} assets ({} failed) in {} ms", report.created(), report.total(),
+                report.failed(), (System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    private void processChunk(List<Pending> chunk, List<Row> results) {
+        List<Pending> accepted = assignQrCodes(chunk, results);
+
+        List<CompletableFuture<String>> images = accepted.stream()
+                .map(p -> CompletableFuture.supplyAsync(() -> render(p.asset.getQrCode()), qrPool))
+                .toList();
+        List<Pending> rendered = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Pending p = accepted.get(i);
+            try {
+                p.asset.setQrImagePath(images.get(i).join());
+                rendered.add(p);
+            } catch (CompletionException ex) {
+                results.add(Row.failed(p.row, p.asset.getQrCode(), "QR rendering failed: " + rootMessage(ex)));
+            }
+        }
+
+        List<Pending> inserted = insert(rendered, results);
+        for (Pending p : inserted) {
+            results.add(Row.created(p.row, p.asset.getId().toString(), p.asset.getQrCode()));
+        }
+        if (!inserted.isEmpty()) {
+            events.publishEvent(new AssetsImportedEvent(inserted.stream().map(Pending::asset).toList()));
+        }
+    }
+
+    /**
+     * Rejects rows whose supplied QR code is already taken, by the table or
+     * by an earlier row of the chunk, and generates codes for the others.
+     * Earlier chunks have committed, so the table check covers them.
+     */
+    private List<Pending> assignQrCodes(List<Pending> chunk, List<Row> results) {
+        Set<String> supplied = new HashSet<>();
+        for (Pending p : chunk) {
+            if (p.asset.getQrCode() != null) {
+                supplied.add(p.asset.getQrCode());
+            }
+        }
+        Set<String> taken = existingQrCodes(supplied);
+        Set<String> used = new HashSet<>();
+        List<Pending> accepted = new ArrayList<>(chunk.size());
+        List<Pending> needCode = new ArrayList<>();
+        for (Pending p : chunk) {
+            String qrCode = p.asset.getQrCode();
+            if (qrCode == null) {
+                needCode.add(p);
+            } else if (taken.contains(qrCode)) {
+                results.add(Row.failed(p.row, qrCode, "QR code already exists: " + qrCode));
+            } else if (!used.add(qrCode)) {
+                results.add(Row.failed(p.row, qrCode, "Duplicate QR code in upload: " + qrCode));
+            } else {
+                accepted.add(p);
+            }
+        }
+        // generated codes are short; retry the rare collisions
+        while (!needCode.isEmpty()) {
+            Set<String> candidates = new HashSet<>();
+            for (Pending p : needCode) {
+                String code;
+                do {
+                    code = creationService.generateShortCode();
+                } while (used.contains(code) || !candidates.add(code));
+                p.asset.setQrCode(code);
+            }
+            Set<String> collisions = existingQrCodes(candidates);
+            List<Pending> retry = new ArrayList<>();
+            for (Pending p : needCode) {
+                if (collisions.contains(p.asset.getQrCode())) {
+                    retry.add(p);
+                } else {
+                    used.add(p.asset.getQrCode());
+                    accepted.add(p);
+                }
+            }
+            needCode = retry;
+        }
+        return accepted;
+    }
+
+    private Set<String> existingQrCodes(Set<String> codes) {
+        if (codes.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbc.queryForList(
+                "SELECT qr_code FROM asset WHERE qr_code IN (:codes)", Map.of("codes", codes), String.class));
+    }
+
+    /**
+     * Writes the chunk in one batch.  On failure the batch is rolled back
+     * and each row is retried in its own transaction.
+     */
+    private List<Pending> insert(List<Pending> rows, List<Row> results) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        try {
+            tx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(),
+                    (ps, p) -> bind(ps, p.asset)));
+            return rows;
+        } catch (DataAccessException batchFailure) {
+            log.debug("Batch insert failed, retrying rows individually: {}", rootMessage(batchFailure));
+        }
+        List<Pending> inserted = new ArrayList<>(rows.size());
+        for (Pending p : rows) {
+            try {
+                tx.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, p.asset)));
+                inserted.add(p);
+            } catch (DataAccessException ex) {
+                results.add(Row.failed(p.row, p.asset.getQrCode(), "Insert failed: " + rootMessage(ex)));
+            }
+        }
+        return inserted;
+    }
+
+    private static void bind(PreparedStatement ps, Asset a) throws SQLException {
+        ps.setObject(1, a.getId());
+        ps.setString(2, a.getQrCode());
+        ps.setString(3, a.getName());
+        ps.setString(4, a.getModel());
+        ps.setString(5, a.getSerialNumber());
+        ps.setString(6, a.getBrand());
+        ps.setString(7, a.getAssetType());
+        ps.setString(8, a.getManualPath());
+        ps.setTimestamp(9, Timestamp.from(a.getInstalledAt()));
+        ps.setString(10, a.getQrImagePath());
+        ps.setLong(11, a.getVersion());
+        ps.setTimestamp(12, Timestamp.from(a.getUpdatedAt()));
+    }
+
+    private String render(String qrCode) {
+        try {
+            return creationService.renderQrImage(qrCode);
+        } catch (Exception ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /** Same rules as the {@code CreateAssetRequest} bean validation. */
+    private static String validate(CreateAssetRequest req) {
+        if (req.name() == null || req.name().isBlank()) {
+            return "name must not be blank";
+        }
+        if (req.manualPath() == null || req.manualPath().isBlank()) {
+            return "manualPath must not be blank";
+        }
+        if (req.qrCode() != null && req.qrCode().length() > MAX_QR_CODE_LENGTH) {
+            return "qrCode is longer than " + MAX_QR_CODE_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static Asset toAsset(CreateAssetRequest req) {
+        Asset a = new Asset();
+        a.setId(UuidV7.next());
+        a.setQrCode(req.qrCode() == null || req.qrCode().isBlank() ? null : req.qrCode().trim());
+        a.setName(req.name());
+        a.setModel(req.model());
+        a.setSerialNumber(req.serialNumber());
+        a.setBrand(req.brand());
+        a.setAssetType(req.assetType());
+        a.setManualPath(req.manualPath());
+        a.setInstalledAt(req.installedAt() == null ? Instant.now() : req.installedAt());
+        // what Hibernate would assign on persist
+        a.setVersion(0L);
+        a.setUpdatedAt(Instant.now());
+        return a;
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable root = NestedExceptionUtils.getMostSpecificCause(ex);
+        return root.getMessage() == null ? root.getClass().getSimpleName() : root.getMessage();
+    }
+
+    private record Pending(int row, Asset asset) {
+    }
+}
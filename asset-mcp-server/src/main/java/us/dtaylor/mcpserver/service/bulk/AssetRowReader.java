@@ -0,0 +1,129 @@
+package us.dtaylor.mcpserver.service.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import us.dtaylor.mcpserver.dto.CreateAssetRequest;
+import us.dtaylor.mcpserver.service.export.ExportFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads {@link CreateAssetRequest}s one at a time from an NDJSON or CSV
+ * upload.  Rows that cannot be parsed are returned with an error rather
+ * than aborting the import.
+ *
+ * <p>CSV headers are matched case-insensitively and ignoring underscores,
+ * so both {@code qrCode} and the {@code qr_code} column written by the
+ * export endpoint are understood.  Unknown columns are ignored.</p>
+ */
+final class AssetRowReader {
+
+    /** A parsed input row; exactly one of request and error is set. */
+    record ParsedRow(int number, CreateAssetRequest request, String error) {
+    }
+
+    private static final List<String> CSV_FIELDS = List.of(
+            "qrcode", "name", "model", "serialnumber", "brand", "assettype", "manualpath", "installedat");
+
+    private final ExportFormat format;
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private CsvRecordReader csv;
+    private Map<String, Integer> csvColumns;
+    private int rows;
+
+    AssetRowReader(ExportFormat format, InputStream in, ObjectMapper objectMapper) {
+        this.format = format;
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the next row, or null at end of input
+     * @throws IllegalArgumentException if a CSV upload has no usable header
+     */
+    ParsedRow next() throws IOException {
+        return format == ExportFormat.CSV ? nextCsv() : nextJson();
+    }
+
+    private ParsedRow nextJson() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        int number = ++rows;
+        try {
+            return new ParsedRow(number, objectMapper.readValue(line, CreateAssetRequest.class), null);
+        } catch (JsonProcessingException ex) {
+            return new ParsedRow(number, null, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    private ParsedRow nextCsv() throws IOException {
+        if (csv == null) {
+            csv = new CsvRecordReader(reader);
+            csvColumns = header(csv.next());
+        }
+        List<String> record;
+        do {
+            record = csv.next();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+        int number = ++rows;
+        try {
+            String installedAt = field(record, "installedat");
+            return new ParsedRow(number, new CreateAssetRequest(
+                    field(record, "qrcode"),
+                    field(record, "name"),
+                    field(record, "model"),
+                    field(record, "serialnumber"),
+                    field(record, "brand"),
+                    field(record, "assettype"),
+                    field(record, "manualpath"),
+                    installedAt == null ? null : Instant.parse(installedAt)), null);
+        } catch (DateTimeParseException ex) {
+            return new ParsedRow(number, null, "Invalid installed_at: " + ex.getParsedString());
+        }
+    }
+
+    private static Map<String, Integer> header(List<String> names) {
+        if (names == null) {
+            throw new IllegalArgumentException("CSV import is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String key = names.get(i).replace("_", "").trim().toLowerCase(Locale.ROOT);
+            if (CSV_FIELDS.contains(key)) {
+                columns.putIfAbsent(key, i);
+            }
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must contain a 'name' column");
+        }
+        return columns;
+    }
+
+    private String field(List<String> record, String name) {
+        Integer index = csvColumns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index);
+        return value.isEmpty() ? null : value;
+    }
+}
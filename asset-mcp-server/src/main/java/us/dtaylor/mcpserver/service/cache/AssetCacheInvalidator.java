@@ -0,0 +1,244 @@
+package us.dtaylor.mcpserver.service.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetChangedEvent;
+import us.dtaylor.mcpserver.domain.AssetsImportedEvent;
+import us.dtaylor.mcpserver.util.DatabasePlatform;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps {@link AssetLookupCache} consistent across replicas.
+ *
+ * <p>After an asset change commits, the local entry is evicted and, on
+ * PostgreSQL, a {@code NOTIFY} carrying the asset id and QR code is sent
+ * on {@code app.cache.assets.channel}.  Every replica keeps one pooled
+ * connection checked out to {@code LISTEN} on that channel and evicts
+ * the named asset.  An imported chunk of assets is announced at once: its
+ * entries are packed, one per line, into as few notifications as the
+ * payload limit allows, all sent on one connection.  If the listening
+ * connection breaks, the whole cache is dropped once it reconnects, since
+ * notifications sent in between are lost.  On other databases (H2 in
+ * tests and local runs) only local eviction happens, which is correct for
+ * a single instance.</p>
+ */
+@Component
+public class AssetCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetCacheInvalidator.class);
+    private static final int UUID_LENGTH = 36;
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+    /** PostgreSQL rejects {@code NOTIFY} payloads of 8000 bytes or more. */
+    private static final int MAX_PAYLOAD_BYTES = 7_999;
+
+    private final AssetLookupCache cache;
+    private final DataSource dataSource;
+    private final String channel;
+    private final boolean enabled;
+    private final boolean postgres;
+    private volatile boolean running;
+    private Thread listener;
+
+    public AssetCacheInvalidator(AssetLookupCache cache,
+                                 DataSource dataSource,
+                                 @Value("${app.cache.assets.enabled:true}") boolean enabled,
+                                 @Value("${app.cache.assets.channel:asset_changed}") String channel) {
+        this.cache = cache;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.postgres = DatabasePlatform.isPostgres(dataSource);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        Asset asset = event.asset();
+        cache.evict(asset.getId(), asset.getQrCode());
+        if (enabled && postgres) {
+            notifyReplicas(List.of(asset));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetsImported(AssetsImportedEvent event) {
+        for (Asset asset : event.assets()) {
+            cache.evict(asset.getId(), asset.getQrCode());
+        }
+        if (enabled && postgres && !event.assets().isEmpty()) {
+            notifyReplicas(event.assets());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || !postgres) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "asset-cache-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Sends the notifications on a connection of its own.  This runs after
+     * commit, when the transaction's connection is still bound to the
+     * thread but can no longer commit anything.
+     */
+    private void notifyReplicas(List<Asset> assets) {
+        try (Connection con = dataSource.getConnection();
+             PreparedStatement ps = con.prepareStatement("SELECT pg_notify(?, ?)")) {
+            con.setAutoCommit(true);
+            for (String payload : payloads(assets)) {
+                ps.setString(1, channel);
+                ps.setString(2, payload);
+                ps.execute();
+            }
+        } catch (SQLException ex) {
+            // other replicas fall back to expiry for these assets
+            log.warn("Could not notify replicas of change to {}: {}",
+                    assets.size() == 1 ? "asset " + assets.get(0).getId() : assets.size() + " assets",
+                    ex.getMessage());
+        }
+    }
+
+    /**
+     * The notification payloads for {@code assets}: one line per asset, the
+     * id followed by the QR code, packed into payloads under the size
+     * limit.  A QR code containing a line break is left out; its entry on
+     * the other replicas then expires instead.
+     */
+    private static List<String> payloads(List<Asset> assets) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder();
+        int bytes = 0;
+        for (Asset asset : assets) {
+            String qrCode = asset.getQrCode();
+            String entry = qrCode == null || qrCode.indexOf('\n') >= 0
+                    ? asset.getId().toString() : asset.getId() + qrCode;
+            int entryBytes = entry.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes > 0 && bytes + 1 + entryBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+                bytes = 0;
+            }
+            if (bytes > 0) {
+                payload.append('\n');
+                bytes++;
+            }
+            payload.append(entry);
+            bytes += entryBytes;
+        }
+        if (bytes > 0) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection con = dataSource.getConnection()) {
+                try {
+                    con.setAutoCommit(true);
+                    try (Statement st = con.createStatement()) {
+                        st.execute("LISTEN " + channel);
+                    }
+                    if (reconnecting) {
+                        cache.evictAll();
+                        log.info("Asset cache listener reconnected; cache cleared");
+                    }
+                    PGConnection pg = con.unwrap(PGConnection.class);
+                    while (running) {
+                        PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                        if (notifications == null) {
+                            continue;
+                        }
+                        for (PGNotification n : notifications) {
+                            apply(n.getParameter());
+                        }
+                    }
+                } finally {
+                    unlisten(con);
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Asset cache listener lost its connection: {}", ex.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the connection listening before it goes back to the pool, where
+     * notifications would otherwise keep queueing up for its next borrower.
+     * A connection that cannot run {@code UNLISTEN} (usually because it is
+     * broken) is evicted from the pool, or aborted if the pool is not
+     * Hikari, so it is never handed out again.
+     */
+    private void unlisten(Connection con) {
+        try (Statement st = con.createStatement()) {
+            st.execute("UNLISTEN *");
+            return;
+        } catch (SQLException ex) {
+            log.debug("Discarding asset cache listener connection: {}", ex.getMessage());
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                dataSource.unwrap(HikariDataSource.class).evictConnection(con);
+            } else {
+                con.abort(Runnable::run);
+            }
+        } catch (SQLException ex) {
+            log.debug("Could not discard asset cache listener connection: {}", ex.getMessage());
+        }
+    }
+
+    private void apply(String payload) {
+        for (String entry : payload.split("\n")) {
+            try {
+                UUID id = UUID.fromString(entry.substring(0, UUID_LENGTH));
+                String qrCode = entry.length() > UUID_LENGTH ? entry.substring(UUID_LENGTH) : null;
+                cache.evict(id, qrCode);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+                log.warn("Ignoring malformed asset change notification: {}", entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package us.dtaylor.mcpserver.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import us.dtaylor.mcpserver.domain.Asset;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded near-cache in front of the asset lookups used on every QR scan
+ * and by the {@code asset.search} / {@code worklog.list} MCP tools.
+ *
+ * <p>Assets are held by id; a second map resolves QR codes to ids.  A QR
+ * hit is only trusted when the cached asset still carries that code, so a
+ * re-labelled asset never answers for its old label.  Entries are evicted
+ * by {@link AssetCacheInvalidator} whenever an asset changes on this or
+ * any other replica, and expire after a fixed time as a safety net for
+ * missed notifications.  Callers always receive copies.</p>
+ *
+ * <p>Unknown ids and codes are remembered for a short time
+ * ({@code app.cache.assets.negative-ttl}) so that a damaged label scanned
+ * over and over does not query the database each time; creating an asset
+ * evicts the negative entry for its id and code.  Concurrent misses for
+ * the same key share a single database query.</p>
+ *
+ * <p>Hit/miss/eviction counts are published as the {@code cache.*}
+ * meters tagged {@code cache=asset.byId}, {@code cache=asset.byQr} and
+ * {@code cache=asset.unknown}.  Database queries avoided by the negative
+ * cache and by coalescing are counted by {@code asset.lookup.saved},
+ * tagged {@code reason=negative} and {@code reason=coalesced}.</p>
+ */
+@Component
+public class AssetLookupCache {
+
+    private final Cache<UUID, Asset> byId;
+    private final Cache<String, UUID> idByQr;
+    private final Cache<String, Boolean> unknown;
+    private final ConcurrentMap<String, CompletableFuture<Optional<Asset>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Bumped by every eviction.  A loader only stores its result when no
+     * eviction happened while it was reading, otherwise a row read just
+     * before a concurrent commit could be cached after that commit's
+     * eviction and stay stale until it expires.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public AssetLookupCache(@Value("${app.cache.assets.enabled:true}") boolean enabled,
+                            @Value("${app.cache.assets.max-size:10000}") long maxSize,
+                            @Value("${app.cache.assets.expire-after-write:10m}") Duration expireAfterWrite,
+                            @Value("${app.cache.assets.negative-ttl:30s}") Duration negativeTtl,
+                            MeterRegistry meterRegistry) {
+        this(enabled ? maxSize : 0, expireAfterWrite, negativeTtl);
+        if (byId != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, byId, "asset.byId");
+            CaffeineCacheMetrics.monitor(meterRegistry, idByQr, "asset.byQr");
+            CaffeineCacheMetrics.monitor(meterRegistry, unknown, "asset.unknown");
+            FunctionCounter.builder("asset.lookup.saved", negativeHits, LongAdder::sum)
+                    .description("Asset lookups answered without a database query")
+                    .tag("reason", "negative")
+                    .register(meterRegistry);
+            FunctionCounter.builder("asset.lookup.saved", coalesced, LongAdder::sum)
+                    .description("Asset lookups answered without a database query")
+                    .tag("reason", "coalesced")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Creates an unmonitored cache.  A max size of zero disables caching
+     * and every lookup goes straight to the loader.
+     */
+    public AssetLookupCache(long maxSize, Duration expireAfterWrite, Duration negativeTtl) {
+        if (maxSize <= 0) {
+            this.byId = null;
+            this.idByQr = null;
+            this.unknown = null;
+            return;
+        }
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.idByQr = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.unknown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+    }
+
+    /** A cache that never stores anything. */
+    public static AssetLookupCache disabled() {
+        return new AssetLookupCache(0, Duration.ZERO, Duration.ZERO);
+    }
+
+    public Optional<Asset> getById(UUID id, Function<UUID, Optional<Asset>> loader) {
+        if (byId == null) {
+            return loader.apply(id);
+        }
+        Asset cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(Asset.copyOf(cached));
+        }
+        return loadOnce(id.toString(), () -> loader.apply(id)).map(Asset::copyOf);
+    }
+
+    public Optional<Asset> getByQr(String qrCode, Function<String, Optional<Asset>> loader) {
+        if (byId == null) {
+            return loader.apply(qrCode);
+        }
+        UUID id = idByQr.getIfPresent(qrCode);
+        if (id != null) {
+            Asset cached = byId.getIfPresent(id);
+            if (cached != null && qrCode.equals(cached.getQrCode())) {
+                return Optional.of(Asset.copyOf(cached));
+            }
+        }
+        return loadOnce(qrCode, () -> loader.apply(qrCode)).map(Asset::copyOf);
+    }
+
+    /** Number of lookups answered by the negative cache. */
+    public long negativeHits() {
+        return negativeHits.sum();
+    }
+
+    /** Number of lookups that waited for another caller's query. */
+    public long coalescedLoads() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Drops the asset and, when known, its QR mapping.  An old QR code left
+     * behind after a relabel is harmless: it fails the code check on read.
+     */
+    public void evict(UUID id, String qrCode) {
+        if (byId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (id != null) {
+            byId.invalidate(id);
+            unknown.invalidate(id.toString());
+        }
+        if (qrCode != null) {
+            idByQr.invalidate(qrCode);
+            unknown.invalidate(qrCode);
+        }
+    }
+
+    /** Drops everything, e.g. after notifications may have been missed. */
+    public void evictAll() {
+        if (byId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        byId.invalidateAll();
+        idByQr.invalidateAll();
+        unknown.invalidateAll();
+    }
+
+    /**
+     * Answers a cache miss.  Keys known to be absent are answered from the
+     * negative cache; otherwise the first caller runs the query and any
+     * caller arriving for the same key meanwhile waits for its result.
+     * Ids and QR codes share the key space: a code shaped like an id is
+     * resolved as an id by {@code AssetService} anyway.
+     */
+    private Optional<Asset> loadOnce(String key, Supplier<Optional<Asset>> loader) {
+        if (unknown.getIfPresent(key) != null) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+        CompletableFuture<Optional<Asset>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<Asset>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException re ? re : ex;
+            }
+        }
+        try {
+            long seen = generation.get();
+            Optional<Asset> loaded = loader.get();
+            if (loaded.isPresent()) {
+                store(loaded.get(), seen);
+            } else {
+                storeUnknown(key, seen);
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void storeUnknown(String key, long seen) {
+        unknown.put(key, Boolean.TRUE);
+        if (generation.get() != seen) {
+            unknown.invalidate(key);
+        }
+    }
+
+    private void store(Asset asset, long seen) {
+        Asset copy = Asset.copyOf(asset);
+        byId.put(copy.getId(), copy);
+        if (copy.getQrCode() != null) {
+            idByQr.put(copy.getQrCode(), copy.getId());
+        }
+        // an eviction raced with the load: the value may predate it
+        if (generation.get() != seen) {
+            byId.invalidate(copy.getId());
+            if (copy.getQrCode() != null) {
+                idByQr.invalidate(copy.getQrCode());
+            }
+        }
+    }
+}
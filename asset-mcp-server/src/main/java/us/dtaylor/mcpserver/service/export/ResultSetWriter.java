@@ -0,0 +1,156 @@
+package us.dtaylor.mcpserver.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+
+/**
+ * Writes the rows of a {@link ResultSet} to an output stream as NDJSON
+ * or CSV.  Column names come from the result set metadata, in lower
+ * case.  Nothing is retained between rows apart from the column names and
+ * the writer's fixed-size buffer, so memory use does not depend on the
+ * number of rows.
+ */
+final class ResultSetWriter implements AutoCloseable {
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private String[] columns;
+    private long rows;
+
+    ResultSetWriter(ExportFormat format, OutputStream out, JsonFactory jsonFactory) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.NDJSON) {
+            this.json = jsonFactory.createGenerator(writer);
+            this.json.setRootValueSeparator(new SerializedString("\n"));
+        } else {
+            this.json = null;
+        }
+    }
+
+    /**
+     * Writes every remaining row of the result set, preceded by a header
+     * line for CSV.
+     *
+     * @return the number of rows written
+     */
+    long writeAll(ResultSet rs) throws SQLException, IOException {
+        columns = columnNames(rs.getMetaData());
+        if (format == ExportFormat.CSV) {
+            writeCsvRecord(columns);
+        }
+        String[] values = new String[columns.length];
+        while (rs.next()) {
+            if (format == ExportFormat.NDJSON) {
+                writeJsonRow(rs);
+            } else {
+                for (int i = 0; i < columns.length; i++) {
+                    Object value = value(rs, i + 1);
+                    values[i] = value == null ? "" : value.toString();
+                }
+                writeCsvRecord(values);
+            }
+            rows++;
+        }
+        return rows;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    /** Flushes buffered output; the underlying stream is left open. */
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.flush();
+            if (rows > 0) {
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeJsonRow(ResultSet rs) throws SQLException, IOException {
+        json.writeStartObject();
+        for (int i = 0; i < columns.length; i++) {
+            json.writeFieldName(columns[i]);
+            Object value = value(rs, i + 1);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof Long l) {
+                json.writeNumber(l);
+            } else if (value instanceof Integer n) {
+                json.writeNumber(n);
+            } else if (value instanceof BigDecimal d) {
+                json.writeNumber(d);
+            } else if (value instanceof Boolean b) {
+                json.writeBoolean(b);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+    }
+
+    private void writeCsvRecord(String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /** Reads a column, normalising timestamps to ISO-8601 instants. */
+    private static Object value(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp ts) {
+            return ts.toInstant();
+        }
+        if (value instanceof OffsetDateTime odt) {
+            return odt.toInstant();
+        }
+        return value;
+    }
+
+    private static String[] columnNames(ResultSetMetaData meta) throws SQLException {
+        String[] names = new String[meta.getColumnCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = meta.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+        }
+        return names;
+    }
+}
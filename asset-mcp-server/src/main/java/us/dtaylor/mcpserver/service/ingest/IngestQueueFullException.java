@@ -0,0 +1,20 @@
+package us.dtaylor.mcpserver.service.ingest;
+
+/**
+ * Thrown when the work log ingest queue has no room for a submission.
+ * Mapped to {@code 503 Service Unavailable} with a {@code Retry-After}
+ * header so that clients back off and resend.
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public IngestQueueFullException(int requested, long retryAfterSeconds) {
+        super("Work log ingest queue is full; could not accept " + requested + " entries");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,306 @@
+package us.dtaylor.mcpserver.service.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import us.dtaylor.mcpserver.dto.WorkLogIngestReport;
+import us.dtaylor.mcpserver.dto.WorkLogIngestReport.Entry;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService.Delta;
+import us.dtaylor.mcpserver.service.WorkLogService.CreateWorkLogRequest;
+import us.dtaylor.mcpserver.util.UuidV7;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind ingestion of work logs with group commit.
+ *
+ * <p>Submitted entries are queued and written by a single flusher thread,
+ * which takes whatever is waiting (up to {@code batch-size} entries,
+ * lingering at most {@code max-delay} for more) and stores it with one
+ * JDBC batch insert in one transaction.  Under load many callers share a
+ * commit instead of paying a round trip and a commit each.  Asset
+ * references are checked with a single id query per batch rather than by
+ * loading each {@code Asset}; the foreign key still guards against an
+ * asset deleted in between, in which case the batch is retried entry by
+ * entry so that only the offending entries fail.  Asset work summaries are
+ * updated in the same transaction, with one upsert per asset.</p>
+ *
+ * <p>The future returned by {@link #submitAll} completes only after the
+ * batch holding its entries has committed, so an acknowledgement is
+ * durable.  At most {@code queue-capacity} entries may be queued or in
+ * flight; further submissions are rejected with
+ * {@link IngestQueueFullException} rather than buffered without bound.</p>
+ */
+@Service
+public class WorkLogIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkLogIngestor.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO work_log (id, asset_id, technician, action, duration_minutes, created_at, notes)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final AssetWorkSummaryService summaries;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate tx;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    // a lock rather than a monitor, so that virtual threads submitting
+    // concurrently park instead of pinning their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private volatile boolean running;
+    private boolean closed;
+    private Thread flusher;
+
+    public WorkLogIngestor(AssetWorkSummaryService summaries,
+                           DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.ingest.worklogs.queue-capacity:10000}") int queueCapacity,
+                           @Value("${app.ingest.worklogs.batch-size:500}") int batchSize,
+                           @Value("${app.ingest.worklogs.max-delay:5ms}") Duration maxDelay) {
+        this.summaries = summaries;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        this.capacity = new Semaphore(this.queueCapacity);
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        lock.lock();
+        try {
+            if (flusher == null && !closed) {
+                running = true;
+                flusher = Thread.ofPlatform().name("worklog-ingest").daemon().start(this::run);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops accepting work and waits for the queued entries to be written. */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread stopping;
+        lock.lock();
+        try {
+            closed = true;
+            running = false;
+            stopping = flusher;
+            flusher = null;
+        } finally {
+            lock.unlock();
+        }
+        if (stopping != null) {
+            stopping.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Queues the entries for writing.
+     *
+     * @return a future completing with one report entry per request, in
+     *         order, once every accepted entry has been committed
+     * @throws IllegalArgumentException if more entries are submitted than
+     *                                  the queue can ever hold
+     * @throws IngestQueueFullException if the queue has no room right now
+     */
+    public CompletableFuture<WorkLogIngestReport> submitAll(List<CreateWorkLogRequest> requests) {
+        if (requests.size() > queueCapacity) {
+            throw new IllegalArgumentException("At most " + queueCapacity + " work logs may be submitted at once");
+        }
+        List<CompletableFuture<Entry>> results = new ArrayList<>(requests.size());
+        List<Pending> accepted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateWorkLogRequest req = requests.get(i);
+            if (req == null || req.assetId() == null) {
+                results.add(CompletableFuture.completedFuture(Entry.failed(i + 1, "assetId is required")));
+                continue;
+            }
+            Pending p = new Pending(i + 1, UuidV7.next(), Instant.now(), req, new CompletableFuture<>());
+            accepted.add(p);
+            results.add(p.result);
+        }
+        lock.lock();
+        try {
+            if (closed || !capacity.tryAcquire(accepted.size())) {
+                throw new IngestQueueFullException(accepted.size(), RETRY_AFTER_SECONDS);
+            }
+            queue.addAll(accepted);
+        } finally {
+            lock.unlock();
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> WorkLogIngestReport.of(results.stream().map(CompletableFuture::join).toList()));
+    }
+
+    /** Entries currently queued or being written. */
+    public int backlog() {
+        return queueCapacity - capacity.availablePermits();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            batch.addAll(queue);
+            batch.forEach(p -> p.result.complete(Entry.failed(p.entry, "Ingestion stopped before the entry was stored")));
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        Entry[] outcomes = new Entry[batch.size()];
+        try {
+            write(batch, outcomes);
+        } catch (RuntimeException ex) {
+            log.warn("Work log batch of {} failed", batch.size(), ex);
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = Entry.failed(batch.get(i).entry, "Insert failed: " + rootMessage(ex));
+            }
+        }
+        // free the room before acknowledging so that an acknowledged caller can resubmit at once
+        capacity.release(batch.size());
+        for (int i = 0; i < outcomes.length; i++) {
+            batch.get(i).result.complete(outcomes[i]);
+        }
+    }
+
+    private void write(List<Pending> batch, Entry[] outcomes) {
+        try {
+            tx.executeWithoutResult(status -> {
+                Set<UUID> known = existingAssets(batch);
+                List<Pending> valid = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending p = batch.get(i);
+                    if (known.contains(p.request.assetId())) {
+                        valid.add(p);
+                        outcomes[i] = Entry.stored(p.entry, p.id.toString(), p.createdAt);
+                    } else {
+                        outcomes[i] = Entry.failed(p.entry, "Asset not found: " + p.request.assetId());
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, valid, valid.size(), WorkLogIngestor::bind);
+                summaries.recordAll(deltasByAsset(valid));
+            });
+        } catch (DataAccessException batchFailure) {
+            log.debug("Work log batch failed, retrying entries individually: {}", rootMessage(batchFailure));
+            for (int i = 0; i < batch.size(); i++) {
+                Pending p = batch.get(i);
+                try {
+                    tx.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, p));
+                        summaries.recordAll(List.of(delta(p)));
+                    });
+                    outcomes[i] = Entry.stored(p.entry, p.id.toString(), p.createdAt);
+                } catch (DataAccessException ex) {
+                    outcomes[i] = Entry.failed(p.entry, "Insert failed: " + rootMessage(ex));
+                }
+            }
+        }
+    }
+
+    private static Collection<Delta> deltasByAsset(List<Pending> stored) {
+        Map<UUID, Delta> deltas = new LinkedHashMap<>();
+        for (Pending p : stored) {
+            deltas.merge(p.request.assetId(), delta(p), Delta::plus);
+        }
+        return deltas.values();
+    }
+
+    private static Delta delta(Pending p) {
+        return Delta.of(p.request.assetId(), p.request.durationMinutes(), p.request.technician(), p.createdAt);
+    }
+
+    private Set<UUID> existingAssets(List<Pending> batch) {
+        Set<UUID> ids = new HashSet<>();
+        batch.forEach(p -> ids.add(p.request.assetId()));
+        return new HashSet<>(namedJdbc.queryForList(
+                "SELECT id FROM asset WHERE id IN (:ids)", Map.of("ids", ids), UUID.class));
+    }
+
+    private static void bind(PreparedStatement ps, Pending p) throws SQLException {
+        CreateWorkLogRequest req = p.request;
+        ps.setObject(1, p.id);
+        ps.setObject(2, req.assetId());
+        ps.setString(3, req.technician());
+        ps.setString(4, req.action());
+        if (req.durationMinutes() == null) {
+            ps.setNull(5, Types.INTEGER);
+        } else {
+            ps.setInt(5, req.durationMinutes());
+        }
+        ps.setTimestamp(6, Timestamp.from(p.createdAt));
+        ps.setString(7, req.notes());
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable root = NestedExceptionUtils.getMostSpecificCause(ex);
+        return root.getMessage() == null ? root.getClass().getSimpleName() : root.getMessage();
+    }
+
+    private record Pending(int entry, UUID id, Instant createdAt, CreateWorkLogRequest request,
+                           CompletableFuture<Entry> result) {
+    }
+}
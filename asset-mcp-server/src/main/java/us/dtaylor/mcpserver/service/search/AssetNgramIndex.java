@@ -0,0 +1,265 @@
+package us.dtaylor.mcpserver.service.search;
+
+import us.dtaylor.mcpserver.domain.Asset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted trigram index over the same asset columns that
+ * {@code AssetRepository.search} matches (name, model, serial number,
+ * brand and asset type).
+ *
+ * <p>Each indexed asset is assigned an int ordinal; every lower-cased
+ * character trigram of its searchable fields maps to an {@link IntPostings}
+ * list of ordinals.  A query is answered by intersecting the postings of its
+ * own trigrams and then verifying the (few) candidates with a real
+ * case-insensitive substring check, so results are identical to the SQL
+ * {@code LIKE '%q%'} semantics.  Queries shorter than a trigram fall back
+ * to a scan of the in-memory documents.</p>
+ *
+ * <p>The index keeps a detached snapshot of every asset so that results
+ * can be served without touching the database.  All access is guarded by
+ * a read/write lock.</p>
+ */
+final class AssetNgramIndex {
+
+    private static final int GRAM = 3;
+
+    private static final Comparator<Asset> NAME_ORDER = Comparator
+            .comparing(Asset::getName, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Asset::getId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntPostings> postings = new HashMap<>();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private Asset[] docs = new Asset[1024];
+    private int nextOrdinal;
+
+    /**
+     * Adds the asset or replaces the indexed version of it, unless the
+     * index already holds a newer {@code version}: changes to one asset may
+     * reach the index out of order.
+     */
+    void upsert(Asset asset) {
+        Asset snapshot = snapshot(asset);
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.get(snapshot.getId());
+            int ord;
+            if (existing != null) {
+                if (isNewer(docs[existing], snapshot)) {
+                    return;
+                }
+                ord = existing;
+                unindex(ord, docs[ord]);
+            } else {
+                ord = nextOrdinal++;
+                if (ord == docs.length) {
+                    docs = Arrays.copyOf(docs, docs.length * 2);
+                }
+                ordinals.put(snapshot.getId(), ord);
+            }
+            docs[ord] = snapshot;
+            for (long gram : grams(snapshot)) {
+                postings.computeIfAbsent(gram, k -> new IntPostings()).add(ord);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isNewer(Asset indexed, Asset candidate) {
+        return indexed.getVersion() != null && candidate.getVersion() != null
+                && indexed.getVersion() > candidate.getVersion();
+    }
+
+    void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.remove(id);
+            if (ord != null) {
+                unindex(ord, docs[ord]);
+                docs[ord] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every indexed asset matching the (non-blank) query, ordered by
+     * name then id.  The returned objects are the index's own snapshots and
+     * must not be modified.
+     */
+    List<Asset> search(String query) {
+        String q = query.trim();
+        List<Asset> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (q.length() < GRAM) {
+                for (int ord = 0; ord < nextOrdinal; ord++) {
+                    collect(docs[ord], q, matches);
+                }
+            } else {
+                for (int ord : candidates(q)) {
+                    collect(docs[ord], q, matches);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(NAME_ORDER);
+        return matches;
+    }
+
+    /**
+     * Approximate retained heap of the index in bytes, assuming a 64-bit JVM
+     * with compressed oops: postings arrays and map entries, the ordinal
+     * map, and the document snapshots with their strings.
+     */
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 16 + 4L * docs.length;
+            // HashMap table slot + Node + boxed Long key per distinct trigram
+            for (IntPostings list : postings.values()) {
+                bytes += 4 + 32 + 16 + list.retainedBytes();
+            }
+            // table slot + Node + UUID key + Integer value per document
+            bytes += (4 + 32 + 32 + 16) * (long) ordinals.size();
+            for (int ord = 0; ord < nextOrdinal; ord++) {
+                Asset doc = docs[ord];
+                if (doc != null) {
+                    bytes += 56 + stringBytes(doc.getQrCode()) + stringBytes(doc.getName())
+                            + stringBytes(doc.getModel()) + stringBytes(doc.getSerialNumber())
+                            + stringBytes(doc.getBrand()) + stringBytes(doc.getManualPath())
+                            + stringBytes(doc.getQrImagePath()) + stringBytes(doc.getAssetType())
+                            + (doc.getInstalledAt() == null ? 0 : 24);
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns a detached copy so that callers never share index state. */
+    static Asset snapshot(Asset source) {
+        return Asset.copyOf(source);
+    }
+
+    private int[] candidates(String q) {
+        long[] queryGrams = grams(q);
+        IntPostings[] lists = new IntPostings[queryGrams.length];
+        for (int i = 0; i < queryGrams.length; i++) {
+            lists[i] = postings.get(queryGrams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(IntPostings::size));
+        int[] acc = lists[0].toArray();
+        for (int i = 1; i < lists.length && acc.length > 0; i++) {
+            acc = IntPostings.intersect(acc, acc.length, lists[i]);
+        }
+        return acc;
+    }
+
+    private void unindex(int ord, Asset doc) {
+        for (long gram : grams(doc)) {
+            IntPostings list = postings.get(gram);
+            if (list != null) {
+                list.remove(ord);
+                if (list.size() == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static void collect(Asset doc, String q, List<Asset> out) {
+        if (doc != null && (containsIgnoreCase(doc.getName(), q) || containsIgnoreCase(doc.getModel(), q)
+                || containsIgnoreCase(doc.getSerialNumber(), q) || containsIgnoreCase(doc.getBrand(), q)
+                || containsIgnoreCase(doc.getAssetType(), q))) {
+            out.add(doc);
+        }
+    }
+
+    private static boolean containsIgnoreCase(String field, String q) {
+        if (field == null) {
+            return false;
+        }
+        for (int i = 0, max = field.length() - q.length(); i <= max; i++) {
+            if (field.regionMatches(true, i, q, 0, q.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Sorted, distinct trigram keys of all searchable fields. */
+    private static long[] grams(Asset doc) {
+        long[] buf = new long[64];
+        int n = 0;
+        for (String field : new String[]{doc.getName(), doc.getModel(), doc.getSerialNumber(),
+                doc.getBrand(), doc.getAssetType()}) {
+            if (field == null) {
+                continue;
+            }
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                if (n == buf.length) {
+                    buf = Arrays.copyOf(buf, n * 2);
+                }
+                buf[n++] = gram(field, i);
+            }
+        }
+        return distinct(buf, n);
+    }
+
+    private static long[] grams(String text) {
+        long[] buf = new long[Math.max(0, text.length() - GRAM + 1)];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = gram(text, i);
+        }
+        return distinct(buf, buf.length);
+    }
+
+    private static long[] distinct(long[] buf, int n) {
+        Arrays.sort(buf, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || buf[unique - 1] != buf[i]) {
+                buf[unique++] = buf[i];
+            }
+        }
+        return Arrays.copyOf(buf, unique);
+    }
+
+    /** Packs three lower-cased UTF-16 chars into one long key. */
+    private static long gram(String s, int i) {
+        return ((long) Character.toLowerCase(s.charAt(i)) << 32)
+                | ((long) Character.toLowerCase(s.charAt(i + 1)) << 16)
+                | Character.toLowerCase(s.charAt(i + 2));
+    }
+
+    private static long stringBytes(String s) {
+        // String header + byte[] header + LATIN1 payload
+        return s == null ? 0 : 24 + 16 + s.length();
+    }
+}
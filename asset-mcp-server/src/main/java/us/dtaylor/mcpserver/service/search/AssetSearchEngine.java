@@ -0,0 +1,50 @@
+package us.dtaylor.mcpserver.service.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.dto.AssetView;
+
+/**
+ * Strategy used by {@link us.dtaylor.mcpserver.service.AssetService#search}
+ * to answer free-text asset queries.  The active implementation is chosen
+ * with the {@code app.search.mode} property.
+ */
+public interface AssetSearchEngine {
+
+    /**
+     * Searches assets matching the query.  A blank query lists all assets
+     * using the sort carried by the pageable.  Non-blank queries may ignore
+     * that sort in favour of a relevance ordering.
+     *
+     * @param query    the user supplied search text, possibly blank
+     * @param pageable page number, page size and default sort
+     * @return the requested page of matching assets
+     */
+    Page<Asset> search(String query, Pageable pageable);
+
+    /**
+     * Like {@link #search} but callers do not need the total count.  Engines
+     * whose count is a separate query should override this to skip it.
+     */
+    default Slice<Asset> searchSlice(String query, Pageable pageable) {
+        return search(query, pageable);
+    }
+
+    /**
+     * Read-only variant of {@link #search} used by the REST list endpoint.
+     * Engines that can project rows straight into views, without hydrating
+     * entities, should override this.
+     */
+    default Page<AssetView> searchViews(String query, Pageable pageable) {
+        return search(query, pageable).map(AssetView::of);
+    }
+
+    /**
+     * Read-only variant of {@link #searchSlice}; see {@link #searchViews}.
+     */
+    default Slice<AssetView> searchViewSlice(String query, Pageable pageable) {
+        return searchSlice(query, pageable).map(AssetView::of);
+    }
+}
@@ -0,0 +1,174 @@
+package us.dtaylor.mcpserver.service.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetChangedEvent;
+import us.dtaylor.mcpserver.domain.AssetsImportedEvent;
+import us.dtaylor.mcpserver.dto.AssetView;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Search engine that answers asset queries from an in-process
+ * {@link AssetNgramIndex} ({@code app.search.mode=memory}).
+ *
+ * <p>The index is loaded once the application is ready by streaming the
+ * asset table, then kept current by {@link AssetChangedEvent}s, which are
+ * published for every JPA write path (including
+ * {@code AssetCreationService.createWithQr}) and applied after commit, and
+ * by the {@link AssetsImportedEvent}s of bulk imports.
+ * Changes that commit while the initial load is running are queued and
+ * replayed by the load once it has finished, the only place the queue is
+ * drained; later changes are applied as they arrive.  The index keeps the
+ * highest {@code version} it has seen of each asset, so a queued change
+ * older than the row the load read, or two changes to one asset applied
+ * out of order, cannot roll it back.  Until the load has finished,
+ * searches fall back to the database LIKE query.</p>
+ *
+ * <p>Index size is published as the {@code asset.search.index.*} gauges
+ * at {@code /actuator/metrics}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.mode", havingValue = "memory")
+public class InMemoryAssetSearchEngine implements AssetSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryAssetSearchEngine.class);
+
+    private final AssetRepository repo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTx;
+    private final AssetNgramIndex index = new AssetNgramIndex();
+    private final Object pendingLock = new Object();
+    /** Changes committed during the load; guarded by pendingLock, null once loaded. */
+    private List<AssetChangedEvent> pendingChanges = new ArrayList<>();
+    private volatile boolean ready;
+
+    public InMemoryAssetSearchEngine(AssetRepository repo,
+                                     EntityManager entityManager,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.entityManager = entityManager;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+
+        Gauge.builder("asset.search.index.documents", index, AssetNgramIndex::size)
+                .description("Assets held by the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("asset.search.index.memory", index, AssetNgramIndex::estimatedBytes)
+                .description("Estimated heap retained by the in-memory search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("asset.search.index.memory.per100k", index,
+                        i -> i.size() == 0 ? 0 : i.estimatedBytes() * 100_000d / i.size())
+                .description("Estimated index heap normalised to 100k assets")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Page<Asset> search(String query, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            return repo.findAll(pageable);
+        }
+        if (!ready) {
+            return repo.search(query, pageable);
+        }
+        List<Asset> matches = index.search(query);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<Asset> content = matches.subList(from, to).stream()
+                .map(AssetNgramIndex::snapshot)
+                .toList();
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+
+    /**
+     * Views are immutable, so index hits are copied into them directly
+     * instead of through {@link AssetNgramIndex#snapshot}.
+     */
+    @Override
+    public Page<AssetView> searchViews(String query, Pageable pageable) {
+        if (query == null || query.isBlank() || !ready) {
+            return repo.searchViews(query, pageable);
+        }
+        List<Asset> matches = index.search(query);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<AssetView> content = matches.subList(from, to).stream()
+                .map(AssetView::of)
+                .toList();
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+
+    /**
+     * Streams every asset into the index.  Entities are detached as soon as
+     * they are indexed so the persistence context stays empty regardless of
+     * table size.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<Asset> assets = repo.streamAll()) {
+                assets.forEach(asset -> {
+                    index.upsert(asset);
+                    entityManager.detach(asset);
+                });
+            }
+        });
+        synchronized (pendingLock) {
+            pendingChanges.forEach(this::apply);
+            pendingChanges = null;
+            ready = true;
+        }
+        log.info("Asset search index loaded {} assets in {} ms (~{} KiB)",
+                index.size(), (System.nanoTime() - started) / 1_000_000, index.estimatedBytes() / 1024);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        if (!ready) {
+            synchronized (pendingLock) {
+                // the load may have finished since the check
+                if (pendingChanges != null) {
+                    pendingChanges.add(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetsImported(AssetsImportedEvent event) {
+        for (Asset asset : event.assets()) {
+            onAssetChanged(AssetChangedEvent.saved(asset));
+        }
+    }
+
+    private void apply(AssetChangedEvent event) {
+        if (event.deleted()) {
+            index.remove(event.asset().getId());
+        } else {
+            index.upsert(event.asset());
+        }
+    }
+}
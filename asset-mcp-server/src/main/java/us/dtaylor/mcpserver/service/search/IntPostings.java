@@ -0,0 +1,95 @@
+package us.dtaylor.mcpserver.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of document ordinals backed by a plain
+ * {@code int[]}.  New documents receive increasing ordinals, so the common
+ * insert is an append; updates of existing documents fall back to a
+ * binary-search insert.  Not thread-safe; {@link AssetNgramIndex} guards
+ * access.
+ */
+final class IntPostings {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] docs = new int[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    int get(int i) {
+        return docs[i];
+    }
+
+    /** Bytes retained by this list, including the array header. */
+    long retainedBytes() {
+        return 16 + 16 + 4L * docs.length;
+    }
+
+    void add(int doc) {
+        if (size > 0 && docs[size - 1] >= doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                return;
+            }
+            insertAt(-pos - 1, doc);
+            return;
+        }
+        ensureCapacity();
+        docs[size++] = doc;
+    }
+
+    void remove(int doc) {
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+        size--;
+        if (size > INITIAL_CAPACITY && size < docs.length / 4) {
+            docs = Arrays.copyOf(docs, docs.length / 2);
+        }
+    }
+
+    /**
+     * Intersects two sorted ordinal arrays into a new array.  The shorter
+     * input should be passed first.
+     */
+    static int[] intersect(int[] a, int aLen, IntPostings b) {
+        int[] out = new int[Math.min(aLen, b.size)];
+        int i = 0, j = 0, n = 0;
+        while (i < aLen && j < b.size) {
+            int x = a[i], y = b.docs[j];
+            if (x == y) {
+                out[n++] = x;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(docs, size);
+    }
+
+    private void insertAt(int pos, int doc) {
+        ensureCapacity();
+        System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+        docs[pos] = doc;
+        size++;
+    }
+
+    private void ensureCapacity() {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length + (docs.length >> 1) + 1);
+        }
+    }
+}
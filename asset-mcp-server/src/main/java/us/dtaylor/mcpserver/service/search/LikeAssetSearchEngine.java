@@ -0,0 +1,46 @@
+package us.dtaylor.mcpserver.service.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.dto.AssetView;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+
+/**
+ * Default search engine.  Runs the case-insensitive {@code LIKE '%q%'}
+ * query from {@link AssetRepository#search}, which cannot use a b-tree
+ * index but needs no database extensions.
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.mode", havingValue = "like", matchIfMissing = true)
+public class LikeAssetSearchEngine implements AssetSearchEngine {
+
+    private final AssetRepository repo;
+
+    public LikeAssetSearchEngine(AssetRepository repo) {
+        this.repo = repo;
+    }
+
+    @Override
+    public Page<Asset> search(String query, Pageable pageable) {
+        return repo.search(query, pageable);
+    }
+
+    @Override
+    public Slice<Asset> searchSlice(String query, Pageable pageable) {
+        return repo.searchSlice(query, pageable);
+    }
+
+    @Override
+    public Page<AssetView> searchViews(String query, Pageable pageable) {
+        return repo.searchViews(query, pageable);
+    }
+
+    @Override
+    public Slice<AssetView> searchViewSlice(String query, Pageable pageable) {
+        return repo.searchViewSlice(query, pageable);
+    }
+}
@@ -0,0 +1,80 @@
+package us.dtaylor.mcpserver.service.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.util.DatabasePlatform;
+
+import javax.sql.DataSource;
+
+/**
+ * Index-backed, relevance ranked search engine ({@code app.search.mode=ranked}).
+ *
+ * <p>On PostgreSQL the searchable columns are covered by a pg_trgm GIN index
+ * so substring matches no longer scan the table, and results are ordered by
+ * trigram word similarity.  On H2 (tests, local runs) the same contract is
+ * served by a portable query with a simpler rank.  Blank queries keep the
+ * plain name-ordered listing so paging behaves exactly as before.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.mode", havingValue = "ranked")
+public class RankedAssetSearchEngine implements AssetSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RankedAssetSearchEngine.class);
+
+    // Must match AssetRepository.SEARCH_DOCUMENT (without the table alias).
+    private static final String CREATE_TRIGRAM_INDEX = """
+            CREATE INDEX IF NOT EXISTS idx_asset_search_trgm ON asset USING gin (
+              (LOWER(COALESCE(name, '') || ' ' || COALESCE(model, '') || ' ' ||
+                     COALESCE(serial_number, '') || ' ' || COALESCE(brand, '') || ' ' ||
+                     COALESCE(asset_type, ''))) gin_trgm_ops)""";
+
+    private final AssetRepository repo;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public RankedAssetSearchEngine(AssetRepository repo, JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.repo = repo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = DatabasePlatform.isPostgres(dataSource);
+    }
+
+    @Override
+    public Page<Asset> search(String query, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            return repo.findAll(pageable);
+        }
+        // Relevance defines the order; drop the caller's name sort.
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        String trimmed = query.trim();
+        return postgres ? repo.searchRankedTrigram(trimmed, unsorted) : repo.searchRanked(trimmed, unsorted);
+    }
+
+    /**
+     * Creates the pg_trgm extension and the search index once the schema is
+     * in place.  Both statements are idempotent.  A missing privilege only
+     * costs performance, so failures are logged rather than fatal.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        if (!postgres) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute(CREATE_TRIGRAM_INDEX);
+        } catch (DataAccessException ex) {
+            log.warn("Could not create trigram search index; ranked search will fall back to sequential scans", ex);
+        }
+    }
+}
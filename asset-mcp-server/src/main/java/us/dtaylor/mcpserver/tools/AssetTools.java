@@ -4,10 +4,14 @@ import com.fasterxml.jackson.annotation.*;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
 import us.dtaylor.mcpserver.domain.WorkLog;
+import us.dtaylor.mcpserver.dto.WorkLogView;
 import us.dtaylor.mcpserver.service.AssetService;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService;
 import us.dtaylor.mcpserver.service.WorkLogService;
 
+import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,18 +21,22 @@ public class AssetTools {
     private final AssetService assets;
     private final WorkLogService worklogs;
     private final AssetService assetService;
+    private final AssetWorkSummaryService workSummaries;
 
-    public AssetTools(AssetService assets, WorkLogService worklogs, AssetService assetService) {
+    public AssetTools(AssetService assets, WorkLogService worklogs, AssetService assetService,
+                      AssetWorkSummaryService workSummaries) {
         this.assets = assets;
         this.worklogs = worklogs;
         this.assetService = assetService;
+        this.workSummaries = workSummaries;
     }
 
     // ====== Tool 1: search asset ======
-    @Tool(name = "asset.search", description = "Lookup an asset by QR code or asset UUID. Returns basic asset info.")
+    @Tool(name = "asset.search", description = "Lookup an asset by QR code or asset UUID. Returns basic asset info and a work summary (job count, total minutes, last technician, last worked at).")
     public AssetResponse search(@JsonProperty("qr_or_id") String qrOrId) {
         Optional<Asset> opt = assets.findByQrOrId(qrOrId);
-        return opt.map(AssetResponse::from).orElseGet(() -> new AssetResponse("NOT_FOUND", null, null, null, null, null));
+        return opt.map(a -> AssetResponse.from(a, workSummaries.get(a.getId())))
+                .orElseGet(AssetResponse::notFound);
     }
 
     // ====== Tool 2: create work log ======
@@ -46,11 +54,12 @@ public class AssetTools {
     }
 
     // ====== Tool 3: retrieve work logs for asset ======
-    @Tool(name = "worklog.list", description = "List all worklogs for a given assetId (UUID).")
-    public WorkLog[] listWorklogs(@JsonProperty("asset_id") String assetId) {
+    @Tool(name = "worklog.list", description = "List the most recent worklogs for a given assetId (UUID), newest first. Optional limit (default 50, max 200).")
+    public WorkLogView[] listWorklogs(@JsonProperty("asset_id") String assetId,
+                                  @JsonProperty(value = "limit", required = false) Integer limit) {
         var asset = assets.findByQrOrId(assetId).orElseThrow(() -> new IllegalArgumentException("asset not found"));
-        var logs = worklogs.listForAsset(asset.getId());
-        return logs.toArray(new WorkLog[0]);
+        var logs = worklogs.history(asset.getId(), null, null, limit == null ? 50 : limit).getContent();
+        return logs.toArray(new WorkLogView[0]);
     }
 
     // ==== DTOs ====
@@ -63,9 +72,15 @@ public class AssetTools {
             @JsonProperty(value = "notes", required = false) String notes) {
     }
 
-    public record AssetResponse(String status, String id, String qrCode, String name, String model, String location) {
-        static AssetResponse from(Asset a) {
-            return new AssetResponse("OK", a.getId().toString(), a.getQrCode(), a.getName(), a.getModel(), a.getBrand());
+    public record AssetResponse(String status, String id, String qrCode, String name, String model, String location,
+                                long jobCount, long totalMinutes, String lastTechnician, Instant lastWorkedAt) {
+        static AssetResponse from(Asset a, AssetWorkSummary s) {
+            return new AssetResponse("OK", a.getId().toString(), a.getQrCode(), a.getName(), a.getModel(), a.getBrand(),
+                    s.getJobCount(), s.getTotalMinutes(), s.getLastTechnician(), s.getLastWorkedAt());
+        }
+
+        static AssetResponse notFound() {
+            return new AssetResponse("NOT_FOUND", null, null, null, null, null, 0, 0, null, null);
         }
     }
 }
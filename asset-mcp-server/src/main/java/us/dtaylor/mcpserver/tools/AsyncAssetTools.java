@@ -0,0 +1,132 @@
+package us.dtaylor.mcpserver.tools;
+
+import io.modelcontextprotocol.server.McpServerFeatures.AsyncToolSpecification;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.support.ToolDefinitions;
+import org.springframework.ai.util.json.JsonParser;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
+import us.dtaylor.mcpserver.dto.WorkLogView;
+import us.dtaylor.mcpserver.service.AssetService;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService;
+import us.dtaylor.mcpserver.service.WorkLogService;
+import us.dtaylor.mcpserver.tools.AssetTools.AssetResponse;
+import us.dtaylor.mcpserver.tools.AssetTools.CreateWorklogRequest;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Non-blocking versions of the {@link AssetTools} tools, published in
+ * their place when the MCP server runs in ASYNC mode
+ * ({@code spring.ai.mcp.server.type=ASYNC}).  Names, descriptions and input
+ * schemas come from the {@code @Tool} methods of {@link AssetTools}, and
+ * results and errors are rendered the way Spring AI renders them for those
+ * methods, so clients see the same tools in either mode.
+ *
+ * <p>Handlers return a {@link Mono} at once and never block the calling
+ * thread.  The data access underneath is still JDBC, so each query is
+ * subscribed on Reactor's bounded-elastic scheduler (virtual threads when
+ * {@code spring.threads.virtual.enabled}), and queries of one call that do
+ * not depend on each other run concurrently: given an asset id, the asset
+ * and its work summary or history are read in parallel instead of one
+ * after the other.</p>
+ */
+@Component
+public class AsyncAssetTools {
+
+    private static final int DEFAULT_LIST_LIMIT = 50;
+
+    private final AssetService assets;
+    private final WorkLogService worklogs;
+    private final AssetWorkSummaryService workSummaries;
+
+    public AsyncAssetTools(AssetService assets, WorkLogService worklogs, AssetWorkSummaryService workSummaries) {
+        this.assets = assets;
+        this.worklogs = worklogs;
+        this.workSummaries = workSummaries;
+    }
+
+    /** The tool specifications for the async MCP server. */
+    public List<AsyncToolSpecification> specifications() {
+        return List.of(
+                tool("search", args -> search(argument(args, "qrOrId", String.class))),
+                tool("createWorklog", args -> createWorklog(argument(args, "req", CreateWorklogRequest.class))),
+                tool("listWorklogs", args -> listWorklogs(argument(args, "assetId", String.class),
+                        argument(args, "limit", Integer.class))));
+    }
+
+    // asset.search
+    public Mono<AssetResponse> search(String qrOrId) {
+        Mono<Optional<Asset>> asset = blocking(() -> assets.findByQrOrId(qrOrId));
+        if (!AssetService.isCanonicalUuid(qrOrId)) {
+            return asset.flatMap(found -> found
+                    .map(a -> blocking(() -> AssetResponse.from(a, workSummaries.get(a.getId()))))
+                    .orElseGet(() -> Mono.just(AssetResponse.notFound())));
+        }
+        Mono<AssetWorkSummary> summary = blocking(() -> workSummaries.get(UUID.fromString(qrOrId)));
+        return Mono.zip(asset, summary, (found, s) -> found
+                .map(a -> AssetResponse.from(a, s))
+                .orElseGet(AssetResponse::notFound));
+    }
+
+    // worklog.create
+    public Mono<Map<String, Object>> createWorklog(CreateWorklogRequest req) {
+        return blocking(() -> {
+            var saved = worklogs.create(new WorkLogService.CreateWorkLogRequest(UUID.fromString(req.assetId()),
+                    req.action(), req.technician(), req.durationMinutes(), req.notes()));
+            return Map.of("worklogId", saved.getId(), "status", "CREATED");
+        });
+    }
+
+    // worklog.list
+    public Mono<WorkLogView[]> listWorklogs(String assetId, Integer limit) {
+        int size = limit == null ? DEFAULT_LIST_LIMIT : limit;
+        Mono<UUID> id = blocking(() -> assets.findByQrOrId(assetId)
+                .orElseThrow(() -> new IllegalArgumentException("asset not found"))
+                .getId());
+        if (!AssetService.isCanonicalUuid(assetId)) {
+            return id.flatMap(resolved -> blocking(() -> history(resolved, size)));
+        }
+        // the history of an unknown id is empty and is discarded when the lookup fails
+        return Mono.zip(id, blocking(() -> history(UUID.fromString(assetId), size)), (resolved, logs) -> logs);
+    }
+
+    private WorkLogView[] history(UUID assetId, int size) {
+        return worklogs.history(assetId, null, null, size).getContent().toArray(new WorkLogView[0]);
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static AsyncToolSpecification tool(String methodName, Function<Map<String, Object>, Mono<?>> handler) {
+        Method method = Arrays.stream(AssetTools.class.getMethods())
+                .filter(m -> m.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool method " + methodName));
+        ToolDefinition definition = ToolDefinitions.from(method);
+        var tool = new McpSchema.Tool(definition.name(), definition.description(), definition.inputSchema());
+        return new AsyncToolSpecification(tool, (exchange, args) -> Mono.defer(() -> handler.apply(args))
+                .map(result -> new McpSchema.CallToolResult(
+                        List.of(new McpSchema.TextContent(JsonParser.toJson(result))), false))
+                .onErrorResume(ex -> Mono.just(new McpSchema.CallToolResult(
+                        List.of(new McpSchema.TextContent(ex.getMessage())), true))));
+    }
+
+    /** Converts one argument the way Spring AI's method tool callbacks do. */
+    private static <T> T argument(Map<String, Object> args, String name, Class<T> type) {
+        Object value = args.get(name);
+        return value == null ? null : type.cast(JsonParser.toTypedObject(value, type));
+    }
+}
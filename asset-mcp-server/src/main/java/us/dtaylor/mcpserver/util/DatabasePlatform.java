@@ -0,0 +1,37 @@
+package us.dtaylor.mcpserver.util;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Small helper for code paths that need database specific SQL.  The
+ * application runs against PostgreSQL in every deployed environment and
+ * against H2 in tests, so the only question callers ever ask is whether
+ * the Postgres-only features (extensions, statistics, LISTEN/NOTIFY) are
+ * available.
+ */
+public final class DatabasePlatform {
+
+    private DatabasePlatform() {
+    }
+
+    /**
+     * Returns {@code true} when the given data source is backed by
+     * PostgreSQL.  Metadata lookup failures are treated as "not Postgres"
+     * so that callers fall back to their portable code path.
+     *
+     * @param dataSource the data source to inspect
+     * @return whether the database product is PostgreSQL
+     */
+    public static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (MetaDataAccessException ex) {
+            return false;
+        }
+    }
+}
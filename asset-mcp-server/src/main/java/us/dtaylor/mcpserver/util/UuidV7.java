@@ -0,0 +1,49 @@
+package us.dtaylor.mcpserver.util;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered version 7 UUIDs (RFC 9562): a 48-bit Unix
+ * millisecond timestamp, a 12-bit sequence and 62 random bits.
+ *
+ * <p>Ids created later sort after earlier ones, so inserts append to the
+ * right-hand edge of a primary key B-tree instead of landing on random
+ * pages as version 4 ids do.  The sequence makes ids strictly increasing
+ * within this JVM even for several ids in the same millisecond or if the
+ * clock steps backwards; ids from different replicas interleave by
+ * millisecond.  They remain ordinary {@link UUID}s, so they mix freely
+ * with existing random ids in the same column.</p>
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Last issued {@code (millis << 12) | sequence}. */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long stamp = LAST.updateAndGet(prev -> Math.max(now, prev + 1));
+        long msb = (stamp >>> 12) << 16 | 0x7000L | (stamp & 0xFFFL);
+        long lsb = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns the creation time embedded in a version 7 id.
+     *
+     * @throws IllegalArgumentException for other UUID versions
+     */
+    public static Instant timestamp(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id);
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+}
@@ -12,19 +12,28 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import us.dtaylor.mcpserver.config.TestSecurityConfig;
 import us.dtaylor.mcpserver.domain.Asset;
 import us.dtaylor.mcpserver.dto.CreateAssetRequest;
 import us.dtaylor.mcpserver.repository.AssetRepository;
 import us.dtaylor.mcpserver.service.QrCodeService;
+import us.dtaylor.mcpserver.service.WorkLogService;
 import us.dtaylor.mcpserver.service.storage.QrStorage;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -49,6 +58,9 @@ public class AssetControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private WorkLogService workLogService;
+
     @MockBean
     private QrCodeService qrCodeService;
 
@@ -87,6 +99,63 @@ public class AssetControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].name", is("Test Asset")));
     }
 
+    @Test
+    void testListAssetsKeysetEndpoint() throws Exception {
+        Asset other = new Asset();
+        other.setQrCode("QRTEST2");
+        other.setName("Zeta Asset");
+        other.setInstalledAt(Instant.now());
+        assetRepository.save(other);
+
+        String next = mockMvc.perform(get("/api/assets/v1").param("cursor", "").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(jsonPath("$[0].name", is("Test Asset")))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/assets/v1").param("cursor", next).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Zeta Asset")));
+    }
+
+    @Test
+    void testListAssetsWithoutCount() throws Exception {
+        mockMvc.perform(get("/api/assets/v1").param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void testListAssetsRejectsBadCursor() throws Exception {
+        mockMvc.perform(get("/api/assets/v1").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testExportAssetsAsCsv() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/assets/v1/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // the export's own timeout, not spring.mvc.async.request-timeout
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", containsString("assets.csv")))
+                .andExpect(content().string(startsWith("id,qr_code,name,")))
+                .andExpect(content().string(containsString(asset.getId() + ",QRTEST,Test Asset,T-100")));
+    }
+
+    @Test
+    void testExportRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/assets/v1/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetAssetByIdEndpoint() throws Exception {
         mockMvc.perform(get("/api/assets/v1/" + asset.getId()))
@@ -102,6 +171,70 @@ public class AssetControllerIntegrationTest {
                 .andExpect(jsonPath("$.qrCode", is(asset.getQrCode())));
     }
 
+    @Test
+    void testConditionalGetAsset() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/assets/v1/" + asset.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andExpect(jsonPath("$.version", is(0)))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        String readAt = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+
+        mockMvc.perform(get("/api/assets/v1/" + asset.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/assets/v1/by-qr/" + asset.getQrCode()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        Asset stored = assetRepository.findById(asset.getId()).orElseThrow();
+        stored.setName("Renamed Asset");
+        assetRepository.save(stored);
+
+        // changed within the second the client read it in
+        mockMvc.perform(get("/api/assets/v1/" + asset.getId()).header("If-Modified-Since", readAt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Renamed Asset")));
+        mockMvc.perform(get("/api/assets/v1/" + asset.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.name", is("Renamed Asset")))
+                .andExpect(jsonPath("$.version", is(1)));
+    }
+
+    @Test
+    void testConditionalGetWorkLogs() throws Exception {
+        String url = "/api/worklogs/v1?assetId=" + asset.getId();
+        String empty = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        workLogService.create(new WorkLogService.CreateWorkLogRequest(asset.getId(), "Belt", "Sam", 25, null));
+
+        String one = mockMvc.perform(get(url).header("If-None-Match", empty))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get(url).header("If-None-Match", one))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetWorkSummaryEndpoint() throws Exception {
+        workLogService.create(new WorkLogService.CreateWorkLogRequest(asset.getId(), "Belt", "Sam", 25, null));
+
+        mockMvc.perform(get("/api/assets/v1/" + asset.getId() + "/work-summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assetId", is(asset.getId().toString())))
+                .andExpect(jsonPath("$.jobCount", is(1)))
+                .andExpect(jsonPath("$.totalMinutes", is(25)))
+                .andExpect(jsonPath("$.lastTechnician", is("Sam")));
+        mockMvc.perform(get("/api/assets/v1/" + UUID.randomUUID() + "/work-summary"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreateAssetEndpoint() throws Exception {
         CreateAssetRequest req = new CreateAssetRequest(
@@ -0,0 +1,227 @@
+package us.dtaylor.mcpserver.config;
+
+import jakarta.servlet.http.Cookie;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReplicaRoutingDataSource} and {@link ReadReplicaConfig}
+ * with two in-memory H2 databases standing in for the primary and the
+ * replica.  Each holds a one-row {@code whoami} table naming itself.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        DataSource ds = new ReplicaRoutingDataSource(database("primary"), database("replica"), Duration.ZERO).lazy();
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+
+        assertThat(whoami(ds, true)).isEqualTo("replica");
+        assertThat(whoami(ds, false)).isEqualTo("primary");
+        // outside a transaction
+        assertThat(jdbc.queryForObject("SELECT name FROM whoami", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsFollowingAWriteStayOnThePrimaryForItsCallerOnly() throws Exception {
+        MutableClock clock = new MutableClock();
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(database("primary"), database("replica"),
+                Duration.ofMinutes(1), clock);
+        DataSource ds = routing.lazy();
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        List<Instant> written = new ArrayList<>();
+
+        try (var writer = ReplicaRoutingDataSource.beginCaller(null, written::add)) {
+            // a rolled back write does not count
+            tx.executeWithoutResult(status -> {
+                jdbc.update("UPDATE whoami SET name = 'primary, rolled back'");
+                status.setRollbackOnly();
+            });
+            assertThat(routing.pinnedToPrimary()).isFalse();
+            assertThat(whoami(ds, true)).isEqualTo("replica");
+
+            tx.executeWithoutResult(status -> jdbc.update("UPDATE whoami SET name = 'primary, updated'"));
+            assertThat(written).containsExactly(clock.instant());
+            assertThat(whoami(ds, true)).isEqualTo("primary, updated");
+
+            // an unrelated caller, served meanwhile on another thread, still reads the replica
+            ExecutorService other = Executors.newSingleThreadExecutor();
+            try {
+                assertThat(other.submit(() -> {
+                    try (var reader = ReplicaRoutingDataSource.beginCaller(null, at -> { })) {
+                        return whoami(ds, true);
+                    }
+                }).get()).isEqualTo("replica");
+                // as does work done for no caller, and writes made for none keep no one off it
+                assertThat(other.submit(() -> {
+                    tx.executeWithoutResult(status -> jdbc.update("UPDATE whoami SET name = 'primary, ingested'"));
+                    return whoami(ds, true);
+                }).get()).isEqualTo("replica");
+            } finally {
+                other.shutdown();
+            }
+
+            clock.advance(Duration.ofMinutes(1));
+            assertThat(whoami(ds, true)).isEqualTo("replica");
+        }
+    }
+
+    /**
+     * The write time travels with the client, so its next request reads
+     * its write on another instance, and other clients are not affected.
+     */
+    @Test
+    void lagFilterCarriesTheCallersLastWriteAcrossInstances() throws Exception {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        ReplicaRoutingDataSource instanceA = new ReplicaRoutingDataSource(primary, replica, Duration.ofMinutes(1));
+        ReplicaRoutingDataSource instanceB = new ReplicaRoutingDataSource(primary, replica, Duration.ofMinutes(1));
+        DataSource dsA = instanceA.lazy();
+        DataSource dsB = instanceB.lazy();
+
+        MockHttpServletResponse wrote = serve(instanceA, new MockHttpServletRequest(), () -> {
+            new TransactionTemplate(new DataSourceTransactionManager(dsA)).executeWithoutResult(status ->
+                    new JdbcTemplate(dsA).update("UPDATE whoami SET name = 'primary, updated'"));
+            return null;
+        });
+        Cookie lastWrite = wrote.getCookie(ReplicaLagFilter.COOKIE);
+        assertThat(lastWrite).isNotNull();
+
+        MockHttpServletRequest sameClient = new MockHttpServletRequest();
+        sameClient.setCookies(lastWrite);
+        List<String> reads = new ArrayList<>();
+        serve(instanceB, sameClient, () -> reads.add(whoami(dsB, true)));
+        serve(instanceB, new MockHttpServletRequest(), () -> reads.add(whoami(dsB, true)));
+
+        assertThat(reads).containsExactly("primary, updated", "replica");
+    }
+
+    private static MockHttpServletResponse serve(ReplicaRoutingDataSource routing, MockHttpServletRequest request,
+                                                 Supplier<?> handler) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ReplicaLagFilter(routing).doFilter(request, response, (req, res) -> handler.get());
+        return response;
+    }
+
+    @Test
+    void readsMadeOnPrimarySkipTheReplica() {
+        DataSource ds = new ReplicaRoutingDataSource(database("primary"), database("replica"), Duration.ZERO).lazy();
+
+        assertThat(ReplicaRoutingDataSource.onPrimary(() -> whoami(ds, true))).isEqualTo("primary");
+        assertThat(ReplicaRoutingDataSource.onPrimary(() -> ReplicaRoutingDataSource.onPrimary(() -> whoami(ds, true))))
+                .isEqualTo("primary");
+        assertThat(whoami(ds, true)).isEqualTo("replica");
+    }
+
+    @Test
+    void configRoutesTheApplicationDataSource() {
+        String primaryUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        String replicaUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        seed(primaryUrl, "primary");
+        seed(replicaUrl, "replica");
+
+        contextRunner()
+                .withPropertyValues("spring.datasource.url=" + primaryUrl,
+                        "spring.datasource.username=sa",
+                        "app.datasource.replica.url=" + replicaUrl,
+                        "app.datasource.replica.max-lag=0s",
+                        "app.datasource.replica.hikari.maximum-pool-size=2")
+                .run(context -> {
+                    DataSource ds = context.getBean(DataSource.class);
+                    assertThat(ds).isInstanceOf(LazyConnectionDataSourceProxy.class);
+                    assertThat(context).hasSingleBean(ReplicaLagFilter.class);
+                    assertThat(whoami(ds, true)).isEqualTo("replica");
+                    assertThat(whoami(ds, false)).isEqualTo("primary");
+                });
+
+        // without a replica URL the single Boot data source is left alone
+        contextRunner()
+                .withPropertyValues("spring.datasource.url=" + primaryUrl, "spring.datasource.username=sa")
+                .run(context -> assertThat(context).doesNotHaveBean(ReplicaRoutingDataSource.class));
+    }
+
+    /** Boot's auto-configured data source plus the config, with Boot's conversions for @Value. */
+    private static ApplicationContextRunner contextRunner() {
+        return new ApplicationContextRunner(() -> {
+            AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+            context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+            return context;
+        })
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(ReadReplicaConfig.class);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private static String whoami(DataSource ds, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(ds).queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private static DataSource database(String name) {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        seed(url, name);
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL(url);
+        ds.setUser("sa");
+        return ds;
+    }
+
+    private static void seed(String url, String name) {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL(url);
+        ds.setUser("sa");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(64))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+    }
+}
@@ -1,19 +1,31 @@
 package us.dtaylor.mcpserver.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.ContextConfiguration;
 import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.dto.AssetView;
+import us.dtaylor.mcpserver.dto.PageCursor;
 import us.dtaylor.mcpserver.repository.AssetRepository;
 
+import java.lang.management.ManagementFactory;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -25,9 +37,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 @ContextConfiguration(classes = {AssetServiceTest.Config.class})
 class AssetServiceTest {
 
+    private static final Logger log = LoggerFactory.getLogger(AssetServiceTest.class);
+
     @Autowired
     private AssetRepository assetRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private AssetService assetService;
 
@@ -68,6 +85,20 @@ class AssetServiceTest {
         assertThat(missing).isEmpty();
     }
 
+    @Test
+    void testGeneratedIdsAreTimeOrdered() {
+        assertThat(asset1.getId().version()).isEqualTo(7);
+        assertThat(asset2.getId().toString()).isGreaterThan(asset1.getId().toString());
+    }
+
+    @Test
+    void testIsCanonicalUuid() {
+        assertThat(AssetService.isCanonicalUuid(asset1.getId().toString())).isTrue();
+        assertThat(AssetService.isCanonicalUuid("QR123")).isFalse();
+        assertThat(AssetService.isCanonicalUuid("zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz")).isFalse();
+        assertThat(AssetService.isCanonicalUuid(null)).isFalse();
+    }
+
     @Test
     void testSearchBlankReturnsAll() {
         var page = assetService.search("", 0, 10);
@@ -78,7 +109,86 @@ class AssetServiceTest {
     void testSearchFiltersByName() {
         var page = assetService.search("pump", 0, 10);
         assertThat(page.getTotalElements()).isEqualTo(1);
-        assertThat(page.getContent().get(0).getName()).isEqualTo("Pump Station");
+        assertThat(page.getContent().get(0).name()).isEqualTo("Pump Station");
+    }
+
+    @Test
+    void testSearchAfterWalksPagesByNameThenId() {
+        var first = assetService.searchAfter("", null, 1);
+        assertThat(first.getContent()).extracting(AssetView::id).containsExactly(asset1.getId());
+        assertThat(first.hasNext()).isTrue();
+
+        var cursor = PageCursor.decode(new PageCursor(asset1.getName(), asset1.getId()).encode());
+        var second = assetService.searchAfter("", cursor, 1);
+        assertThat(second.getContent()).extracting(AssetView::id).containsExactly(asset2.getId());
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void testSearchAfterAppliesFilter() {
+        var page = assetService.searchAfter("brand b", null, 10);
+        assertThat(page.getContent()).extracting(AssetView::id).containsExactly(asset2.getId());
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void testSearchSliceSkipsCount() {
+        var slice = assetService.searchSlice("", 0, 1);
+        assertThat(slice.getContent()).hasSize(1);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(slice).isNotInstanceOf(Page.class);
+    }
+
+    /**
+     * Bytes allocated and time per call for a 200-row page read as
+     * entities versus as {@link AssetView} projections.  Run with
+     * {@code -Dbench=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void benchmarkEntityVersusViewPage() {
+        for (int i = 0; i < 200; i++) {
+            Asset asset = new Asset();
+            asset.setQrCode("QR-BENCH-" + i);
+            asset.setName("Bench " + i);
+            asset.setModel("M-" + i);
+            asset.setBrand("Brand C");
+            asset.setInstalledAt(Instant.now());
+            assetRepository.save(asset);
+        }
+        entityManager.flush();
+        PageRequest page = PageRequest.of(0, 200, Sort.by("name"));
+
+        long[] entities = measure(() -> assetRepository.searchSlice("bench", page));
+        long[] views = measure(() -> assetRepository.searchViewSlice("bench", page));
+
+        log.info("200-row page: entities {} KB/{} us, views {} KB/{} us",
+                entities[0] / 1024, entities[1] / 1000, views[0] / 1024, views[1] / 1000);
+        assertThat(views[0]).isLessThan(entities[0]);
+    }
+
+    /** Average allocated bytes and nanoseconds per call, after warm-up. */
+    private long[] measure(Supplier<Slice<?>> read) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        int rounds = 500;
+        for (int i = 0; i < rounds; i++) {
+            assertThat(read.get().getNumberOfElements()).isEqualTo(200);
+            entityManager.clear();
+        }
+        long bytes = 0;
+        long nanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            long b = threads.getThreadAllocatedBytes(tid);
+            long t = System.nanoTime();
+            read.get();
+            // include the flush-time dirty check that a managed page costs
+            entityManager.flush();
+            nanos += System.nanoTime() - t;
+            bytes += threads.getThreadAllocatedBytes(tid) - b;
+            entityManager.clear();
+        }
+        return new long[]{bytes / rounds, nanos / rounds};
     }
 
     /**
@@ -0,0 +1,154 @@
+package us.dtaylor.mcpserver.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.repository.AssetWorkSummaryRepository;
+import us.dtaylor.mcpserver.repository.WorkLogRepository;
+import us.dtaylor.mcpserver.util.UuidV7;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AssetWorkSummaryService}.  Hibernate statistics are
+ * enabled so that the read tests can count the SQL statements issued.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = {AssetWorkSummaryServiceTest.Config.class})
+class AssetWorkSummaryServiceTest {
+
+    @Autowired
+    private AssetWorkSummaryService summaries;
+    @Autowired
+    private WorkLogService workLogService;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void createUpdatesSummaryInSameTransaction() {
+        Asset asset = newAsset("QR-SUM");
+        assertThat(summaries.get(asset.getId()).getJobCount()).isZero();
+
+        workLogService.create(new WorkLogService.CreateWorkLogRequest(asset.getId(), "Belt", "Sam", 30, null));
+        workLogService.create(new WorkLogService.CreateWorkLogRequest(asset.getId(), "Oil", "Alex", null, null));
+        entityManager.clear();
+
+        AssetWorkSummary summary = summaries.get(asset.getId());
+        assertThat(summary.getJobCount()).isEqualTo(2);
+        assertThat(summary.getTotalMinutes()).isEqualTo(30);
+        assertThat(summary.getLastTechnician()).isEqualTo("Alex");
+        assertThat(summary.getLastWorkedAt()).isNotNull();
+    }
+
+    @Test
+    void readIsOneStatementRegardlessOfHistoryLength() {
+        Asset quiet = newAsset("QR-QUIET");
+        Asset busy = newAsset("QR-BUSY");
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        insertLogs(quiet, 1, base);
+        insertLogs(busy, 5_000, base);
+        assertThat(summaries.backfill()).isEqualTo(2);
+
+        assertThat(statementsToRead(quiet)).isEqualTo(1);
+        assertThat(statementsToRead(busy)).isEqualTo(1);
+
+        entityManager.clear();
+        AssetWorkSummary summary = summaries.get(busy.getId());
+        assertThat(summary.getJobCount()).isEqualTo(5_000);
+        assertThat(summary.getTotalMinutes()).isEqualTo(5_000L * 4999 / 2);
+        assertThat(summary.getLastTechnician()).isEqualTo("tech-4999");
+        assertThat(summary.getLastWorkedAt()).isEqualTo(base.plusSeconds(4_999));
+        // backfill skips assets that already have a summary
+        assertThat(summaries.backfill()).isZero();
+    }
+
+    @Test
+    void backfillRunsOncePerDatabase() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // done at startup, on the empty database
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM data_backfill", Integer.class)).isEqualTo(1);
+        Asset asset = newAsset("QR-ONCE");
+        insertLogs(asset, 3, Instant.parse("2024-01-01T00:00:00Z"));
+        assertThat(summaries.backfillOnce()).isZero();
+
+        jdbc.update("DELETE FROM data_backfill");
+        assertThat(summaries.backfillOnce()).isEqualTo(1);
+        assertThat(summaries.backfillOnce()).isZero();
+        entityManager.clear();
+        assertThat(summaries.get(asset.getId()).getJobCount()).isEqualTo(3);
+    }
+
+    private long statementsToRead(Asset asset) {
+        entityManager.clear();
+        Statistics stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        summaries.get(asset.getId());
+        return stats.getPrepareStatementCount();
+    }
+
+    private void insertLogs(Asset asset, int count, Instant base) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.batchUpdate("""
+                        INSERT INTO work_log (id, asset_id, technician, action, duration_minutes, created_at)
+                        VALUES (?, ?, ?, 'Visit', ?, ?)""",
+                IntStream.range(0, count).boxed().toList(), 1_000, (ps, i) -> {
+                    ps.setObject(1, UuidV7.next());
+                    ps.setObject(2, asset.getId());
+                    ps.setString(3, "tech-" + i);
+                    ps.setInt(4, i);
+                    ps.setTimestamp(5, Timestamp.from(base.plusSeconds(i)));
+                });
+    }
+
+    private Asset newAsset(String qrCode) {
+        Asset asset = new Asset();
+        asset.setQrCode(qrCode);
+        asset.setName("Chiller");
+        asset.setInstalledAt(Instant.now());
+        assetRepository.saveAndFlush(asset);
+        return asset;
+    }
+
+    @EntityScan("us.dtaylor.mcpserver.domain")
+    @EnableJpaRepositories("us.dtaylor.mcpserver.repository")
+    static class Config {
+
+        @Bean
+        AssetService assetService(AssetRepository assetRepository) {
+            return new AssetService(assetRepository);
+        }
+
+        @Bean
+        AssetWorkSummaryService assetWorkSummaryService(AssetWorkSummaryRepository repo, DataSource dataSource,
+                                                        PlatformTransactionManager transactionManager) {
+            return new AssetWorkSummaryService(repo, dataSource, transactionManager);
+        }
+
+        @Bean
+        WorkLogService workLogService(WorkLogRepository workLogRepository, AssetService assetService,
+                                      AssetWorkSummaryService summaries) {
+            return new WorkLogService(workLogRepository, assetService, summaries);
+        }
+    }
+}
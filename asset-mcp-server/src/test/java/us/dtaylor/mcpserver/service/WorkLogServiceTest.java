@@ -7,15 +7,24 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 import us.dtaylor.mcpserver.domain.Asset;
 import us.dtaylor.mcpserver.domain.WorkLog;
+import us.dtaylor.mcpserver.dto.WorkLogView;
+import us.dtaylor.mcpserver.dto.PageCursor;
 import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.repository.AssetWorkSummaryRepository;
 import us.dtaylor.mcpserver.repository.WorkLogRepository;
 
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
 
@@ -36,6 +45,8 @@ public class WorkLogServiceTest {
     private WorkLogService workLogService;
     @Autowired
     private AssetRepository assetRepository;
+    @Autowired
+    private WorkLogRepository workLogRepository;
 
     private Asset asset;
 
@@ -58,10 +69,10 @@ public class WorkLogServiceTest {
                 asset.getId(), "Lubricated bearings", "Alex", 10, null);
         WorkLog wl2 = workLogService.create(req2);
         // Should return in reverse chronological order
-        List<WorkLog> logs = workLogService.listForAsset(asset.getId());
+        List<WorkLogView> logs = workLogService.listForAsset(asset.getId());
         assertEquals(2, logs.size());
-        assertThat(logs.get(0).getId()).isEqualTo(wl2.getId());
-        assertThat(logs.get(1).getId()).isEqualTo(wl1.getId());
+        assertThat(logs.get(0).id()).isEqualTo(wl2.getId());
+        assertThat(logs.get(1).id()).isEqualTo(wl1.getId());
     }
 
     @Test
@@ -73,6 +84,93 @@ public class WorkLogServiceTest {
         assertThat(ex.getStatusCode()).isEqualTo(org.springframework.http.HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void testHistoryPagesNewestFirstAndSyncsSince() {
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        // two logs share a timestamp so the id tie-breaker is exercised
+        int[] offsets = {0, 1, 2, 2, 3};
+        for (int i = 0; i < offsets.length; i++) {
+            WorkLog wl = new WorkLog();
+            wl.setAsset(asset);
+            wl.setAction("Visit " + i);
+            wl.setCreatedAt(base.plusSeconds(offsets[i]));
+            workLogRepository.save(wl);
+        }
+
+        Slice<WorkLogView> first = workLogService.history(asset.getId(), null, null, 2);
+        assertThat(first.hasNext()).isTrue();
+        Slice<WorkLogView> second = workLogService.history(asset.getId(), null,
+                WorkLogService.cursorOf(first.getContent().get(1)), 2);
+        Slice<WorkLogView> third = workLogService.history(asset.getId(), null,
+                WorkLogService.cursorOf(second.getContent().get(1)), 2);
+        assertThat(third.hasNext()).isFalse();
+
+        List<WorkLogView> all = workLogService.listForAsset(asset.getId());
+        assertThat(List.of(first, second, third))
+                .flatMap(Slice::getContent)
+                .extracting(WorkLogView::id)
+                .containsExactlyElementsOf(all.stream().map(WorkLogView::id).toList())
+                .doesNotHaveDuplicates();
+
+        Slice<WorkLogView> sinceSync = workLogService.history(asset.getId(), base.plusSeconds(1), null, 50);
+        assertThat(sinceSync.getContent()).extracting(WorkLogView::action)
+                .containsExactlyInAnyOrder("Visit 2", "Visit 3", "Visit 4");
+    }
+
+    /**
+     * Logs sharing the cursor's timestamp are not skipped, and a log
+     * committed after a sync with an earlier {@code createdAt}, as the
+     * write-behind ingestor does, arrives with the next sync because the
+     * cursor only moves past settled logs.
+     */
+    @Test
+    void testSyncCursorKeepsTiesAndLateCommits() {
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        WorkLog a = log("A", base);
+        WorkLog b = log("B", base);
+        log("C", base.plusSeconds(10));
+        log("D", base.plusSeconds(20));
+        WorkLogService service = new WorkLogService(workLogRepository, null, null,
+                Clock.fixed(base.plusSeconds(40), ZoneOffset.UTC), Duration.ofSeconds(30));
+
+        // history is newest first, so the second of the tied pair sorts first
+        List<WorkLogView> tied = service.sync(asset.getId(), null, null, 50).getContent().subList(2, 4);
+        assertThat(service.sync(asset.getId(), WorkLogService.cursorOf(tied.get(1)), null, 50).getContent())
+                .extracting(WorkLogView::action)
+                .containsExactly("D", "C", tied.get(0).action());
+        assertThat(tied).extracting(WorkLogView::id).containsExactlyInAnyOrder(a.getId(), b.getId());
+
+        PageCursor first = service.syncCursor(asset.getId(), null);
+        assertThat(service.sync(asset.getId(), null, null, 50).getContent()).hasSize(4);
+        assertThat(first.key()).isEqualTo(base.plusSeconds(10).toString());
+
+        log("E", base.plusSeconds(15));
+        service = new WorkLogService(workLogRepository, null, null,
+                Clock.fixed(base.plusSeconds(70), ZoneOffset.UTC), Duration.ofSeconds(30));
+        PageCursor second = service.syncCursor(asset.getId(), first);
+        assertThat(service.sync(asset.getId(), first, null, 50).getContent())
+                .extracting(WorkLogView::action)
+                .containsExactly("D", "E");
+        assertThat(second.key()).isEqualTo(base.plusSeconds(20).toString());
+        assertThat(service.sync(asset.getId(), second, null, 50).getContent()).isEmpty();
+        assertThat(service.syncCursor(asset.getId(), second)).isEqualTo(second);
+    }
+
+    private WorkLog log(String action, Instant createdAt) {
+        WorkLog wl = new WorkLog();
+        wl.setAsset(asset);
+        wl.setAction(action);
+        wl.setCreatedAt(createdAt);
+        return workLogRepository.save(wl);
+    }
+
+    @Test
+    void testHistoryRejectsForeignCursor() {
+        PageCursor bogus = new PageCursor("not-a-timestamp", UUID.randomUUID());
+        assertThrows(IllegalArgumentException.class,
+                () -> workLogService.history(asset.getId(), null, bogus, 10));
+    }
+
     /**
      * Minimal configuration supplying the service under test. Uses real
      * repositories and services.
@@ -88,8 +186,15 @@ public class WorkLogServiceTest {
         }
 
         @Bean
-        WorkLogService workLogService(WorkLogRepository workLogRepository, AssetService assetService) {
-            return new WorkLogService(workLogRepository, assetService);
+        AssetWorkSummaryService assetWorkSummaryService(AssetWorkSummaryRepository repo, DataSource dataSource,
+                                                        PlatformTransactionManager transactionManager) {
+            return new AssetWorkSummaryService(repo, dataSource, transactionManager);
+        }
+
+        @Bean
+        WorkLogService workLogService(WorkLogRepository workLogRepository, AssetService assetService,
+                                      AssetWorkSummaryService summaries) {
+            return new WorkLogService(workLogRepository, assetService, summaries);
         }
     }
 }
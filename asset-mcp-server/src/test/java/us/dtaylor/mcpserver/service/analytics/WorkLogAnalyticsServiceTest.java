@@ -0,0 +1,188 @@
+package us.dtaylor.mcpserver.service.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.dto.UtilizationReport;
+import us.dtaylor.mcpserver.dto.UtilizationReport.AssetTypeUsage;
+import us.dtaylor.mcpserver.dto.UtilizationReport.TechnicianUsage;
+import us.dtaylor.mcpserver.dto.UtilizationReport.WeeklyUsage;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.util.UuidV7;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link WorkLogAnalyticsService} with a fixed clock.  Runs
+ * outside the usual test transaction because the rollups are read on the
+ * service's own threads.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ContextConfiguration(classes = {WorkLogAnalyticsServiceTest.Config.class})
+class WorkLogAnalyticsServiceTest {
+
+    // a Wednesday
+    private static final Instant NOW = Instant.parse("2025-03-12T10:00:00Z");
+
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private WorkLogAnalyticsService analytics;
+    private Asset pump;
+    private Asset chiller;
+
+    @BeforeEach
+    void setup() {
+        analytics = new WorkLogAnalyticsService(dataSource, Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofMinutes(5), 3, 100, true);
+        pump = newAsset("QR-PUMP", "Pump");
+        chiller = newAsset("QR-CHILLER", "Chiller");
+        insertLog(pump, "Sam", 30, "2025-03-03T08:00:00Z");
+        insertLog(chiller, "Alex", 60, "2025-03-10T13:00:00Z");
+        insertLog(chiller, "Sam", 15, "2025-03-11T23:59:00Z");
+        insertLog(pump, "Sam", 45, "2025-03-12T09:00:00Z");
+        insertLog(pump, "Alex", null, "2025-03-12T01:00:00Z");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        analytics.shutdown();
+        assetRepository.deleteAll();
+    }
+
+    /**
+     * A cold report over a long range holds no more connections at once
+     * than there are live partitions, with virtual threads too.
+     */
+    @Test
+    void coldReportIsBoundedByLivePartitions() {
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger mostOpen = new AtomicInteger();
+        DataSource counting = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection con = super.getConnection();
+                mostOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("close")) {
+                                open.decrementAndGet();
+                            } else if (method.getName().equals("prepareStatement")) {
+                                // long enough for the day queries to overlap
+                                Thread.sleep(5);
+                            }
+                            try {
+                                return method.invoke(con, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                        });
+            }
+        };
+        WorkLogAnalyticsService cold = new WorkLogAnalyticsService(counting, Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofMinutes(5), 3, 400, true);
+        try {
+            UtilizationReport report = cold.utilization(LocalDate.parse("2024-06-01"), LocalDate.parse("2025-03-13"));
+
+            assertThat(report.jobs()).isEqualTo(5);
+            assertThat(mostOpen.get()).isBetween(1, 3);
+        } finally {
+            cold.shutdown();
+        }
+    }
+
+    @Test
+    void rollsUpByTechnicianAssetTypeAndWeek() {
+        UtilizationReport report = analytics.utilization(LocalDate.parse("2025-03-03"), LocalDate.parse("2025-03-13"));
+
+        assertThat(report.jobs()).isEqualTo(5);
+        assertThat(report.minutes()).isEqualTo(150);
+        assertThat(report.technicians())
+                .extracting(TechnicianUsage::technician, TechnicianUsage::jobs, TechnicianUsage::minutes)
+                .containsExactly(tuple("Sam", 3L, 90L), tuple("Alex", 2L, 60L));
+        // equal minutes, so more jobs first
+        assertThat(report.assetTypes())
+                .extracting(AssetTypeUsage::assetType, AssetTypeUsage::jobs, AssetTypeUsage::minutes)
+                .containsExactly(tuple("Pump", 3L, 75L), tuple("Chiller", 2L, 75L));
+        assertThat(report.weekly())
+                .extracting(WeeklyUsage::weekStart, WeeklyUsage::jobs, WeeklyUsage::minutes)
+                .containsExactly(tuple(LocalDate.parse("2025-03-03"), 1L, 30L),
+                        tuple(LocalDate.parse("2025-03-10"), 4L, 120L));
+    }
+
+    @Test
+    void closedDaysAreCachedWhileTodayIsLive() {
+        LocalDate from = LocalDate.parse("2025-03-10");
+        LocalDate to = LocalDate.parse("2025-03-13");
+        analytics.utilization(from, to);
+        assertThat(analytics.cachedDays()).isEqualTo(2);
+
+        // a row slipped into a closed day is not seen: that day is never re-read
+        insertLog(chiller, "Sam", 1000, "2025-03-11T12:00:00Z");
+        // today is read on every request
+        insertLog(pump, "Alex", 5, "2025-03-12T09:30:00Z");
+
+        UtilizationReport report = analytics.utilization(from, to);
+        assertThat(report.jobs()).isEqualTo(5);
+        assertThat(report.minutes()).isEqualTo(125);
+        assertThat(analytics.cachedDays()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsBadRanges() {
+        LocalDate day = LocalDate.parse("2025-03-10");
+        assertThrows(IllegalArgumentException.class, () -> analytics.utilization(day, day));
+        assertThrows(IllegalArgumentException.class, () -> analytics.utilization(day, day.plusDays(400)));
+    }
+
+    private Asset newAsset(String qrCode, String assetType) {
+        Asset asset = new Asset();
+        asset.setQrCode(qrCode);
+        asset.setName(assetType);
+        asset.setAssetType(assetType);
+        asset.setInstalledAt(NOW);
+        return assetRepository.save(asset);
+    }
+
+    private void insertLog(Asset asset, String technician, Integer minutes, String createdAt) {
+        new JdbcTemplate(dataSource).update("""
+                        INSERT INTO work_log (id, asset_id, technician, action, duration_minutes, created_at)
+                        VALUES (?, ?, ?, 'Service', ?, ?)""",
+                UuidV7.next(), asset.getId(), technician, minutes, Timestamp.from(Instant.parse(createdAt)));
+    }
+
+    @Configuration
+    @EntityScan("us.dtaylor.mcpserver.domain")
+    @EnableJpaRepositories("us.dtaylor.mcpserver.repository")
+    static class Config {
+    }
+}
@@ -0,0 +1,162 @@
+package us.dtaylor.mcpserver.service.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetChangedEvent;
+import us.dtaylor.mcpserver.domain.AssetsImportedEvent;
+import us.dtaylor.mcpserver.dto.AssetImportReport;
+import us.dtaylor.mcpserver.dto.AssetImportReport.Row;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.service.AssetCreationService;
+import us.dtaylor.mcpserver.service.QrCodeService;
+import us.dtaylor.mcpserver.service.export.ExportFormat;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AssetImportService} against the embedded database.
+ * Runs outside the usual test transaction because the service commits
+ * each chunk itself.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ContextConfiguration(classes = {AssetImportServiceTest.Config.class})
+class AssetImportServiceTest {
+
+    @Autowired
+    private AssetImportService importService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private ImportEvents events;
+
+    @AfterEach
+    void cleanUp() {
+        assetRepository.deleteAll();
+        events.imported.clear();
+        events.changed.clear();
+    }
+
+    @Test
+    void importsNdjsonAndReportsEachRow() throws Exception {
+        Asset existing = new Asset();
+        existing.setQrCode("QR-TAKEN");
+        existing.setName("Existing");
+        existing.setInstalledAt(Instant.now());
+        assetRepository.save(existing);
+
+        String body = """
+                {"qrCode":"QR-A","name":"Boiler","manualPath":"file:/m/a.txt"}
+                {"name":"Generated","manual_path":"file:/m/b.txt","installed_at":"2024-05-01T00:00:00Z"}
+                {"qrCode":"QR-TAKEN","name":"Clash","manualPath":"file:/m/c.txt"}
+                {"qrCode":"QR-D","manualPath":"file:/m/d.txt"}
+                not json
+                {"qrCode":"QR-A","name":"Again","manualPath":"file:/m/e.txt"}
+                """;
+
+        AssetImportReport report = importService.importAssets(ExportFormat.NDJSON, stream(body));
+
+        assertThat(report.total()).isEqualTo(6);
+        assertThat(report.created()).isEqualTo(2);
+        assertThat(report.rows()).extracting(Row::row).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(report.rows()).extracting(Row::status)
+                .containsExactly("CREATED", "CREATED", "FAILED", "FAILED", "FAILED", "FAILED");
+        assertThat(report.rows().get(2).error()).contains("already exists");
+        assertThat(report.rows().get(3).error()).contains("name");
+        assertThat(report.rows().get(4).error()).startsWith("Malformed JSON");
+
+        Asset generated = assetRepository.findByQrCode(report.rows().get(1).qrCode()).orElseThrow();
+        assertThat(generated.getName()).isEqualTo("Generated");
+        assertThat(generated.getInstalledAt()).isEqualTo(Instant.parse("2024-05-01T00:00:00Z"));
+        assertThat(generated.getQrImagePath()).isEqualTo("http://qr.test/" + generated.getQrCode() + ".png");
+        assertThat(assetRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void importsCsvAcrossSeveralBatches() throws Exception {
+        StringBuilder csv = new StringBuilder("qr_code,name,manual_path,brand\r\n");
+        for (int i = 0; i < 7; i++) {
+            csv.append("QR-").append(i).append(",\"Pump, bay ").append(i).append("\",file:/m.txt,Acme\r\n");
+        }
+
+        AssetImportReport report = importService.importAssets(ExportFormat.CSV, stream(csv.toString()));
+
+        assertThat(report.created()).isEqualTo(7);
+        assertThat(assetRepository.findByQrCode("QR-6")).get()
+                .extracting(Asset::getName, Asset::getBrand)
+                .containsExactly("Pump, bay 6", "Acme");
+        // one event per committed chunk of three, none per row
+        assertThat(events.imported).extracting(event -> event.assets().size()).containsExactly(3, 3, 1);
+        assertThat(events.changed).isEmpty();
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static class ImportEvents {
+        final List<AssetsImportedEvent> imported = new CopyOnWriteArrayList<>();
+        final List<AssetChangedEvent> changed = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onImported(AssetsImportedEvent event) {
+            imported.add(event);
+        }
+
+        @EventListener
+        void onChanged(AssetChangedEvent event) {
+            changed.add(event);
+        }
+    }
+
+    @Configuration
+    @EntityScan("us.dtaylor.mcpserver.domain")
+    @EnableJpaRepositories("us.dtaylor.mcpserver.repository")
+    static class Config {
+        @Bean
+        ImportEvents importEvents() {
+            return new ImportEvents();
+        }
+
+        @Bean
+        AssetCreationService assetCreationService(AssetRepository repo) {
+            return new AssetCreationService(repo, new QrCodeService(),
+                    (file, name) -> "http://qr.test/" + name, "http://scan.test");
+        }
+
+        @Bean
+        AssetImportService assetImportService(AssetCreationService creationService,
+                                              ApplicationEventPublisher events,
+                                              DataSource dataSource,
+                                              PlatformTransactionManager transactionManager) {
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+            // small batches so that a few rows span several chunks
+            return new AssetImportService(creationService, events, objectMapper,
+                    dataSource, transactionManager, 3, 2);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package us.dtaylor.mcpserver.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.dtaylor.mcpserver.domain.Asset;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AssetLookupCache}.
+ */
+class AssetLookupCacheTest {
+
+    private AssetLookupCache cache;
+    private Asset asset;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AssetLookupCache(100, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        asset = new Asset();
+        asset.setId(UUID.randomUUID());
+        asset.setQrCode("QR-1");
+        asset.setName("Chiller");
+        loads = new AtomicInteger();
+    }
+
+    private Optional<Asset> load(Object key) {
+        loads.incrementAndGet();
+        return Optional.of(Asset.copyOf(asset));
+    }
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        assertThat(cache.getById(asset.getId(), this::load)).isPresent();
+        assertThat(cache.getById(asset.getId(), this::load)).get()
+                .extracting(Asset::getName).isEqualTo("Chiller");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void qrLookupPopulatesIdEntryAndViceVersa() {
+        cache.getByQr("QR-1", this::load);
+        cache.getById(asset.getId(), this::load);
+        cache.getByQr("QR-1", this::load);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void callersReceiveCopies() {
+        cache.getById(asset.getId(), this::load).orElseThrow().setName("mutated");
+        assertThat(cache.getById(asset.getId(), this::load)).get()
+                .extracting(Asset::getName).isEqualTo("Chiller");
+    }
+
+    @Test
+    void evictForcesReload() {
+        cache.getById(asset.getId(), this::load);
+        asset.setName("Chiller 2");
+        cache.evict(asset.getId(), asset.getQrCode());
+        assertThat(cache.getById(asset.getId(), this::load)).get()
+                .extracting(Asset::getName).isEqualTo("Chiller 2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void relabelledAssetDoesNotAnswerForOldCode() {
+        cache.getByQr("QR-1", this::load);
+        asset.setQrCode("QR-2");
+        // only the new code is known to the writer
+        cache.evict(asset.getId(), "QR-2");
+        cache.getById(asset.getId(), this::load);
+
+        Optional<Asset> old = cache.getByQr("QR-1", qr -> Optional.empty());
+        assertThat(old).isEmpty();
+    }
+
+    @Test
+    void loadRacingAnEvictionIsNotCached() {
+        cache.getById(asset.getId(), id -> {
+            Optional<Asset> stale = load(id);
+            cache.evict(asset.getId(), asset.getQrCode()); // commit lands mid-load
+            return stale;
+        });
+        cache.getById(asset.getId(), this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void unknownCodeIsRememberedUntilAnAssetTakesIt() {
+        AtomicInteger misses = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.getByQr("DAMAGED", qr -> {
+                misses.incrementAndGet();
+                return Optional.empty();
+            })).isEmpty();
+        }
+        assertThat(misses).hasValue(1);
+        assertThat(cache.negativeHits()).isEqualTo(4);
+
+        asset.setQrCode("DAMAGED");
+        cache.evict(asset.getId(), "DAMAGED");
+        assertThat(cache.getByQr("DAMAGED", this::load)).isPresent();
+    }
+
+    @Test
+    void concurrentMissesShareOneQuery() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<Asset>> first = CompletableFuture.supplyAsync(() ->
+                cache.getByQr("QR-1", qr -> {
+                    loading.countDown();
+                    await(release);
+                    return load(qr);
+                }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Optional<Asset>> second = CompletableFuture.supplyAsync(() ->
+                cache.getByQr("QR-1", this::load));
+        while (cache.coalescedLoads() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(first.get()).isNotSameAs(second.get());
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        AssetLookupCache disabled = AssetLookupCache.disabled();
+        disabled.getById(asset.getId(), this::load);
+        disabled.getById(asset.getId(), this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
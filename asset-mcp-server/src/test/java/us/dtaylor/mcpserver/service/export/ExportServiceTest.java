@@ -0,0 +1,140 @@
+package us.dtaylor.mcpserver.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ExportService} against the embedded database.  Whether
+ * the driver streams a result or buffers all of it is decided by the
+ * statement the service runs: PostgreSQL only uses a server-side cursor
+ * for a forward-only query with a fetch size, inside a transaction
+ * (autocommit off).  The data source here records those settings as each
+ * query starts.  Runs outside the usual test transaction because the
+ * service starts its own.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ContextConfiguration(classes = {ExportServiceTest.Config.class})
+class ExportServiceTest {
+
+    private static final int ROWS = 20_000;
+    private static final int FETCH_SIZE = 250;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private AssetRepository assetRepository;
+
+    private final List<QueryRun> queries = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        new JdbcTemplate(dataSource).update("DELETE FROM work_log");
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    void exportsThroughAStreamingCursor() {
+        Asset pump = new Asset();
+        pump.setQrCode("QR-EXPORT");
+        pump.setName("Pump");
+        pump.setInstalledAt(Instant.now());
+        assetRepository.save(pump);
+        new JdbcTemplate(dataSource).update("""
+                INSERT INTO work_log (id, asset_id, technician, action, duration_minutes, created_at)
+                SELECT RANDOM_UUID(), ?, 'Sam', 'Visit ' || X, 10,
+                       DATEADD(SECOND, X, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00Z')
+                FROM SYSTEM_RANGE(1, ?)""", pump.getId(), ROWS);
+        DataSource recording = recording(dataSource);
+        ExportService export = new ExportService(recording, new DataSourceTransactionManager(recording),
+                new ObjectMapper(), FETCH_SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = export.exportWorkLogs(Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2025-01-01T00:00:00Z"),
+                ExportFormat.NDJSON, out);
+
+        assertThat(rows).isEqualTo(ROWS);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(ROWS).first().asString()
+                .contains("\"action\":\"Visit 1\"");
+        assertThat(queries).containsExactly(new QueryRun(FETCH_SIZE, ResultSet.TYPE_FORWARD_ONLY, false));
+    }
+
+    /** The settings a query ran with. */
+    private record QueryRun(int fetchSize, int resultSetType, boolean autoCommit) {
+    }
+
+    /** Records the settings of every query run through its connections. */
+    private DataSource recording(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection con = super.getConnection();
+                return proxy(Connection.class, con, (method, result) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        PreparedStatement ps = (PreparedStatement) result;
+                        return proxy(PreparedStatement.class, ps, (psMethod, psResult) -> {
+                            if (psMethod.getName().equals("executeQuery")) {
+                                queries.add(new QueryRun(ps.getFetchSize(), ps.getResultSetType(),
+                                        con.getAutoCommit()));
+                            }
+                            return psResult;
+                        });
+                    }
+                    return result;
+                });
+            }
+        };
+    }
+
+    private interface AfterCall {
+        Object apply(Method method, Object result) throws SQLException;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, AfterCall after) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            return after.apply(method, result);
+        }));
+    }
+
+    @Configuration
+    @EntityScan("us.dtaylor.mcpserver.domain")
+    @EnableJpaRepositories("us.dtaylor.mcpserver.repository")
+    static class Config {
+    }
+}
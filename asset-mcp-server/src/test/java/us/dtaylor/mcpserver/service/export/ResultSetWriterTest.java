@@ -0,0 +1,145 @@
+package us.dtaylor.mcpserver.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ResultSetWriter}.  Rows come from a generated
+ * {@link ResultSet} so that very large exports can be checked without a
+ * database.
+ */
+class ResultSetWriterTest {
+
+    private static final String[] COLUMNS = {"ID", "NAME", "DURATION_MINUTES", "CREATED_AT"};
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesNdjson() throws Exception {
+        String out = export(ExportFormat.NDJSON, generated(2, null));
+        assertThat(out.split("\n")).containsExactly(
+                "{\"id\":\"00000000-0000-0000-0000-000000000000\",\"name\":\"Asset 0\",\"duration_minutes\":0,\"created_at\":\"2024-01-01T00:00:00Z\"}",
+                "{\"id\":\"00000000-0000-0000-0000-000000000001\",\"name\":\"Asset 1\",\"duration_minutes\":1,\"created_at\":\"2024-01-01T00:00:01Z\"}");
+        assertThat(out).endsWith("\n");
+    }
+
+    @Test
+    void writesCsvWithHeaderAndQuoting() throws Exception {
+        ResultSet rs = resultSet(1, i -> new Object[]{"x", "Pump, \"north\"", null, null});
+        String out = export(ExportFormat.CSV, rs);
+        assertThat(out).isEqualTo("id,name,duration_minutes,created_at\r\nx,\"Pump, \"\"north\"\"\",,\r\n");
+    }
+
+    @Test
+    void writesCsvHeaderForEmptyResult() throws Exception {
+        assertThat(export(ExportFormat.CSV, generated(0, null)))
+                .isEqualTo("id,name,duration_minutes,created_at\r\n");
+        assertThat(export(ExportFormat.NDJSON, generated(0, null))).isEmpty();
+    }
+
+    /**
+     * Streams two million rows and checks that output reaches the stream
+     * as the rows are read: when the last row is read, everything before
+     * it has been written apart from what fits in the writers' fixed-size
+     * buffers.
+     */
+    @Test
+    void streamsMultiMillionRowExportAsItReads() throws Exception {
+        int total = 2_000_000;
+        CountingOutputStream sink = new CountingOutputStream();
+        long[] writtenBeforeLastRow = {-1};
+        ResultSet rs = generated(total, row -> {
+            if (row == total - 1) {
+                writtenBeforeLastRow[0] = sink.bytes;
+            }
+        });
+
+        long rows;
+        try (ResultSetWriter writer = new ResultSetWriter(ExportFormat.NDJSON, sink, objectMapper.getFactory())) {
+            rows = writer.writeAll(rs);
+        }
+
+        assertThat(rows).isEqualTo(total);
+        assertThat(sink.bytes).isGreaterThan(100L * total);
+        assertThat(sink.bytes - writtenBeforeLastRow[0]).isLessThan(64L * 1024);
+    }
+
+    private String export(ExportFormat format, ResultSet rs) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultSetWriter writer = new ResultSetWriter(format, out, objectMapper.getFactory())) {
+            writer.writeAll(rs);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ResultSet generated(int rows, RowObserver observer) {
+        return resultSet(rows, i -> {
+            if (observer != null) {
+                observer.reached(i);
+            }
+            return new Object[]{
+                    new UUID(0, i), "Asset " + i, i, Timestamp.from(T0.plusSeconds(i))};
+        });
+    }
+
+    private static ResultSet resultSet(int rows, RowSource source) {
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetWriterTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> COLUMNS.length;
+                    case "getColumnLabel" -> COLUMNS[(int) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        int[] cursor = {-1};
+        Object[][] current = {null};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSetWriterTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMetaData" -> meta;
+                    case "next" -> {
+                        if (++cursor[0] >= rows) {
+                            yield false;
+                        }
+                        current[0] = source.row(cursor[0]);
+                        yield true;
+                    }
+                    case "getObject" -> current[0][(int) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private interface RowSource {
+        Object[] row(int index);
+    }
+
+    private interface RowObserver {
+        void reached(int index);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package us.dtaylor.mcpserver.service.ingest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetWorkSummary;
+import us.dtaylor.mcpserver.dto.WorkLogIngestReport;
+import us.dtaylor.mcpserver.dto.WorkLogIngestReport.Entry;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+import us.dtaylor.mcpserver.repository.AssetWorkSummaryRepository;
+import us.dtaylor.mcpserver.repository.WorkLogRepository;
+import us.dtaylor.mcpserver.service.AssetService;
+import us.dtaylor.mcpserver.service.AssetWorkSummaryService;
+import us.dtaylor.mcpserver.service.WorkLogService;
+import us.dtaylor.mcpserver.service.WorkLogService.CreateWorkLogRequest;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link WorkLogIngestor} against the embedded database.  Runs
+ * outside the usual test transaction because the ingestor commits on its
+ * own thread.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ContextConfiguration(classes = {WorkLogIngestorTest.Config.class})
+class WorkLogIngestorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkLogIngestorTest.class);
+
+    @Autowired
+    private WorkLogIngestor ingestor;
+    @Autowired
+    private WorkLogService workLogService;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private WorkLogRepository workLogRepository;
+    @Autowired
+    private AssetWorkSummaryService summaries;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Asset asset;
+
+    @BeforeEach
+    void setup() {
+        asset = new Asset();
+        asset.setQrCode("QR-INGEST");
+        asset.setName("Compressor");
+        asset.setInstalledAt(Instant.now());
+        assetRepository.save(asset);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        workLogRepository.deleteAll();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    void storesEntriesAndReportsEachOne() throws Exception {
+        List<CreateWorkLogRequest> body = Arrays.asList(
+                new CreateWorkLogRequest(asset.getId(), "Replaced belt", "Sam", 20, null),
+                new CreateWorkLogRequest(UUID.randomUUID(), "Ghost", "Sam", 5, null),
+                new CreateWorkLogRequest(null, "No asset", "Sam", 5, null),
+                new CreateWorkLogRequest(asset.getId(), "Checked oil", "Alex", null, "ok"));
+
+        WorkLogIngestReport report = ingestor.submitAll(body).get(10, TimeUnit.SECONDS);
+
+        assertThat(report.total()).isEqualTo(4);
+        assertThat(report.stored()).isEqualTo(2);
+        assertThat(report.entries()).extracting(Entry::status)
+                .containsExactly("STORED", "FAILED", "FAILED", "STORED");
+        assertThat(report.entries().get(1).error()).startsWith("Asset not found");
+        assertThat(report.entries().get(2).error()).contains("assetId");
+        // acknowledged entries are already committed
+        assertThat(workLogService.listForAsset(asset.getId()))
+                .extracting(wl -> wl.id().toString())
+                .containsExactlyInAnyOrder(report.entries().get(0).id(), report.entries().get(3).id());
+        assertThat(ingestor.backlog()).isZero();
+        assertThat(summaries.get(asset.getId()))
+                .extracting(AssetWorkSummary::getJobCount, AssetWorkSummary::getTotalMinutes, AssetWorkSummary::getLastTechnician)
+                .containsExactly(2L, 20L, "Alex");
+    }
+
+    @Test
+    void rejectsSubmissionsBeyondCapacity() throws Exception {
+        // not started, so nothing drains the queue until start() below
+        WorkLogIngestor idle = new WorkLogIngestor(summaries, dataSource, transactionManager, 2, 10, Duration.ZERO);
+        CreateWorkLogRequest req = new CreateWorkLogRequest(asset.getId(), "Inspect", "Sam", 5, null);
+
+        CompletableFuture<WorkLogIngestReport> queued = idle.submitAll(List.of(req, req));
+        assertThat(idle.backlog()).isEqualTo(2);
+        assertThrows(IngestQueueFullException.class, () -> idle.submitAll(List.of(req)));
+        assertThrows(IllegalArgumentException.class, () -> idle.submitAll(List.of(req, req, req)));
+
+        idle.start();
+        try {
+            assertThat(queued.get(10, TimeUnit.SECONDS).stored()).isEqualTo(2);
+            assertThat(idle.submitAll(List.of(req)).get(10, TimeUnit.SECONDS).stored()).isEqualTo(1);
+        } finally {
+            idle.stop();
+        }
+        assertThrows(IngestQueueFullException.class, () -> idle.submitAll(List.of(req)));
+    }
+
+    /**
+     * Entries per second through {@link WorkLogService#create} versus the
+     * ingestor, with several concurrent clients each waiting for one entry
+     * at a time.  Run with {@code -Dbench=true}; absolute numbers on the
+     * embedded database understate the gain against a networked Postgres.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void benchmarkAgainstSynchronousCreate() throws Exception {
+        int clients = 16;
+        int perClient = 500;
+        CreateWorkLogRequest req = new CreateWorkLogRequest(asset.getId(), "Bench", "Sam", 1, null);
+
+        double direct = entriesPerSecond(clients, perClient, () -> workLogService.create(req));
+        double ingested = entriesPerSecond(clients, perClient,
+                () -> ingestor.submitAll(List.of(req)).join());
+
+        log.info("work log ingestion: create() {} entries/s, ingestor {} entries/s ({}x)",
+                Math.round(direct), Math.round(ingested), String.format("%.1f", ingested / direct));
+        assertThat(workLogRepository.count()).isEqualTo(2L * clients * perClient);
+    }
+
+    private static double entriesPerSecond(int clients, int perClient, Runnable write) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<CompletableFuture<Void>> runs = new ArrayList<>();
+            long started = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                runs.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perClient; i++) {
+                        write.run();
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+            return clients * perClient / ((System.nanoTime() - started) / 1e9);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Configuration
+    @EntityScan("us.dtaylor.mcpserver.domain")
+    @EnableJpaRepositories("us.dtaylor.mcpserver.repository")
+    static class Config {
+        @Bean
+        AssetService assetService(AssetRepository assetRepository) {
+            return new AssetService(assetRepository);
+        }
+
+        @Bean
+        AssetWorkSummaryService assetWorkSummaryService(AssetWorkSummaryRepository repo, DataSource dataSource,
+                                                        PlatformTransactionManager transactionManager) {
+            return new AssetWorkSummaryService(repo, dataSource, transactionManager);
+        }
+
+        @Bean
+        WorkLogService workLogService(WorkLogRepository workLogRepository, AssetService assetService,
+                                      AssetWorkSummaryService summaries) {
+            return new WorkLogService(workLogRepository, assetService, summaries);
+        }
+
+        @Bean
+        WorkLogIngestor workLogIngestor(AssetWorkSummaryService summaries, DataSource dataSource,
+                                        PlatformTransactionManager transactionManager) {
+            return new WorkLogIngestor(summaries, dataSource, transactionManager, 1000, 100, Duration.ofMillis(2));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package us.dtaylor.mcpserver.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.dtaylor.mcpserver.domain.Asset;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AssetNgramIndex}: matching must agree with the
+ * LIKE query and stay correct across incremental updates.
+ */
+class AssetNgramIndexTest {
+
+    private AssetNgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AssetNgramIndex();
+    }
+
+    @Test
+    void matchesSubstringsAcrossSearchableFieldsIgnoringCase() {
+        index.upsert(asset("Pump Station", "PS-100", "SN-1", "Brand B", null));
+        index.upsert(asset("Air Handler", "AH-900", "SN-2", "Brand A", "HVAC"));
+        index.upsert(asset("Chiller", "CH-1", "SN-3", "Acme Pumps", null));
+
+        assertThat(index.search("pump")).extracting(Asset::getName).containsExactly("Chiller", "Pump Station");
+        assertThat(index.search("ah-9")).extracting(Asset::getName).containsExactly("Air Handler");
+        assertThat(index.search("hvac")).extracting(Asset::getName).containsExactly("Air Handler");
+        assertThat(index.search("nothing")).isEmpty();
+    }
+
+    @Test
+    void trigramCandidatesAreVerified() {
+        // contains the trigrams "abc" and "bcd" but not the substring "abcd"
+        index.upsert(asset("abc xbcd", null, null, null, null));
+        assertThat(index.search("abcd")).isEmpty();
+    }
+
+    @Test
+    void shortQueriesScanDocuments() {
+        index.upsert(asset("Boiler", "B1", null, null, null));
+        index.upsert(asset("Chiller", "C1", null, null, null));
+        assertThat(index.search("b1")).extracting(Asset::getName).containsExactly("Boiler");
+    }
+
+    @Test
+    void upsertReplacesPreviousVersion() {
+        Asset asset = asset("Old Name", null, null, null, null);
+        index.upsert(asset);
+        asset.setName("Cooling Tower");
+        index.upsert(asset);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("old")).isEmpty();
+        assertThat(index.search("tower")).extracting(Asset::getName).containsExactly("Cooling Tower");
+    }
+
+    @Test
+    void removeDropsDocumentAndPostings() {
+        Asset keep = asset("Pump A", null, null, null, null);
+        Asset drop = asset("Pump B", null, null, null, null);
+        index.upsert(keep);
+        index.upsert(drop);
+        long before = index.estimatedBytes();
+
+        index.remove(drop.getId());
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("pump")).extracting(Asset::getId).containsExactly(keep.getId());
+        assertThat(index.estimatedBytes()).isLessThan(before);
+    }
+
+    @Test
+    void resultsAreSnapshotsOfTheIndexedState() {
+        Asset asset = asset("Generator", null, null, null, null);
+        index.upsert(asset);
+        asset.setName("Renamed without reindexing");
+
+        assertThat(index.search("generator")).extracting(Asset::getName).containsExactly("Generator");
+    }
+
+    private static Asset asset(String name, String model, String serial, String brand, String type) {
+        Asset asset = new Asset();
+        asset.setId(UUID.randomUUID());
+        asset.setName(name);
+        asset.setModel(model);
+        asset.setSerialNumber(serial);
+        asset.setBrand(brand);
+        asset.setAssetType(type);
+        return asset;
+    }
+}
@@ -0,0 +1,107 @@
+package us.dtaylor.mcpserver.service.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.domain.AssetChangedEvent;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link InMemoryAssetSearchEngine}: changes that commit while
+ * the index is loading must leave it holding the latest version of every
+ * asset.  The asset table is a stub whose stream runs a callback as each
+ * row is read, standing in for transactions committing during the load.
+ */
+class InMemoryAssetSearchEngineTest {
+
+    private AssetRepository repo;
+    private InMemoryAssetSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        repo = Mockito.mock(AssetRepository.class);
+        engine = new InMemoryAssetSearchEngine(repo, Mockito.mock(EntityManager.class),
+                Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void changeQueuedBeforeTheLoadReadANewerRowDoesNotRollItBack() {
+        Asset pump = asset("Pump", 2);
+        table(List.of(pump), row -> engine.onAssetChanged(AssetChangedEvent.saved(renamed(pump, "Old pump", 1))));
+
+        engine.load();
+
+        assertThat(names("pump")).containsExactly("Pump");
+    }
+
+    @Test
+    void changesCommittedDuringTheLoadAreApplied() {
+        Asset chiller = asset("Chiller", 0);
+        Asset boiler = asset("Boiler", 0);
+        table(List.of(chiller, boiler), row -> {
+            if (row == chiller) {
+                engine.onAssetChanged(AssetChangedEvent.saved(renamed(chiller, "Chiller 2", 1)));
+                engine.onAssetChanged(AssetChangedEvent.deleted(boiler));
+            }
+        });
+
+        engine.load();
+
+        assertThat(names("chiller")).containsExactly("Chiller 2");
+        assertThat(names("boiler")).isEmpty();
+    }
+
+    @Test
+    void concurrentChangesToOneAssetEndOnTheLatest() throws Exception {
+        Asset pump = asset("Rev 0", 0);
+        int revisions = 2_000;
+        CompletableFuture<Void> writer = new CompletableFuture<>();
+        table(List.of(pump), row -> CompletableFuture.runAsync(() -> {
+            for (int v = 1; v <= revisions; v++) {
+                engine.onAssetChanged(AssetChangedEvent.saved(renamed(pump, "Rev " + v, v)));
+            }
+        }).whenComplete((ignored, ex) -> writer.complete(null)));
+
+        engine.load();
+        writer.get();
+
+        assertThat(names("rev")).containsExactly("Rev " + revisions);
+    }
+
+    private void table(List<Asset> rows, Consumer<Asset> onRead) {
+        when(repo.streamAll()).thenAnswer(invocation -> rows.stream().peek(onRead));
+    }
+
+    private List<String> names(String query) {
+        Page<Asset> page = engine.search(query, PageRequest.of(0, 10));
+        return page.getContent().stream().map(Asset::getName).toList();
+    }
+
+    private static Asset asset(String name, long version) {
+        Asset a = new Asset();
+        a.setId(UUID.randomUUID());
+        a.setName(name);
+        a.setVersion(version);
+        return a;
+    }
+
+    private static Asset renamed(Asset asset, String name, long version) {
+        Asset a = asset(name, version);
+        a.setId(asset.getId());
+        return a;
+    }
+}
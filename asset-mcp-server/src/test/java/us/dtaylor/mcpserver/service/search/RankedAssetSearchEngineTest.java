@@ -0,0 +1,89 @@
+package us.dtaylor.mcpserver.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RankedAssetSearchEngine} on H2, which exercises the
+ * portable ranked query.
+ */
+@DataJpaTest
+@ContextConfiguration(classes = {RankedAssetSearchEngineTest.Config.class})
+class RankedAssetSearchEngineTest {
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private RankedAssetSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        save("QR-1", "Backup Pump Controller", "PC-1", "SN-10");
+        save("QR-2", "Pump", "P-2", "SN-20");
+        save("QR-3", "Pump Station", "PS-100", "SN-30");
+        save("QR-4", "Air Handler", "PUMP-X", "SN-40");
+        save("QR-5", "Chiller", "CH-1", "SN-50");
+    }
+
+    @Test
+    void ranksExactThenPrefixThenContainsThenOtherColumns() {
+        var page = engine.search("pump", PageRequest.of(0, 10, Sort.by("name")));
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(Asset::getName)
+                .containsExactly("Pump", "Pump Station", "Backup Pump Controller", "Air Handler");
+    }
+
+    @Test
+    void keepsPagingContract() {
+        var second = engine.search("pump", PageRequest.of(1, 3, Sort.by("name")));
+        assertThat(second.getTotalElements()).isEqualTo(4);
+        assertThat(second.getTotalPages()).isEqualTo(2);
+        assertThat(second.getContent()).extracting(Asset::getName).containsExactly("Air Handler");
+    }
+
+    @Test
+    void blankQueryListsAllByName() {
+        var page = engine.search("", PageRequest.of(0, 10, Sort.by("name")));
+        assertThat(page.getContent()).extracting(Asset::getName)
+                .containsExactly("Air Handler", "Backup Pump Controller", "Chiller", "Pump", "Pump Station");
+    }
+
+    private void save(String qr, String name, String model, String serial) {
+        Asset asset = new Asset();
+        asset.setQrCode(qr);
+        asset.setName(name);
+        asset.setModel(model);
+        asset.setSerialNumber(serial);
+        asset.setManualPath("file:///tmp/" + qr + ".txt");
+        asset.setInstalledAt(Instant.now());
+        assetRepository.save(asset);
+    }
+
+    @Configuration
+    @EntityScan("us.dtaylor.mcpserver.domain")
+    @EnableJpaRepositories("us.dtaylor.mcpserver.repository")
+    static class Config {
+        @Bean
+        RankedAssetSearchEngine rankedAssetSearchEngine(AssetRepository repo, DataSource dataSource) {
+            return new RankedAssetSearchEngine(repo, new JdbcTemplate(dataSource), dataSource);
+        }
+    }
+}
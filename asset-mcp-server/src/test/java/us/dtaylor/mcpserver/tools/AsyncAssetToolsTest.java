@@ -0,0 +1,174 @@
+package us.dtaylor.mcpserver.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import reactor.core.publisher.Flux;
+import us.dtaylor.mcpserver.AssetMcpServerApplication;
+import us.dtaylor.mcpserver.config.TestSecurityConfig;
+import us.dtaylor.mcpserver.domain.Asset;
+import us.dtaylor.mcpserver.repository.AssetRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end tests of the ASYNC MCP server mode: the application is
+ * started on a random port and driven by an MCP client over the WebFlux
+ * SSE transport.  The benchmark compares concurrent tool-call throughput
+ * of the SYNC and ASYNC modes; run it with {@code -Dbench=true}.
+ */
+class AsyncAssetToolsTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAssetToolsTest.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void asyncModeServesTheAssetTools() throws Exception {
+        try (var server = Server.start("ASYNC", true)) {
+            McpAsyncClient client = server.client();
+
+            assertThat(client.listTools().block().tools())
+                    .extracting(McpSchema.Tool::name)
+                    .containsExactlyInAnyOrder("asset.search", "worklog.create", "worklog.list");
+
+            String id = server.asset.getId().toString();
+            var created = call(client, "worklog.create", Map.of("req", Map.of(
+                    "asset_id", id, "action", "Replace filter", "technician", "kim", "duration_minutes", 30)));
+            assertThat(created.isError()).isFalse();
+            assertThat(json(created).get("status").asText()).isEqualTo("CREATED");
+
+            for (String key : List.of("QR-ASYNC", id)) {
+                JsonNode found = json(call(client, "asset.search", Map.of("qrOrId", key)));
+                assertThat(found.get("status").asText()).isEqualTo("OK");
+                assertThat(found.get("id").asText()).isEqualTo(id);
+                assertThat(found.get("jobCount").asLong()).isEqualTo(1);
+                assertThat(found.get("totalMinutes").asLong()).isEqualTo(30);
+                assertThat(found.get("lastTechnician").asText()).isEqualTo("kim");
+
+                JsonNode logs = json(call(client, "worklog.list", Map.of("assetId", key, "limit", 10)));
+                assertThat(logs).hasSize(1);
+                assertThat(logs.get(0).get("action").asText()).isEqualTo("Replace filter");
+            }
+
+            JsonNode missing = json(call(client, "asset.search", Map.of("qrOrId", "QR-UNKNOWN")));
+            assertThat(missing.get("status").asText()).isEqualTo("NOT_FOUND");
+
+            var unknownId = call(client, "worklog.list", Map.of("assetId", UUID.randomUUID().toString()));
+            assertThat(unknownId.isError()).isTrue();
+            assertThat(text(unknownId)).isEqualTo("asset not found");
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void benchmarkConcurrentToolCallsSyncVersusAsync() throws Exception {
+        int calls = 2_000;
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            long sync = throughput("SYNC", virtualThreads, calls);
+            long async = throughput("ASYNC", virtualThreads, calls);
+            log.info("{} concurrent asset.search calls, virtual threads {}: SYNC {} calls/s, ASYNC {} calls/s",
+                    calls, virtualThreads, sync, async);
+        }
+    }
+
+    private long throughput(String type, boolean virtualThreads, int calls) throws Exception {
+        try (var server = Server.start(type, virtualThreads)) {
+            McpAsyncClient client = server.client();
+            String id = server.asset.getId().toString();
+            // warm up
+            Flux.range(0, 200).flatMap(i -> client.callTool(request("asset.search", Map.of("qrOrId", id))), 200)
+                    .blockLast();
+
+            long started = System.nanoTime();
+            List<McpSchema.CallToolResult> results = Flux.range(0, calls)
+                    .flatMap(i -> client.callTool(request("asset.search", Map.of("qrOrId", id))), calls)
+                    .collectList()
+                    .block(Duration.ofMinutes(2));
+            long nanos = System.nanoTime() - started;
+
+            assertThat(results).hasSize(calls).noneMatch(McpSchema.CallToolResult::isError);
+            return calls * 1_000_000_000L / nanos;
+        }
+    }
+
+    private static McpSchema.CallToolResult call(McpAsyncClient client, String tool, Map<String, Object> args) {
+        return client.callTool(request(tool, args)).block(Duration.ofSeconds(30));
+    }
+
+    private static McpSchema.CallToolRequest request(String tool, Map<String, Object> args) {
+        return new McpSchema.CallToolRequest(tool, args);
+    }
+
+    private JsonNode json(McpSchema.CallToolResult result) throws Exception {
+        assertThat(result.isError()).as(text(result)).isFalse();
+        return objectMapper.readTree(text(result));
+    }
+
+    private static String text(McpSchema.CallToolResult result) {
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+
+    /** The application on a random port with its own H2 database and one asset. */
+    private record Server(ServletWebServerApplicationContext context, String sseEndpoint, Asset asset,
+                          List<McpAsyncClient> clients) implements AutoCloseable {
+
+        static Server start(String type, boolean virtualThreads) {
+            var context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(
+                    AssetMcpServerApplication.class, TestSecurityConfig.class)
+                    .profiles("test")
+                    .run("--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                            "--spring.sql.init.mode=never",
+                            "--spring.ai.mcp.server.type=" + type,
+                            "--spring.threads.virtual.enabled=" + virtualThreads,
+                            // open SSE streams would hold up a graceful shutdown
+                            "--server.shutdown=immediate",
+                            "--spring.main.banner-mode=off");
+
+            Asset asset = new Asset();
+            asset.setQrCode("QR-ASYNC");
+            asset.setName("Chiller 1");
+            asset.setModel("CH-200");
+            asset.setSerialNumber("SN-ASYNC");
+            asset.setInstalledAt(Instant.now());
+            asset = context.getBean(AssetRepository.class).save(asset);
+
+            String sseEndpoint = type.equals("ASYNC") ? "/mcp-async/sse" : "/sse";
+            return new Server(context, sseEndpoint, asset, new ArrayList<>());
+        }
+
+        McpAsyncClient client() {
+            var transport = HttpClientSseClientTransport
+                    .builder("http://localhost:" + context.getWebServer().getPort())
+                    .sseEndpoint(sseEndpoint)
+                    .build();
+            McpAsyncClient client = McpClient.async(transport).requestTimeout(Duration.ofMinutes(1)).build();
+            client.initialize().block(Duration.ofSeconds(30));
+            clients.add(client);
+            return client;
+        }
+
+        @Override
+        public void close() {
+            clients.forEach(client -> client.closeGracefully().block(Duration.ofSeconds(5)));
+            context.close();
+        }
+    }
+}
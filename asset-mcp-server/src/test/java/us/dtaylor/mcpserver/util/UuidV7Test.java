@@ -0,0 +1,47 @@
+package us.dtaylor.mcpserver.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link UuidV7}.
+ */
+class UuidV7Test {
+
+    @Test
+    void setsVersionAndVariant() {
+        UUID id = UuidV7.next();
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void embedsCurrentTime() {
+        Instant before = Instant.now();
+        Instant stamp = UuidV7.timestamp(UuidV7.next());
+        assertThat(Duration.between(before, stamp).abs()).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void idsAreStrictlyIncreasingWithinTheSameMillisecond() {
+        UUID previous = UuidV7.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.next();
+            // the string form is what the database orders by
+            assertThat(next.toString()).isGreaterThan(previous.toString());
+            previous = next;
+        }
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        assertThatThrownBy(() -> UuidV7.timestamp(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,104 @@
+-- Asset search benchmark: original LIKE query vs. the ranked trigram mode.
+--
+-- Seeds 1,000,000 synthetic assets into a scratch table shaped like
+-- public.asset, builds the same pg_trgm index RankedAssetSearchEngine
+-- creates, and runs both queries with EXPLAIN ANALYZE.  Run it against
+-- the docker-compose database:
+--
+--   docker compose exec -T postgres psql -U asset -d assetdb < bench/asset-search.sql
+--
+-- The scratch schema is dropped at the end.
+
+\timing on
+SET client_min_messages = warning;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+DROP SCHEMA IF EXISTS bench_search CASCADE;
+CREATE SCHEMA bench_search;
+SET search_path = bench_search, public;
+
+CREATE TABLE asset (
+    id            uuid PRIMARY KEY,
+    qr_code       varchar(255) UNIQUE,
+    name          varchar(255),
+    model         varchar(255),
+    serial_number varchar(255),
+    brand         varchar(255),
+    asset_type    varchar(255),
+    manual_path   varchar(255),
+    installed_at  timestamptz,
+    qr_image_path varchar(255)
+);
+
+INSERT INTO asset (id, qr_code, name, model, serial_number, brand, asset_type, manual_path, installed_at)
+SELECT gen_random_uuid(),
+       'QR-' || lpad(to_hex(g), 8, '0'),
+       (ARRAY['Air Handler', 'Pump Station', 'Chiller', 'Boiler', 'Cooling Tower', 'Compressor'])[1 + g % 6]
+           || ' - Building ' || (g % 250) || ' Floor ' || (g % 40),
+       (ARRAY['AH', 'PS', 'CH', 'BL', 'CT', 'CP'])[1 + g % 6] || '-' || (100 + g % 900),
+       'SN-' || lpad(g::text, 7, '0'),
+       (ARRAY['Carrier', 'Trane', 'Daikin', 'Lennox', 'York'])[1 + g % 5],
+       (ARRAY['HVAC', 'Plumbing', 'Electrical', 'Mechanical'])[1 + g % 4],
+       'file:/manuals/' || g || '.txt',
+       now() - (g % 3650) * interval '1 day'
+FROM generate_series(1, 1000000) AS g;
+
+CREATE INDEX idx_asset_search_trgm ON asset USING gin (
+  (LOWER(COALESCE(name, '') || ' ' || COALESCE(model, '') || ' ' ||
+         COALESCE(serial_number, '') || ' ' || COALESCE(brand, '') || ' ' ||
+         COALESCE(asset_type, ''))) gin_trgm_ops);
+ANALYZE asset;
+
+-- 1) Original mode: AssetRepository.search (page 0, 20 rows, by name) + count.
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM asset a
+WHERE LOWER(a.name) LIKE '%sn-0421337%' OR LOWER(a.model) LIKE '%sn-0421337%'
+   OR LOWER(a.serial_number) LIKE '%sn-0421337%' OR LOWER(a.brand) LIKE '%sn-0421337%'
+   OR LOWER(a.asset_type) LIKE '%sn-0421337%'
+ORDER BY a.name LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM asset a
+WHERE LOWER(a.name) LIKE '%sn-0421337%' OR LOWER(a.model) LIKE '%sn-0421337%'
+   OR LOWER(a.serial_number) LIKE '%sn-0421337%' OR LOWER(a.brand) LIKE '%sn-0421337%'
+   OR LOWER(a.asset_type) LIKE '%sn-0421337%';
+
+-- 2) Ranked mode: AssetRepository.searchRankedTrigram + count.
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT a.* FROM asset a
+WHERE LOWER(COALESCE(a.name, '') || ' ' || COALESCE(a.model, '') || ' ' ||
+            COALESCE(a.serial_number, '') || ' ' || COALESCE(a.brand, '') || ' ' ||
+            COALESCE(a.asset_type, '')) LIKE CONCAT('%', LOWER('SN-0421337'), '%')
+ORDER BY word_similarity(LOWER('SN-0421337'),
+         LOWER(COALESCE(a.name, '') || ' ' || COALESCE(a.model, '') || ' ' ||
+               COALESCE(a.serial_number, '') || ' ' || COALESCE(a.brand, '') || ' ' ||
+               COALESCE(a.asset_type, ''))) DESC, a.name, a.id
+LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM asset a
+WHERE LOWER(COALESCE(a.name, '') || ' ' || COALESCE(a.model, '') || ' ' ||
+            COALESCE(a.serial_number, '') || ' ' || COALESCE(a.brand, '') || ' ' ||
+            COALESCE(a.asset_type, '')) LIKE CONCAT('%', LOWER('SN-0421337'), '%');
+
+-- 3) Broad keystroke-style query ("chil") in both modes.
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM asset a
+WHERE LOWER(a.name) LIKE '%chil%' OR LOWER(a.model) LIKE '%chil%'
+   OR LOWER(a.serial_number) LIKE '%chil%' OR LOWER(a.brand) LIKE '%chil%'
+   OR LOWER(a.asset_type) LIKE '%chil%'
+ORDER BY a.name LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT a.* FROM asset a
+WHERE LOWER(COALESCE(a.name, '') || ' ' || COALESCE(a.model, '') || ' ' ||
+            COALESCE(a.serial_number, '') || ' ' || COALESCE(a.brand, '') || ' ' ||
+            COALESCE(a.asset_type, '')) LIKE CONCAT('%', LOWER('chil'), '%')
+ORDER BY word_similarity(LOWER('chil'),
+         LOWER(COALESCE(a.name, '') || ' ' || COALESCE(a.model, '') || ' ' ||
+               COALESCE(a.serial_number, '') || ' ' || COALESCE(a.brand, '') || ' ' ||
+               COALESCE(a.asset_type, ''))) DESC, a.name, a.id
+LIMIT 20;
+
+RESET search_path;
+DROP SCHEMA bench_search CASCADE;
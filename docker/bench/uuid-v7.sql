@@ -0,0 +1,80 @@
+-- Primary key benchmark: random (v4) vs. time-ordered (v7) UUIDs.
+--
+-- Inserts the same number of work_log-shaped rows into two scratch tables
+-- that differ only in how the id is generated, in batches of 1,000 rows
+-- per transaction to mimic application traffic, then reports insert time,
+-- primary key index size and leaf page density/fragmentation.  The v7
+-- function below lays out ids exactly like us.dtaylor.mcpserver.util.UuidV7
+-- (48-bit millisecond timestamp, 12-bit sequence, random tail).  Run it
+-- against the docker-compose database:
+--
+--   docker compose exec -T postgres psql -U asset -d assetdb < bench/uuid-v7.sql
+--
+-- Raise bench_uuid.rows for a table that outgrows shared_buffers, which is
+-- where random keys hurt most.  The scratch schema is dropped at the end.
+
+\timing on
+SET client_min_messages = warning;
+
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+DROP SCHEMA IF EXISTS bench_uuid CASCADE;
+CREATE SCHEMA bench_uuid;
+SET search_path = bench_uuid, public;
+SET bench_uuid.rows = '2000000';
+
+-- Same layout as UuidV7.next(): the sequence keeps ids increasing within a
+-- millisecond, the remaining 62 bits come from gen_random_uuid().
+CREATE SEQUENCE v7_seq CYCLE MAXVALUE 4095;
+CREATE FUNCTION uuid_v7() RETURNS uuid LANGUAGE sql VOLATILE AS $$
+    SELECT encode(
+               int8send((floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint << 16)
+                        | (7::bigint << 12) | nextval('bench_uuid.v7_seq'))
+               || substring(uuid_send(gen_random_uuid()) FROM 9 FOR 8),
+               'hex')::uuid
+$$;
+
+CREATE TABLE work_log_v4 (
+    id               uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+    asset_id         uuid NOT NULL,
+    technician       varchar(255),
+    action           varchar(255),
+    duration_minutes integer,
+    created_at       timestamptz NOT NULL DEFAULT clock_timestamp(),
+    notes            varchar(255)
+);
+CREATE TABLE work_log_v7 (LIKE work_log_v4 INCLUDING ALL);
+ALTER TABLE work_log_v7 ALTER COLUMN id SET DEFAULT uuid_v7();
+
+CREATE PROCEDURE fill(target regclass, total integer) LANGUAGE plpgsql AS $$
+BEGIN
+    FOR batch IN 0 .. total / 1000 - 1 LOOP
+        EXECUTE format($sql$
+            INSERT INTO %s (asset_id, technician, action, duration_minutes, notes)
+            SELECT md5((g %% 5000)::text)::uuid, 'tech-' || (g %% 40), 'Inspected filter', g %% 120,
+                   'Routine maintenance visit ' || g
+            FROM generate_series(1, 1000) g$sql$, target);
+        COMMIT;
+    END LOOP;
+END
+$$;
+
+\echo '== insert: v4 (random) =='
+CALL fill('work_log_v4', current_setting('bench_uuid.rows')::int);
+\echo '== insert: v7 (time ordered) =='
+CALL fill('work_log_v7', current_setting('bench_uuid.rows')::int);
+
+\echo '== primary key index size and leaf pages =='
+SELECT t.name,
+       pg_size_pretty(pg_relation_size(t.idx)) AS pk_size,
+       s.leaf_pages,
+       s.avg_leaf_density,
+       s.leaf_fragmentation
+FROM (VALUES ('v4', 'work_log_v4_pkey'::regclass),
+             ('v7', 'work_log_v7_pkey'::regclass)) AS t(name, idx)
+CROSS JOIN LATERAL pgstatindex(t.idx) s;
+
+\echo '== heap size =='
+SELECT relname, pg_size_pretty(pg_relation_size(oid)) AS heap_size
+FROM pg_class WHERE relname IN ('work_log_v4', 'work_log_v7');
+
+DROP SCHEMA bench_uuid CASCADE;
@@ -2,8 +2,10 @@ package us.dtaylor.agent;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OpsAgentAppApplication {
 
     public static void main(String[] args) {
@@ -1,60 +1,119 @@
 package us.dtaylor.agent.api;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.modelcontextprotocol.client.McpSyncClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import us.dtaylor.agent.routing.IntentRouter;
+import us.dtaylor.agent.tools.McpToolDiscovery;
+import us.dtaylor.agent.tools.ToolCallEvent;
+import us.dtaylor.agent.tools.ToolResultCache;
 
 /**
  * Agent controller that integrates with an MCP server to enable tool calling.
  *
  * <p>This implementation uses Spring AI's {@link SyncMcpToolCallbackProvider}
  * to discover all available tools from one or more {@link McpSyncClient}s and
- * exposes them to the underlying chat model. It demonstrates how to build
- * providers programmatically and how to filter tools based on server names
- * when working with multiple MCP servers. See Spring AI’s MCP utilities
+ * exposes them to the underlying chat model. Discovered tools are kept by
+ * {@link McpToolDiscovery} between requests. It demonstrates how to filter
+ * tools based on server names when working with multiple MCP servers. See Spring AI’s MCP utilities
  * documentation for more details:contentReference[oaicite:0]{index=0}.</p>
  */
 @RestController
 @RequestMapping("/agent")
 public class AgentController {
 
+    private static final String SYSTEM_PROMPT = """
+            You are a Field Maintenance Agent. When the user mentions a QR code or asset ID:
+            1) Call 'asset.search' to look up the asset.
+            2) If the user describes work completed, call 'worklog.create' with action, technician, duration, and notes.
+            3) If the user asks for past work, call 'worklog.list'.
+            Be concise and ask clarifying questions if the QR code or asset ID is missing.
+            """;
+
+    /** Time a streamed answer may take unless configured otherwise. */
+    public static final Duration DEFAULT_STREAM_TIMEOUT = Duration.ofMinutes(5);
+
     private final ChatClient chatClient;
-    private final ChatMemory chatMemory;
-    private final List<McpSyncClient> mcpSyncClients;
+    private final McpToolDiscovery toolDiscovery;
+    private final ToolResultCache toolResultCache;
+    private final IntentRouter intentRouter;
+    private final Duration streamTimeout;
     private volatile ToolCallbackProvider toolCallbackProvider;
 
     /**
      * Creates a new {@code AgentController} with the required collaborators.
+     * Tools are listed on every request and every question goes to the model.
      *
      * @param chatClient     the chat client used to interact with the language model
-     * @param chatMemory     persistent chat memory for conversation context
      * @param mcpSyncClients one or more MCP clients used to discover tools
      */
-    @Autowired
     public AgentController(ChatClient chatClient,
-                           ChatMemory chatMemory,
                            List<McpSyncClient> mcpSyncClients) {
+        this(chatClient, new McpToolDiscovery(mcpSyncClients), ToolResultCache.disabled(), IntentRouter.disabled());
+    }
+
+    /**
+     * Creates a new {@code AgentController} whose tools come from
+     * {@code toolDiscovery} and whose read-only tool calls are answered from
+     * {@code toolResultCache} where possible.  Questions recognised by
+     * {@code intentRouter} are answered without the model.
+     *
+     * @param chatClient      the chat client used to interact with the language model
+     * @param toolDiscovery   the tools discovered on the MCP servers
+     * @param toolResultCache cache for the results of read-only tools
+     * @param intentRouter    answers simple lookups directly from the tools
+     */
+    public AgentController(ChatClient chatClient,
+                           McpToolDiscovery toolDiscovery,
+                           ToolResultCache toolResultCache,
+                           IntentRouter intentRouter) {
+        this(chatClient, toolDiscovery, toolResultCache, intentRouter, DEFAULT_STREAM_TIMEOUT);
+    }
+
+    /**
+     * As above, with streamed answers cut off after {@code streamTimeout}.
+     *
+     * @param streamTimeout time a streamed answer may take
+     */
+    @Autowired
+    public AgentController(ChatClient chatClient,
+                           McpToolDiscovery toolDiscovery,
+                           ToolResultCache toolResultCache,
+                           IntentRouter intentRouter,
+                           @Value("${app.agent.stream.timeout:5m}") Duration streamTimeout) {
+        if (streamTimeout.isNegative() || streamTimeout.isZero()) {
+            throw new IllegalArgumentException("stream timeout must be positive: " + streamTimeout);
+        }
         this.chatClient = chatClient;
-        this.chatMemory = chatMemory;
-        this.mcpSyncClients = mcpSyncClients;
-        // Build a default provider using all available clients. See
-        // SyncMcpToolCallbackProvider documentation for details:contentReference[oaicite:1]{index=1}.
-        this.toolCallbackProvider = new SyncMcpToolCallbackProvider(mcpSyncClients);
+        this.toolDiscovery = toolDiscovery;
+        this.toolResultCache = toolResultCache;
+        this.intentRouter = intentRouter;
+        this.streamTimeout = streamTimeout;
+        // All servers by default; see setAllowedServerNames.
+        this.toolCallbackProvider = toolDiscovery::getToolCallbacks;
     }
 
     /**
@@ -71,51 +130,114 @@ public class AgentController {
      * tools to the model. The system prompt instructs the model when to
      * invoke each tool. Refer to the Spring AI documentation on tool
      * callback providers for more information:contentReference[oaicite:2]{index=2}.
+     * Simple asset and history lookups are answered by the {@link IntentRouter}
+     * without a model round trip.
      */
     @PostMapping("/ask")
     public Map<String, Object> ask(@RequestBody AskRequest req) {
-        ToolCallback[] callbacks = this.toolCallbackProvider.getToolCallbacks();
+        ToolCallback[] callbacks = toolResultCache.wrap(this.toolCallbackProvider.getToolCallbacks());
 
-        String systemPrompt = """
-                You are a Field Maintenance Agent. When the user mentions a QR code or asset ID:
-                1) Call 'asset.search' to look up the asset.
-                2) If the user describes work completed, call 'worklog.create' with action, technician, duration, and notes.
-                3) If the user asks for past work, call 'worklog.list'.
-                Be concise and ask clarifying questions if the QR code or asset ID is missing.
-                """;
-
-
-        MessageChatMemoryAdvisor memoryAdvisor =
-                MessageChatMemoryAdvisor.builder(this.chatMemory).build();
+        String routed = intentRouter.route(req.conversationId(), req.userMessage(), callbacks);
+        if (routed != null) {
+            return Map.of("answer", routed, "toolCount", callbacks.length);
+        }
 
         String answer = chatClient.prompt()
-                .system(systemPrompt)
+                .system(SYSTEM_PROMPT)
                 .user(req.userMessage())
                 .toolCallbacks(Arrays.asList(callbacks))  // <-- fix is here
-                .advisors(spec -> spec
-                        .advisors(memoryAdvisor)
-                        .param(ChatMemory.CONVERSATION_ID, req.conversationId()))
+                // memory is the chat client's default advisor (ChatClientConfig)
+                .advisors(spec -> spec.param(ChatMemory.CONVERSATION_ID, req.conversationId()))
                 .call()
                 .content();
 
         return Map.of("answer", answer, "toolCount", callbacks.length);
     }
 
+    /**
+     * A chunk of the answer.  Sent as JSON rather than raw text so that the
+     * leading whitespace of a token survives the SSE framing.
+     */
+    public record Token(String text) {
+    }
+
+    /**
+     * Streams the answer to a chat request as server-sent events, so the
+     * client can show the first words while the model is still generating.
+     * Events are:
+     * <ul>
+     *   <li>{@code tool} – a {@link ToolCallEvent} when a tool call starts and when it ends;</li>
+     *   <li>{@code token} – a {@link Token} with the next chunk of the answer;</li>
+     *   <li>{@code done} – once the answer is complete;</li>
+     *   <li>{@code error} – with a message, if generation failed; the stream then ends.</li>
+     * </ul>
+     * The exchange is saved to chat memory by the chat client's default
+     * memory advisor once the stream completes.  Closing the connection
+     * cancels generation.  A question answered by the {@link IntentRouter}
+     * comes as a single {@code token}.
+     *
+     * <p>Spring MVC sends a streamed {@link Flux} without the async request
+     * timeout ({@code spring.mvc.async.request-timeout}, or Tomcat's 30
+     * seconds), which would cut off an answer still being generated.  The
+     * stream is bounded by {@code app.agent.stream.timeout} instead: an
+     * answer not done by then ends with an {@code error} event and
+     * generation is cancelled.</p>
+     */
+    @PostMapping(path = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> askStream(@RequestBody AskRequest req) {
+        return Flux.create(sink -> {
+            ToolCallback[] callbacks = ToolCallEvent.observe(
+                    toolResultCache.wrap(this.toolCallbackProvider.getToolCallbacks()),
+                    event -> sink.next(event("tool", event)));
+
+            String routed = intentRouter.route(req.conversationId(), req.userMessage(), callbacks);
+            if (routed != null) {
+                sink.next(event("token", new Token(routed)));
+                sink.next(event("done", Map.of("toolCount", callbacks.length)));
+                sink.complete();
+                return;
+            }
+
+            Disposable generation = chatClient.prompt()
+                    .system(SYSTEM_PROMPT)
+                    .user(req.userMessage())
+                    .toolCallbacks(Arrays.asList(callbacks))
+                    .advisors(spec -> spec.param(ChatMemory.CONVERSATION_ID, req.conversationId()))
+                    .stream()
+                    .content()
+                    .subscribe(
+                            text -> sink.next(event("token", new Token(text))),
+                            error -> {
+                                sink.next(event("error", Map.of("message", String.valueOf(error.getMessage()))));
+                                sink.complete();
+                            },
+                            () -> {
+                                sink.next(event("done", Map.of("toolCount", callbacks.length)));
+                                sink.complete();
+                            });
+            Disposable deadline = Schedulers.parallel().schedule(() -> {
+                sink.next(event("error", Map.of("message",
+                        "The answer took longer than " + streamTimeout.toSeconds() + " seconds")));
+                sink.complete();
+            }, streamTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            sink.onDispose(Disposables.composite(generation, deadline));
+        });
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
 
     /**
      * Dynamically restricts the set of MCP servers whose tools are made available
-     * to the chat model. This method rebuilds the {@link ToolCallbackProvider}
-     * using only the clients whose {@code serverInfo().name()} matches the
-     * supplied set of allowed names. This mirrors the example from the Spring AI
+     * to the chat model, to the servers whose {@code serverInfo().name()} is
+     * one of the supplied names. This mirrors the example from the Spring AI
      * documentation demonstrating dynamic provider selection:contentReference[oaicite:3]{index=3}.
      *
      * @param allowedServerNames the set of server names to include
      */
     public void setAllowedServerNames(Set<String> allowedServerNames) {
-        List<McpSyncClient> selected = this.mcpSyncClients.stream()
-                .filter(client -> allowedServerNames.contains(client.getServerInfo().name()))
-                .toList();
-        // Rebuild the provider with the filtered clients
-        this.toolCallbackProvider = new SyncMcpToolCallbackProvider(selected);
+        this.toolCallbackProvider = toolDiscovery.forServers(allowedServerNames);
     }
 }
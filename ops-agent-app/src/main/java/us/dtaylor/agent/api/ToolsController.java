@@ -1,11 +1,9 @@
 package us.dtaylor.agent.api;
 
-import io.modelcontextprotocol.client.McpSyncClient;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import us.dtaylor.agent.tools.McpToolDiscovery;
 
 import java.util.Arrays;
 import java.util.List;
@@ -14,21 +12,15 @@ import java.util.List;
 @RequestMapping("/agent/tools")
 public class ToolsController {
 
-    @Autowired
-    private List<McpSyncClient> mcpSyncClients;  // For sync client
-
-    @Autowired
-    private SyncMcpToolCallbackProvider toolCallbackProvider;
+    private final McpToolDiscovery toolDiscovery;
 
     /**
      * Creates a new {@code ToolsController} with the required collaborators.
      *
-     * @param mcpSyncClients one or more MCP clients used to discover tools
+     * @param toolDiscovery the tools discovered on the MCP servers
      */
-    public ToolsController(List<McpSyncClient> mcpSyncClients) {
-        this.mcpSyncClients = mcpSyncClients;
-        // Build a default provider using all available clients.
-        this.toolCallbackProvider = new SyncMcpToolCallbackProvider(mcpSyncClients);
+    public ToolsController(McpToolDiscovery toolDiscovery) {
+        this.toolDiscovery = toolDiscovery;
     }
 
     /**
@@ -38,7 +30,7 @@ public class ToolsController {
      */
     @GetMapping
     public List<String> list() {
-        return Arrays.stream(toolCallbackProvider.getToolCallbacks())
+        return Arrays.stream(toolDiscovery.getToolCallbacks())
                 .map(toolCallback -> toolCallback.getToolDefinition().name())
                 .toList();
     }
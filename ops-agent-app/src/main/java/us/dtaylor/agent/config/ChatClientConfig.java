@@ -1,20 +1,29 @@
 package us.dtaylor.agent.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import us.dtaylor.agent.memory.PromptMetricsAdvisor;
 
 @Configuration
 public class ChatClientConfig {
 
     @Bean
-    ChatClient chatClient(ChatClient.Builder builder, ChatMemory chatMemory) {
+    ChatClient chatClient(ChatClient.Builder builder, ChatMemory chatMemory,
+                          TokenCountEstimator tokenCountEstimator,
+                          @Value("${app.agent.memory.mode:window}") String memoryMode,
+                          MeterRegistry meterRegistry) {
         return builder
                 // register memory as a default advisor so you don't have to add it on every call
                 .defaultAdvisors(spec -> spec.advisors(
-                        MessageChatMemoryAdvisor.builder(chatMemory).build()
+                        MessageChatMemoryAdvisor.builder(chatMemory).build(),
+                        // prompt size and latency per turn, measured after memory is added
+                        new PromptMetricsAdvisor(tokenCountEstimator, memoryMode, meterRegistry)
                 ))
                 .build();
     }
@@ -1,22 +1,122 @@
 package us.dtaylor.agent.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
-import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.transaction.PlatformTransactionManager;
+import us.dtaylor.agent.memory.SummarizingChatMemory;
+import us.dtaylor.agent.memory.WindowedJdbcChatMemoryRepository;
+import us.dtaylor.agent.memory.WriteBackChatMemoryRepository;
+
+import java.time.Duration;
 
 
 @Configuration
 public class MemoryConfig {
+    /** The latest {@code window} messages of a conversation, the default. */
     @Bean
-    ChatMemory chatMemory(JdbcTemplate jdbcTemplate) {
-        JdbcChatMemoryRepository chatMemoryRepository = JdbcChatMemoryRepository.builder()
-                .jdbcTemplate(jdbcTemplate)
-                .build();
+    @ConditionalOnProperty(name = "app.agent.memory.mode", havingValue = "window", matchIfMissing = true)
+    ChatMemory chatMemory(WindowedJdbcChatMemoryRepository chatMemoryStore,
+                          ObjectProvider<WriteBackChatMemoryRepository> writeBackRepository,
+                          @Value("${app.agent.memory.window:20}") int window) {
         return MessageWindowChatMemory.builder()
-                .chatMemoryRepository(chatMemoryRepository)
+                .chatMemoryRepository(chatMemoryRepository(chatMemoryStore, writeBackRepository))
+                .maxMessages(window)
                 .build();
     }
+
+    /**
+     * Conversations kept within {@code app.agent.memory.summary.token-budget},
+     * older turns folded into a summary by the chat model; see
+     * {@link SummarizingChatMemory}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.agent.memory.mode", havingValue = "summary")
+    SummarizingChatMemory summarizingChatMemory(WindowedJdbcChatMemoryRepository chatMemoryStore,
+                                                ObjectProvider<WriteBackChatMemoryRepository> writeBackRepository,
+                                                ChatModel chatModel,
+                                                TokenCountEstimator tokenCountEstimator,
+                                                @Value("${app.agent.memory.summary.token-budget:2000}") int tokenBudget,
+                                                @Value("${app.agent.memory.window:20}") int window,
+                                                MeterRegistry meterRegistry) {
+        return new SummarizingChatMemory(chatMemoryRepository(chatMemoryStore, writeBackRepository),
+                chatModel, tokenCountEstimator, tokenBudget, window, meterRegistry);
+    }
+
+    @Bean
+    TokenCountEstimator tokenCountEstimator() {
+        return new JTokkitTokenCountEstimator();
+    }
+
+    /**
+     * The chat memory table, read only as far back as the window of
+     * {@link #chatMemory}; see {@link WindowedJdbcChatMemoryRepository}.
+     */
+    @Bean
+    WindowedJdbcChatMemoryRepository chatMemoryStore(JdbcTemplate jdbcTemplate,
+                                                     PlatformTransactionManager transactionManager,
+                                                     @Value("${app.agent.memory.window:20}") int window) {
+        return new WindowedJdbcChatMemoryRepository(jdbcTemplate, transactionManager, window);
+    }
+
+    /**
+     * Recent conversations served from memory and written to the database in
+     * batches; see {@link WriteBackChatMemoryRepository}.  With
+     * {@code app.agent.memory.write-back.enabled=false} every turn goes
+     * straight to the database.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.agent.memory.write-back.enabled", havingValue = "true", matchIfMissing = true)
+    WriteBackChatMemoryRepository writeBackChatMemoryRepository(
+            WindowedJdbcChatMemoryRepository chatMemoryStore,
+            @Value("${app.agent.memory.write-back.max-conversations:10000}") int maxConversations,
+            @Value("${app.agent.memory.write-back.max-pending:1000}") int maxPending,
+            @Value("${app.agent.memory.write-back.flush-interval:500ms}") Duration flushInterval,
+            @Value("${app.agent.memory.write-back.cache-ttl:30s}") Duration cacheTtl,
+            MeterRegistry meterRegistry) {
+        WriteBackChatMemoryRepository repository = new WriteBackChatMemoryRepository(
+                chatMemoryStore, maxConversations, maxPending, flushInterval, cacheTtl);
+        Gauge.builder("agent.memory.pending", repository, WriteBackChatMemoryRepository::pendingConversations)
+                .description("Conversations saved but not yet written to the database")
+                .register(meterRegistry);
+        return repository;
+    }
+
+    private static ChatMemoryRepository chatMemoryRepository(
+            WindowedJdbcChatMemoryRepository chatMemoryStore,
+            ObjectProvider<WriteBackChatMemoryRepository> writeBackRepository) {
+        ChatMemoryRepository chatMemoryRepository = writeBackRepository.getIfAvailable();
+        return chatMemoryRepository != null ? chatMemoryRepository : chatMemoryStore;
+    }
+
+    /**
+     * Reports how many turns a crash would lose right now: the conversations
+     * not yet written and how long the oldest has waited.  Down while
+     * flushes keep failing.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.agent.memory.write-back.enabled", havingValue = "true", matchIfMissing = true)
+    HealthIndicator chatMemoryHealthIndicator(WriteBackChatMemoryRepository repository) {
+        return () -> {
+            String failure = repository.lastFlushFailure();
+            Health.Builder health = failure == null ? Health.up() : Health.down().withDetail("lastFlushFailure", failure);
+            return health
+                    .withDetail("pendingConversations", repository.pendingConversations())
+                    .withDetail("oldestPendingAge", repository.oldestPendingAge().toString())
+                    .build();
+        };
+    }
 }
@@ -0,0 +1,45 @@
+package us.dtaylor.agent.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import us.dtaylor.agent.tools.ParallelToolCallingManager;
+
+import java.time.Duration;
+import java.util.Set;
+
+@Configuration
+public class ToolCallingConfig {
+
+    /**
+     * Replaces Spring AI's tool calling manager, which runs the tool calls
+     * of a response one after another, with one that runs the read-only
+     * calls concurrently; see {@link ParallelToolCallingManager}.  With
+     * {@code app.agent.tool-calls.parallel.enabled=false} Spring AI's own is
+     * used.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.agent.tool-calls.parallel.enabled", havingValue = "true", matchIfMissing = true)
+    ParallelToolCallingManager toolCallingManager(
+            ToolCallbackResolver toolCallbackResolver,
+            ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${app.agent.tool-cache.read-only-tools:asset.search,worklog.list}") Set<String> readOnlyTools,
+            @Value("${app.agent.tool-calls.parallel.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.agent.tool-calls.parallel.timeout:30s}") Duration timeout,
+            MeterRegistry meterRegistry) {
+        DefaultToolCallingManager delegate = DefaultToolCallingManager.builder()
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        return new ParallelToolCallingManager(delegate, readOnlyTools, maxConcurrency, timeout, meterRegistry);
+    }
+}
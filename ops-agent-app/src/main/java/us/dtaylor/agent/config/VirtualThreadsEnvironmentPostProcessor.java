@@ -0,0 +1,30 @@
+package us.dtaylor.agent.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Extends {@code spring.threads.virtual.enabled} to Reactor.  Spring Boot
+ * moves Tomcat, MVC async requests and its task executors onto virtual
+ * threads, so a request waiting seconds on the model no longer holds a
+ * platform thread; the MCP client, however, runs its server notification
+ * handlers (tool list changes, logging, sampling) on Reactor's
+ * bounded-elastic scheduler, which stays a capped pool of
+ * platform threads unless told otherwise before it is first used.  This
+ * runs as soon as the environment is ready, well before any scheduler is
+ * created.  An explicit {@code -Dreactor.schedulers.defaultBoundedElasticOnVirtualThreads}
+ * wins.
+ */
+public class VirtualThreadsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String REACTOR_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                && System.getProperty(REACTOR_PROPERTY) == null) {
+            System.setProperty(REACTOR_PROPERTY, "true");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package us.dtaylor.agent.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Removes idle conversations from the chat memory table.  A conversation
+ * is idle when none of its messages is younger than
+ * {@code app.agent.memory.retention.idle-after}; saving a conversation
+ * rewrites all of its messages, so the newest timestamp is its last turn.
+ *
+ * <p>Runs every {@code app.agent.memory.retention.interval}, a batch of
+ * {@code batch-size} conversations per transaction until none is left.
+ * With {@code mode=archive} the messages are copied to
+ * {@code SPRING_AI_CHAT_MEMORY_ARCHIVE} before they are deleted.  Only
+ * messages older than the cut-off are touched, so a conversation resumed
+ * while its batch runs keeps its new turn.</p>
+ *
+ * <p>The {@code (conversation_id, "timestamp")} index that both this job
+ * and {@link WindowedJdbcChatMemoryRepository} read through, and the
+ * archive table, are created at startup when missing; PostgreSQL and H2
+ * take the same statements.  Purged conversations are counted by
+ * {@code agent.memory.purged}, tagged with the mode.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "app.agent.memory.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class ChatMemoryRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryRetentionJob.class);
+
+    private static final String CREATE_INDEX = """
+            CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx
+            ON SPRING_AI_CHAT_MEMORY (conversation_id, "timestamp")""";
+    private static final String CREATE_ARCHIVE = """
+            CREATE TABLE IF NOT EXISTS SPRING_AI_CHAT_MEMORY_ARCHIVE (
+              conversation_id VARCHAR(255) NOT NULL,
+              content TEXT NOT NULL,
+              type VARCHAR(10) NOT NULL,
+              "timestamp" TIMESTAMP NOT NULL,
+              archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+            )""";
+    private static final String SELECT_IDLE = """
+            SELECT conversation_id FROM SPRING_AI_CHAT_MEMORY
+            GROUP BY conversation_id HAVING MAX("timestamp") < ? LIMIT ?""";
+    private static final String ARCHIVE = """
+            INSERT INTO SPRING_AI_CHAT_MEMORY_ARCHIVE (conversation_id, content, type, "timestamp")
+            SELECT conversation_id, content, type, "timestamp" FROM SPRING_AI_CHAT_MEMORY
+            WHERE "timestamp" < ? AND conversation_id IN (%s)""";
+    private static final String DELETE = """
+            DELETE FROM SPRING_AI_CHAT_MEMORY WHERE "timestamp" < ? AND conversation_id IN (%s)""";
+
+    /** What happens to the messages of an idle conversation. */
+    public enum Mode { DELETE, ARCHIVE }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration idleAfter;
+    private final int batchSize;
+    private final Mode mode;
+    private final ObjectProvider<WriteBackChatMemoryRepository> writeBackRepository;
+    private final Counter purged;
+
+    public ChatMemoryRetentionJob(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.agent.memory.retention.idle-after:30d}") Duration idleAfter,
+                                  @Value("${app.agent.memory.retention.batch-size:500}") int batchSize,
+                                  @Value("${app.agent.memory.retention.mode:delete}") Mode mode,
+                                  ObjectProvider<WriteBackChatMemoryRepository> writeBackRepository,
+                                  MeterRegistry meterRegistry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch-size must be positive: " + batchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idleAfter = idleAfter;
+        this.batchSize = batchSize;
+        this.mode = mode;
+        this.writeBackRepository = writeBackRepository;
+        this.purged = Counter.builder("agent.memory.purged")
+                .description("Idle conversations removed from chat memory")
+                .tag("mode", mode.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the index and, when archiving, the archive table.  Both
+     * statements are idempotent.  A missing privilege only costs
+     * performance or leaves the job failing, so it is logged rather than
+     * fatal.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSchema() {
+        try {
+            jdbcTemplate.execute(CREATE_INDEX);
+            if (mode == Mode.ARCHIVE) {
+                jdbcTemplate.execute(CREATE_ARCHIVE);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not create the chat memory index or archive table", ex);
+        }
+    }
+
+    /**
+     * Removes the conversations idle for longer than {@code idle-after}.
+     *
+     * @return the number of conversations removed
+     */
+    @Scheduled(fixedDelayString = "${app.agent.memory.retention.interval:1h}",
+            initialDelayString = "${app.agent.memory.retention.interval:1h}")
+    public int purgeIdleConversations() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(idleAfter));
+        int total = 0;
+        List<String> batch;
+        do {
+            batch = jdbcTemplate.queryForList(SELECT_IDLE, String.class, cutoff, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            purge(batch, cutoff);
+            total += batch.size();
+        } while (batch.size() == batchSize);
+        if (total > 0) {
+            purged.increment(total);
+            log.info("Chat memory retention: {} {} idle conversations", mode == Mode.ARCHIVE ? "archived" : "deleted", total);
+        }
+        return total;
+    }
+
+    private void purge(List<String> conversationIds, Timestamp cutoff) {
+        String placeholders = String.join(", ", Collections.nCopies(conversationIds.size(), "?"));
+        List<Object> args = new ArrayList<>(conversationIds.size() + 1);
+        args.add(cutoff);
+        args.addAll(conversationIds);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (mode == Mode.ARCHIVE) {
+                jdbcTemplate.update(ARCHIVE.formatted(placeholders), args.toArray());
+            }
+            jdbcTemplate.update(DELETE.formatted(placeholders), args.toArray());
+        });
+        WriteBackChatMemoryRepository cache = writeBackRepository.getIfAvailable();
+        if (cache != null) {
+            cache.evict(conversationIds);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package us.dtaylor.agent.memory;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import reactor.core.publisher.Flux;
+
+/**
+ * Measures every turn through the chat client once chat memory has been
+ * added to its prompt: the estimated size of the prompt,
+ * {@code agent.prompt.tokens}, and the time until the answer is complete,
+ * tool calls included, {@code agent.turn}.  Both are tagged with the
+ * memory mode, so window and summary memory can be compared on the same
+ * traffic.
+ */
+public class PromptMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final TokenCountEstimator tokenCountEstimator;
+    private final DistributionSummary promptTokens;
+    private final Timer callTurns;
+    private final Timer streamTurns;
+
+    /**
+     * @param tokenCountEstimator estimates the tokens of a message
+     * @param memoryMode          the {@code app.agent.memory.mode} the meters are tagged with
+     * @param meterRegistry       registry for the meters
+     */
+    public PromptMetricsAdvisor(TokenCountEstimator tokenCountEstimator, String memoryMode, MeterRegistry meterRegistry) {
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.promptTokens = DistributionSummary.builder("agent.prompt.tokens")
+                .description("Estimated prompt size of a turn, chat memory included")
+                .baseUnit("tokens")
+                .tag("memory", memoryMode)
+                .register(meterRegistry);
+        this.callTurns = turnTimer(memoryMode, "call", meterRegistry);
+        this.streamTurns = turnTimer(memoryMode, "stream", meterRegistry);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        promptTokens.record(tokens(request));
+        return callTurns.record(() -> chain.nextCall(request));
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            promptTokens.record(tokens(request));
+            Timer.Sample sample = Timer.start();
+            return chain.nextStream(request).doFinally(signal -> sample.stop(streamTurns));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "PromptMetricsAdvisor";
+    }
+
+    /** Right after the memory advisor, so the prompt is the one sent to the model. */
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 100;
+    }
+
+    private int tokens(ChatClientRequest request) {
+        int tokens = 0;
+        for (Message message : request.prompt().getInstructions()) {
+            if (message.getText() != null) {
+                tokens += tokenCountEstimator.estimate(message.getText());
+            }
+        }
+        return tokens;
+    }
+
+    private static Timer turnTimer(String memoryMode, String mode, MeterRegistry meterRegistry) {
+        return Timer.builder("agent.turn")
+                .description("Time to answer a turn, tool calls included")
+                .tag("memory", memoryMode)
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,312 @@
+package us.dtaylor.agent.memory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chat memory that keeps each conversation within a token budget instead
+ * of a fixed number of messages.
+ *
+ * <p>When a turn takes a conversation over {@code tokenBudget}, the older
+ * turns are handed to the chat model to be folded into a summary, stored
+ * as the first message of the conversation, a {@link SystemMessage}
+ * starting with {@link #SUMMARY_PREFIX}.  The newest turns, up to half the
+ * budget, are kept as they are.  Compaction runs on a background thread,
+ * at most once at a time per conversation, so the turn that went over the
+ * budget is answered without waiting for it; the next turns may go over
+ * the budget until it lands.  If the conversation has moved on in the
+ * meantime only the summarized messages are replaced; if it was cleared
+ * the summary is dropped.</p>
+ *
+ * <p>{@code maxMessages} still bounds the stored messages, so a
+ * conversation cannot outgrow the windowed read of
+ * {@link WindowedJdbcChatMemoryRepository} while compaction lags or
+ * fails: the oldest messages after the summary are dropped, as
+ * {@code MessageWindowChatMemory} would.</p>
+ *
+ * <p>Compactions are timed by {@code agent.memory.compaction}, tagged with
+ * the outcome: {@code compacted}, {@code stale} or {@code failed}.</p>
+ */
+public class SummarizingChatMemory implements ChatMemory, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SummarizingChatMemory.class);
+
+    /** Start of the summary message, which tells it apart from other system messages. */
+    public static final String SUMMARY_PREFIX = "Summary of the conversation so far:\n";
+
+    private static final String SUMMARIZE = """
+            Summarize the conversation below for the field maintenance agent that continues it.
+            Keep asset IDs, QR codes, technicians, work logged and open questions; drop small talk.
+            Reply with the summary only, in at most a few short paragraphs.
+            """;
+
+    /** Tokens a chat model adds per message for its role and framing. */
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ChatMemoryRepository repository;
+    private final ChatModel chatModel;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final int tokenBudget;
+    private final int maxMessages;
+    private final Executor compactionExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> compacting = ConcurrentHashMap.newKeySet();
+    // locks rather than monitors, so that virtual threads waiting on a
+    // conversation while another one talks to the database park instead of
+    // pinning their carrier
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * Compacts on virtual threads, one per compaction.
+     *
+     * @param repository          where conversations are stored
+     * @param chatModel           the model that writes the summaries
+     * @param tokenCountEstimator estimates the tokens of a message
+     * @param tokenBudget         tokens a conversation may take before it is compacted
+     * @param maxMessages         messages a conversation may keep in any case
+     * @param meterRegistry       registry for the compaction timer
+     */
+    public SummarizingChatMemory(ChatMemoryRepository repository,
+                                 ChatModel chatModel,
+                                 TokenCountEstimator tokenCountEstimator,
+                                 int tokenBudget,
+                                 int maxMessages,
+                                 MeterRegistry meterRegistry) {
+        this(repository, chatModel, tokenCountEstimator, tokenBudget, maxMessages,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-memory-compaction-", 0).factory()),
+                meterRegistry);
+    }
+
+    SummarizingChatMemory(ChatMemoryRepository repository,
+                          ChatModel chatModel,
+                          TokenCountEstimator tokenCountEstimator,
+                          int tokenBudget,
+                          int maxMessages,
+                          Executor compactionExecutor,
+                          MeterRegistry meterRegistry) {
+        if (tokenBudget <= 0) {
+            throw new IllegalArgumentException("token-budget must be positive: " + tokenBudget);
+        }
+        if (maxMessages <= 1) {
+            throw new IllegalArgumentException("maxMessages must be greater than 1: " + maxMessages);
+        }
+        this.repository = repository;
+        this.chatModel = chatModel;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.tokenBudget = tokenBudget;
+        this.maxMessages = maxMessages;
+        this.compactionExecutor = compactionExecutor;
+        this.meterRegistry = meterRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        List<Message> conversation;
+        ReentrantLock lock = lock(conversationId);
+        lock.lock();
+        try {
+            conversation = new ArrayList<>(repository.findByConversationId(conversationId));
+            conversation.addAll(messages);
+            int first = isSummary(conversation) ? 1 : 0;
+            while (conversation.size() > maxMessages) {
+                conversation.remove(first);
+            }
+            repository.saveAll(conversationId, conversation);
+        } finally {
+            lock.unlock();
+        }
+        if (tokens(conversation) > tokenBudget && compacting.add(conversationId)) {
+            try {
+                compactionExecutor.execute(() -> {
+                    try {
+                        compact(conversationId);
+                    } finally {
+                        compacting.remove(conversationId);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                compacting.remove(conversationId);
+                log.warn("Could not schedule chat memory compaction of {}", conversationId, ex);
+            }
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        return repository.findByConversationId(conversationId);
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        ReentrantLock lock = lock(conversationId);
+        lock.lock();
+        try {
+            repository.deleteByConversationId(conversationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The tokens {@code messages} take in a prompt, as estimated. */
+    public int tokens(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += MESSAGE_OVERHEAD + (message.getText() == null ? 0 : tokenCountEstimator.estimate(message.getText()));
+        }
+        return tokens;
+    }
+
+    /** Whether a compaction of the conversation is scheduled or running. */
+    public boolean isCompacting(String conversationId) {
+        return compacting.contains(conversationId);
+    }
+
+    /** Stops compacting; a compaction under way is given a few seconds to finish. */
+    @Override
+    public void close() {
+        if (compactionExecutor instanceof ExecutorService executor) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void compact(String conversationId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failed";
+        try {
+            List<Message> snapshot = repository.findByConversationId(conversationId);
+            int summarized = summarizedCount(snapshot);
+            if (summarized == 0) {
+                outcome = "stale";
+                return;
+            }
+            String summary = summarize(snapshot.subList(0, summarized));
+            ReentrantLock lock = lock(conversationId);
+            lock.lock();
+            try {
+                List<Message> current = repository.findByConversationId(conversationId);
+                if (!startsWith(current, snapshot.subList(0, summarized))) {
+                    outcome = "stale";
+                    return;
+                }
+                List<Message> compacted = new ArrayList<>(current.size() - summarized + 1);
+                compacted.add(new SystemMessage(SUMMARY_PREFIX + summary));
+                compacted.addAll(current.subList(summarized, current.size()));
+                repository.saveAll(conversationId, compacted);
+            } finally {
+                lock.unlock();
+            }
+            outcome = "compacted";
+            log.debug("Compacted {} messages of conversation {}", summarized, conversationId);
+        } catch (RuntimeException ex) {
+            log.warn("Chat memory compaction of {} failed", conversationId, ex);
+        } finally {
+            sample.stop(Timer.builder("agent.memory.compaction")
+                    .description("Folding the older turns of a conversation into a summary")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * How many of the oldest messages, the summary included, go into the new
+     * summary: all but the newest that fit in half the budget, starting the
+     * kept part at a user message so no answer loses its question.
+     */
+    private int summarizedCount(List<Message> conversation) {
+        int keepFrom = conversation.size();
+        int kept = 0;
+        while (keepFrom > 0) {
+            int tokens = tokens(List.of(conversation.get(keepFrom - 1)));
+            if (kept + tokens > tokenBudget / 2) {
+                break;
+            }
+            kept += tokens;
+            keepFrom--;
+        }
+        while (keepFrom < conversation.size() && conversation.get(keepFrom).getMessageType() != MessageType.USER) {
+            keepFrom++;
+        }
+        // a summary alone is not worth summarizing again
+        return keepFrom == 1 && isSummary(conversation) ? 0 : keepFrom;
+    }
+
+    private String summarize(List<Message> messages) {
+        StringBuilder transcript = new StringBuilder();
+        for (Message message : messages) {
+            if (message.getText() == null || message.getText().isBlank()) {
+                continue;
+            }
+            String role = isSummary(message) ? "EARLIER SUMMARY" : message.getMessageType().name();
+            String text = isSummary(message) ? message.getText().substring(SUMMARY_PREFIX.length()) : message.getText();
+            transcript.append(role).append(": ").append(text).append("\n\n");
+        }
+        String summary = chatModel.call(new Prompt(List.of(new SystemMessage(SUMMARIZE), new UserMessage(transcript.toString()))))
+                .getResult()
+                .getOutput()
+                .getText();
+        if (summary == null || summary.isBlank()) {
+            throw new IllegalStateException("The chat model returned an empty summary");
+        }
+        return summary.strip();
+    }
+
+    private static boolean startsWith(List<Message> conversation, List<Message> prefix) {
+        if (conversation.size() < prefix.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            Message a = conversation.get(i);
+            Message b = prefix.get(i);
+            if (a.getMessageType() != b.getMessageType() || !Objects.equals(a.getText(), b.getText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSummary(List<Message> conversation) {
+        return !conversation.isEmpty() && isSummary(conversation.get(0));
+    }
+
+    private static boolean isSummary(Message message) {
+        return message.getMessageType() == MessageType.SYSTEM
+                && message.getText() != null
+                && message.getText().startsWith(SUMMARY_PREFIX);
+    }
+
+    private ReentrantLock lock(String conversationId) {
+        return locks[Math.floorMod(conversationId.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,125 @@
+package us.dtaylor.agent.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat memory repository on the {@code SPRING_AI_CHAT_MEMORY} table of
+ * Spring AI's {@code JdbcChatMemoryRepository} that reads only the latest
+ * {@code window} messages of a conversation.
+ *
+ * <p>The read is a {@code LIMIT} query ordered by
+ * {@code (conversation_id, "timestamp")} descending, served by the index
+ * on those columns, so its cost does not depend on how many messages a
+ * conversation has piled up.  Saving replaces the stored messages of a
+ * conversation, as the JDBC repository does; {@link #saveAll(Map)} does
+ * so for many conversations in one transaction of two JDBC batches.
+ * The SQL is the same on PostgreSQL and H2.</p>
+ */
+public class WindowedJdbcChatMemoryRepository implements ChatMemoryRepository {
+
+    private static final String SELECT_LATEST = """
+            SELECT content, type, "timestamp" FROM (
+              SELECT content, type, "timestamp" FROM SPRING_AI_CHAT_MEMORY
+              WHERE conversation_id = ? ORDER BY "timestamp" DESC LIMIT ?) latest
+            ORDER BY latest."timestamp"
+            """;
+    private static final String SELECT_CONVERSATION_IDS = "SELECT DISTINCT conversation_id FROM SPRING_AI_CHAT_MEMORY";
+    private static final String DELETE = "DELETE FROM SPRING_AI_CHAT_MEMORY WHERE conversation_id = ?";
+    private static final String INSERT = """
+            INSERT INTO SPRING_AI_CHAT_MEMORY (conversation_id, content, type, "timestamp") VALUES (?, ?, ?, ?)""";
+
+    private static final RowMapper<Message> MESSAGE = (rs, rowNum) -> {
+        String content = rs.getString("content");
+        return switch (MessageType.valueOf(rs.getString("type"))) {
+            case USER -> new UserMessage(content);
+            case ASSISTANT -> new AssistantMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            // tool responses are not kept as text, as in JdbcChatMemoryRepository
+            case TOOL -> new ToolResponseMessage(List.of());
+        };
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int window;
+
+    /**
+     * @param jdbcTemplate       access to the chat memory table
+     * @param transactionManager transaction manager of its data source
+     * @param window             messages read per conversation, the newest
+     */
+    public WindowedJdbcChatMemoryRepository(JdbcTemplate jdbcTemplate,
+                                            PlatformTransactionManager transactionManager,
+                                            int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.window = window;
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return jdbcTemplate.queryForList(SELECT_CONVERSATION_IDS, String.class);
+    }
+
+    /** The latest {@code window} messages of the conversation, oldest first. */
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return jdbcTemplate.query(SELECT_LATEST, MESSAGE, conversationId, window);
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        saveAll(Map.of(conversationId, messages));
+    }
+
+    /**
+     * Replaces the messages of every conversation in {@code conversations}
+     * in one transaction: one batch of deletes, one batch of inserts.
+     */
+    public void saveAll(Map<String, List<Message>> conversations) {
+        if (conversations.isEmpty()) {
+            return;
+        }
+        List<Object[]> deletes = new ArrayList<>(conversations.size());
+        List<Object[]> inserts = new ArrayList<>();
+        conversations.forEach((conversationId, messages) -> {
+            deletes.add(new Object[]{conversationId});
+            // one millisecond apart keeps the order, as JdbcChatMemoryRepository does
+            long timestamp = Instant.now().toEpochMilli();
+            for (Message message : messages) {
+                inserts.add(new Object[]{conversationId, message.getText(),
+                        message.getMessageType().name(), new Timestamp(timestamp++)});
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(DELETE, deletes);
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT, inserts);
+            }
+        });
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        jdbcTemplate.update(DELETE, conversationId);
+    }
+}
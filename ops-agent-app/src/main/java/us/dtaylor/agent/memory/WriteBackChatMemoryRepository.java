@@ -0,0 +1,232 @@
+package us.dtaylor.agent.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chat memory repository that keeps recent conversations in memory and
+ * writes them to a {@link WindowedJdbcChatMemoryRepository} in the
+ * background.
+ *
+ * <p>A turn reads its conversation from the cache and saves it there; the
+ * conversations saved since the last flush are written every
+ * {@code flushInterval}, all of them in one transaction of two JDBC
+ * batches (delete the old messages, insert the new ones).  When more than
+ * {@code maxPending} conversations are waiting, the saving request flushes
+ * them itself.  A failed flush keeps the conversations pending and is
+ * retried on the next interval.</p>
+ *
+ * <p>Conversations saved since the last flush are lost if the process
+ * dies; {@link #close()} flushes them on a normal shutdown.  How much is
+ * at risk is visible as {@link #pendingConversations()} and
+ * {@link #oldestPendingAge()}; after a crash, those last reported values
+ * bound the turns that were not written.</p>
+ *
+ * <p>Nothing tells one instance of the agent about turns saved by another,
+ * so a cached conversation is dropped {@code cacheTtl} after it was last
+ * saved or loaded and read again from the database.  Within that time a
+ * conversation continued on another instance is seen as it was, and the
+ * next turn here would overwrite the other instance's turns: requests of
+ * one conversation must stick to one instance (sticky sessions on the
+ * conversation id) for at least {@code cacheTtl} plus {@code flushInterval}
+ * after each turn.  Conversations waiting for a flush do not expire.</p>
+ */
+public class WriteBackChatMemoryRepository implements ChatMemoryRepository, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBackChatMemoryRepository.class);
+
+    private final WindowedJdbcChatMemoryRepository store;
+    private final Cache<String, List<Message>> conversations;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final int maxPending;
+    /** Held while writing, so that a delete cannot be undone by a flush in progress. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private volatile String lastFlushFailure;
+
+    /**
+     * @param store              the database table the conversations are written to
+     * @param maxConversations   conversations kept in memory
+     * @param maxPending         conversations that may wait for a flush
+     *                           before a save flushes them itself
+     * @param flushInterval      time between background flushes; zero
+     *                           flushes only on {@link #flush()} or
+     *                           when {@code maxPending} is reached
+     * @param cacheTtl           time a conversation is served from memory
+     *                           after it was last saved or loaded
+     */
+    public WriteBackChatMemoryRepository(WindowedJdbcChatMemoryRepository store,
+                                         int maxConversations,
+                                         int maxPending,
+                                         Duration flushInterval,
+                                         Duration cacheTtl) {
+        this(store, maxConversations, maxPending, flushInterval, cacheTtl, Ticker.systemTicker());
+    }
+
+    WriteBackChatMemoryRepository(WindowedJdbcChatMemoryRepository store,
+                                  int maxConversations,
+                                  int maxPending,
+                                  Duration flushInterval,
+                                  Duration cacheTtl,
+                                  Ticker ticker) {
+        if (cacheTtl.isNegative() || cacheTtl.isZero()) {
+            throw new IllegalArgumentException("cache-ttl must be positive: " + cacheTtl);
+        }
+        this.store = store;
+        this.conversations = Caffeine.newBuilder()
+                .maximumSize(maxConversations)
+                .expireAfterWrite(cacheTtl)
+                .ticker(ticker)
+                .build();
+        this.maxPending = maxPending;
+        if (flushInterval.isZero()) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("chat-memory-flush").daemon().factory());
+            long millis = flushInterval.toMillis();
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        Set<String> ids = new LinkedHashSet<>(store.findConversationIds());
+        ids.addAll(pending.keySet());
+        return List.copyOf(ids);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        Pending waiting = pending.get(conversationId);
+        if (waiting != null) {
+            return waiting.messages();
+        }
+        return conversations.get(conversationId, store::findByConversationId);
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        List<Message> saved = List.copyOf(messages);
+        long now = System.nanoTime();
+        pending.compute(conversationId,
+                (id, waiting) -> new Pending(saved, waiting == null ? now : waiting.since()));
+        conversations.put(conversationId, saved);
+        if (pending.size() > maxPending) {
+            flushQuietly();
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        flushLock.lock();
+        try {
+            pending.remove(conversationId);
+            conversations.invalidate(conversationId);
+            store.deleteByConversationId(conversationId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the cached copies of conversations removed from the database
+     * behind this repository's back.  Pending conversations were saved
+     * since, and stay.
+     */
+    public void evict(Collection<String> conversationIds) {
+        for (String conversationId : conversationIds) {
+            if (!pending.containsKey(conversationId)) {
+                conversations.invalidate(conversationId);
+            }
+        }
+    }
+
+    /**
+     * Writes every pending conversation in one transaction.
+     *
+     * @throws org.springframework.dao.DataAccessException if the write failed;
+     *         the conversations stay pending
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Pending> batch = Map.copyOf(pending);
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<String, List<Message>> messages = new HashMap<>();
+            batch.forEach((conversationId, waiting) -> messages.put(conversationId, waiting.messages()));
+            try {
+                store.saveAll(messages);
+            } catch (RuntimeException e) {
+                lastFlushFailure = e.getMessage();
+                throw e;
+            }
+            // a conversation saved again meanwhile stays pending
+            batch.forEach(pending::remove);
+            lastFlushFailure = null;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Conversations saved since they were last written to the database. */
+    public int pendingConversations() {
+        return pending.size();
+    }
+
+    /** How long the longest-waiting conversation has been pending, zero when none is. */
+    public Duration oldestPendingAge() {
+        long now = System.nanoTime();
+        return pending.values().stream()
+                .map(waiting -> Duration.ofNanos(now - waiting.since()))
+                .max(Duration::compareTo)
+                .orElse(Duration.ZERO);
+    }
+
+    /** Message of the last flush failure, null once a flush has succeeded since. */
+    public String lastFlushFailure() {
+        return lastFlushFailure;
+    }
+
+    /** Stops the background flushes and writes what is still pending. */
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} chat memory conversations, will retry: {}",
+                    pending.size(), e.getMessage());
+        }
+    }
+
+    /** Messages saved for a conversation, pending since {@code since} (nanoTime). */
+    private record Pending(List<Message> messages, long since) {
+    }
+}
@@ -0,0 +1,261 @@
+package us.dtaylor.agent.routing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import us.dtaylor.agent.tools.McpToolNames;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers the questions that need one tool call and no reasoning without
+ * going to the model: "what is asset QR-1A2B3C4D", "show history for
+ * &lt;uuid&gt;".  The question is matched against a few fixed patterns;
+ * a match calls {@code asset.search} or {@code worklog.list} over MCP, with
+ * the argument names of their input schemas ({@code qrOrId}, {@code assetId},
+ * {@code limit}), and fills in a template from the result.  The exchange is added to chat
+ * memory, so a follow-up question that does go to the model sees it.
+ *
+ * <p>Anything else, and any question whose tool call fails or is not
+ * available, goes to the model as before.  Tools are looked up by name
+ * among the callbacks of the request, whatever prefix the MCP client gives
+ * them, so the router sees the same servers and the same tool result cache
+ * as the model.</p>
+ *
+ * <p>Every question is counted by {@code agent.router.requests}, tagged
+ * with its route: {@code asset}, {@code history} or {@code model}.  The
+ * time to answer the routed ones is {@code agent.router.latency}.
+ * {@code app.agent.router.enabled=false} sends everything to the model.</p>
+ */
+@Component
+public class IntentRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(IntentRouter.class);
+
+    /** A QR code, as the asset server prints them, or an asset UUID. */
+    private static final String REF =
+            "(QR-[0-9A-F]{8}|[0-9A-F]{8}-[0-9A-F]{4}-[0-9A-F]{4}-[0-9A-F]{4}-[0-9A-F]{12})";
+    private static final String END = "\\s*[?.!]?";
+
+    private static final Pattern HISTORY = Pattern.compile(
+            "(?:(?:show|list|get)(?: me)?\\s+)?(?:the\\s+)?"
+                    + "(?:(?:work|maintenance|service)\\s+)?(?:history|work\\s*logs?)\\s+(?:for|of|on)\\s+"
+                    + "(?:asset\\s+)?" + REF + END,
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ASSET = Pattern.compile(
+            "(?:what is|what's|which is|look\\s*up|find|show(?: me)?)\\s+(?:asset\\s+)?" + REF + END,
+            Pattern.CASE_INSENSITIVE);
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneOffset.UTC);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private enum Intent {
+        ASSET("asset", "asset.search"),
+        HISTORY("history", "worklog.list");
+
+        private final String route;
+        private final String tool;
+
+        Intent(String route, String tool) {
+            this.route = route;
+            this.tool = tool;
+        }
+    }
+
+    private final ChatMemory chatMemory;
+    private final boolean enabled;
+    private final int historyLimit;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public IntentRouter(ChatMemory chatMemory,
+                        @Value("${app.agent.router.enabled:true}") boolean enabled,
+                        @Value("${app.agent.router.history-limit:5}") int historyLimit,
+                        MeterRegistry meterRegistry) {
+        if (historyLimit <= 0) {
+            throw new IllegalArgumentException("history-limit must be positive: " + historyLimit);
+        }
+        this.chatMemory = chatMemory;
+        this.enabled = enabled;
+        this.historyLimit = historyLimit;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** A router that sends every question to the model. */
+    public static IntentRouter disabled() {
+        return new IntentRouter(null, false, 1, new SimpleMeterRegistry());
+    }
+
+    /**
+     * The answer to {@code userMessage}, already added to the chat memory
+     * of the conversation, or null when the question is for the model.
+     *
+     * @param conversationId the conversation, or null for the default one
+     * @param userMessage    the question
+     * @param callbacks      the tools of the request
+     */
+    public String route(String conversationId, String userMessage, ToolCallback[] callbacks) {
+        if (!enabled || userMessage == null) {
+            return null;
+        }
+        String question = userMessage.strip();
+        Matcher matcher;
+        Intent intent;
+        if ((matcher = HISTORY.matcher(question)).matches()) {
+            intent = Intent.HISTORY;
+        } else if ((matcher = ASSET.matcher(question)).matches()) {
+            intent = Intent.ASSET;
+        } else {
+            count("model");
+            return null;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String ref = ref(matcher.group(1));
+        String answer = answer(intent, ref, callbacks);
+        if (answer == null) {
+            count("model");
+            return null;
+        }
+        chatMemory.add(conversationId == null ? ChatMemory.DEFAULT_CONVERSATION_ID : conversationId,
+                List.of(new UserMessage(userMessage), new AssistantMessage(answer)));
+        count(intent.route);
+        sample.stop(Timer.builder("agent.router.latency")
+                .description("Time to answer a question without the model")
+                .tag("route", intent.route)
+                .register(meterRegistry));
+        return answer;
+    }
+
+    private String answer(Intent intent, String ref, ToolCallback[] callbacks) {
+        ToolCallback tool = tool(intent.tool, callbacks);
+        if (tool == null) {
+            log.debug("No {} tool among the callbacks of the request; asking the model", intent.tool);
+            return null;
+        }
+        try {
+            return switch (intent) {
+                case ASSET -> asset(ref, result(tool.call(arguments(Map.of("qrOrId", ref)))));
+                case HISTORY -> history(ref, result(tool.call(arguments(Map.of("assetId", ref, "limit", historyLimit)))));
+            };
+        } catch (RuntimeException ex) {
+            log.debug("{} for {} failed; asking the model", intent.tool, ref, ex);
+            return null;
+        }
+    }
+
+    private static String asset(String ref, JsonNode asset) {
+        if (!"OK".equals(text(asset, "status"))) {
+            return "I could not find an asset for " + ref + ".";
+        }
+        String about = "%s (%s), %s at %s".formatted(
+                text(asset, "name"), text(asset, "qrCode"), text(asset, "model"), text(asset, "location"));
+        long jobs = asset.path("jobCount").asLong();
+        if (jobs == 0) {
+            return about + ": no work logged yet.";
+        }
+        return "%s: %d %s, %d minutes in total; last worked on %s by %s.".formatted(about,
+                jobs, jobs == 1 ? "job" : "jobs", asset.path("totalMinutes").asLong(),
+                date(asset.path("lastWorkedAt")), text(asset, "lastTechnician"));
+    }
+
+    private static String history(String ref, JsonNode worklogs) {
+        if (!worklogs.isArray()) {
+            throw new IllegalStateException("worklog.list did not return a list");
+        }
+        if (worklogs.isEmpty()) {
+            return "No work has been logged for " + ref + " yet.";
+        }
+        StringBuilder answer = new StringBuilder("Latest work on ").append(ref).append(':');
+        for (JsonNode worklog : worklogs) {
+            answer.append("\n- ").append(date(worklog.path("createdAt")))
+                    .append(", ").append(text(worklog, "technician"))
+                    .append(": ").append(text(worklog, "action"));
+            if (worklog.hasNonNull("durationMinutes")) {
+                answer.append(" (").append(worklog.get("durationMinutes").asInt()).append(" min)");
+            }
+            if (worklog.hasNonNull("notes") && !worklog.get("notes").asText().isBlank()) {
+                answer.append(". ").append(worklog.get("notes").asText().strip());
+            }
+        }
+        return answer.toString();
+    }
+
+    /** The tool named {@code name} by the MCP server; see {@link McpToolNames}. */
+    private static ToolCallback tool(String name, ToolCallback[] callbacks) {
+        for (ToolCallback callback : callbacks) {
+            if (McpToolNames.matches(name, callback.getToolDefinition().name())) {
+                return callback;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The JSON answer of an MCP tool, which arrives as a list of content
+     * items whose text is the tool's JSON.
+     */
+    private static JsonNode result(String toolResult) {
+        JsonNode node = parse(toolResult);
+        if (node.isArray() && !node.isEmpty() && node.get(0).has("text")) {
+            return parse(node.get(0).get("text").asText());
+        }
+        return node;
+    }
+
+    private static JsonNode parse(String json) {
+        try {
+            return JSON.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Tool result is not JSON", e);
+        }
+    }
+
+    private static String arguments(Map<String, Object> arguments) {
+        try {
+            return JSON.writeValueAsString(arguments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : "unknown";
+    }
+
+    /** ISO instants as Spring Boot writes them, or epoch seconds. */
+    private static String date(JsonNode instant) {
+        if (instant.isNumber()) {
+            return DATE.format(Instant.ofEpochSecond(instant.asLong()));
+        }
+        return instant.isTextual() ? DATE.format(Instant.parse(instant.asText())) : "an unknown date";
+    }
+
+    /** QR codes are upper case, UUIDs lower case. */
+    private static String ref(String ref) {
+        return ref.regionMatches(true, 0, "QR-", 0, 3) ? ref.toUpperCase(Locale.ROOT) : ref.toLowerCase(Locale.ROOT);
+    }
+
+    private void count(String route) {
+        meterRegistry.counter("agent.router.requests", "route", route).increment();
+    }
+}
@@ -0,0 +1,51 @@
+package us.dtaylor.agent.tools;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * Routes a tool's calls through a {@link ToolResultCache}: results of a
+ * read-only tool are served from the cache, calls of a writing tool evict
+ * the entries they may have made stale.  Created by
+ * {@link ToolResultCache#wrap}.
+ */
+public class CachingToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final ToolResultCache cache;
+    private final boolean writes;
+
+    CachingToolCallback(ToolCallback delegate, ToolResultCache cache, boolean writes) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.writes = writes;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        if (writes) {
+            return cache.write(toolInput, () -> delegate.call(toolInput));
+        }
+        return cache.read(delegate.getToolDefinition().name(), toolInput, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        if (writes) {
+            return cache.write(toolInput, () -> delegate.call(toolInput, toolContext));
+        }
+        return cache.read(delegate.getToolDefinition().name(), toolInput, () -> delegate.call(toolInput, toolContext));
+    }
+}
@@ -0,0 +1,186 @@
+package us.dtaylor.agent.tools;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.mcp.customizer.McpSyncClientCustomizer;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.support.ToolUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the tools discovered on each MCP server, so that a request does
+ * not cost a {@code tools/list} round trip to every server.
+ *
+ * <p>The tools of a server are listed again when it sends a
+ * {@code notifications/tools/list_changed}, when the client has
+ * re-initialized its session with the server (a reconnect), and otherwise
+ * after {@code app.agent.tool-discovery.ttl} as a safety net for missed
+ * notifications.  A reconnect is noticed without a round trip: the
+ * server info the client holds is replaced by every initialization.  A
+ * failed listing is not kept, so the next request tries again.</p>
+ *
+ * <p>Each listing is timed by {@code agent.tools.discovery}, tagged with
+ * the reason it was needed.</p>
+ *
+ * <p>This is a {@link McpSyncClientCustomizer} so that it can subscribe to
+ * the list-changed notifications of the clients as they are built; it is
+ * deliberately not a {@link ToolCallbackProvider} bean, which Spring AI
+ * would list eagerly at startup.</p>
+ */
+@Component
+public class McpToolDiscovery implements McpSyncClientCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(McpToolDiscovery.class);
+
+    private final Supplier<List<McpSyncClient>> clients;
+    private final long ttlNanos;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier ticker;
+    private final Map<McpSyncClient, Discovered> discovered = new ConcurrentHashMap<>();
+    /** Bumped by every invalidation, so a listing started before one is not kept. */
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public McpToolDiscovery(ObjectProvider<List<McpSyncClient>> clients,
+                            @Value("${app.agent.tool-discovery.ttl:5m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this(() -> clients.getIfAvailable(List::of), ttl, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Creates an unmonitored discovery that lists the tools of
+     * {@code clients} on every call, as {@link SyncMcpToolCallbackProvider}
+     * does.
+     */
+    public McpToolDiscovery(List<McpSyncClient> clients) {
+        this(() -> clients, Duration.ZERO, null, System::nanoTime);
+    }
+
+    McpToolDiscovery(Supplier<List<McpSyncClient>> clients, Duration ttl,
+                     MeterRegistry meterRegistry, LongSupplier ticker) {
+        this.clients = clients;
+        this.ttlNanos = ttl.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public void customize(String name, McpClient.SyncSpec spec) {
+        spec.toolsChangeConsumer(tools -> {
+            log.info("Tools of MCP connection '{}' changed, {} now", name, tools.size());
+            invalidate("list_changed");
+        });
+    }
+
+    /** The tools of every MCP server. */
+    public ToolCallback[] getToolCallbacks() {
+        return callbacks(client -> true);
+    }
+
+    /**
+     * A provider of the tools of the MCP servers whose
+     * {@code serverInfo().name()} is one of {@code serverNames}.
+     */
+    public ToolCallbackProvider forServers(Set<String> serverNames) {
+        Set<String> names = Set.copyOf(serverNames);
+        return () -> callbacks(client -> names.contains(client.getServerInfo().name()));
+    }
+
+    /** Forgets every discovered tool, so that the next request lists them again. */
+    public void invalidate() {
+        invalidate("invalidated");
+    }
+
+    private void invalidate(String reason) {
+        generation.incrementAndGet();
+        discovered.replaceAll((client, known) -> known.stale(reason));
+    }
+
+    private ToolCallback[] callbacks(Predicate<McpSyncClient> selected) {
+        ToolCallback[] callbacks = clients.get().stream()
+                .filter(selected)
+                .flatMap(client -> Arrays.stream(toolsOf(client)))
+                .toArray(ToolCallback[]::new);
+        List<String> duplicates = ToolUtils.getDuplicateToolNames(callbacks);
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException("Multiple tools with the same name (%s)"
+                    .formatted(String.join(", ", duplicates)));
+        }
+        return callbacks;
+    }
+
+    private ToolCallback[] toolsOf(McpSyncClient client) {
+        Discovered known = discovered.get(client);
+        String reason = refreshReason(client, known);
+        if (reason == null) {
+            return known.callbacks();
+        }
+        long gen = generation.get();
+        McpSchema.Implementation serverInfo = client.getServerInfo();
+        long started = ticker.getAsLong();
+        ToolCallback[] callbacks = new SyncMcpToolCallbackProvider(client).getToolCallbacks();
+        long now = ticker.getAsLong();
+        if (meterRegistry != null) {
+            Timer.builder("agent.tools.discovery")
+                    .description("Time to list the tools of an MCP server")
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(now - started));
+        }
+        if (ttlNanos > 0 && generation.get() == gen) {
+            discovered.put(client, new Discovered(callbacks, client.getServerInfo() == serverInfo ? serverInfo : null,
+                    now, null));
+        }
+        return callbacks;
+    }
+
+    /** Why the tools of {@code client} must be listed, or null when {@code known} will do. */
+    private String refreshReason(McpSyncClient client, Discovered known) {
+        if (known == null) {
+            return "initial";
+        }
+        if (known.staleReason() != null) {
+            return known.staleReason();
+        }
+        if (known.serverInfo() != client.getServerInfo()) {
+            return "reconnect";
+        }
+        if (ticker.getAsLong() - known.loadedAt() >= ttlNanos) {
+            return "ttl";
+        }
+        return null;
+    }
+
+    /**
+     * The tools listed on a server, with the server info of the session
+     * they were listed in.  Once stale, only the reason is of use.
+     */
+    private record Discovered(ToolCallback[] callbacks, McpSchema.Implementation serverInfo,
+                              long loadedAt, String staleReason) {
+
+        Discovered stale(String reason) {
+            return new Discovered(callbacks, serverInfo, loadedAt, reason);
+        }
+    }
+}
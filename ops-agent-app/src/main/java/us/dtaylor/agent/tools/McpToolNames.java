@@ -0,0 +1,47 @@
+package us.dtaylor.agent.tools;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Matches the tool names used in configuration, as the MCP server declares
+ * them ({@code asset.search}), against the names of the tool callbacks the
+ * model sees.  Spring AI's MCP client prefixes every tool name with the
+ * client name and drops the characters a model API does not accept, so
+ * {@code asset.search} is called {@code spring_ai_mcp_client_assets_assetsearch}
+ * by the model.
+ */
+public final class McpToolNames {
+
+    private McpToolNames() {
+    }
+
+    /**
+     * Whether {@code callbackName}, the name of a tool callback or of a tool
+     * call made by the model, is the MCP tool {@code toolName}, with or
+     * without the client prefix.
+     */
+    public static boolean matches(String toolName, String callbackName) {
+        if (toolName.equals(callbackName)) {
+            return true;
+        }
+        String wanted = normalized(toolName);
+        String candidate = normalized(callbackName);
+        return !wanted.isEmpty() && (candidate.equals(wanted) || candidate.endsWith("_" + wanted));
+    }
+
+    /** Whether {@code callbackName} is any of the MCP tools {@code toolNames}. */
+    public static boolean matchesAny(Collection<String> toolNames, String callbackName) {
+        for (String toolName : toolNames) {
+            if (matches(toolName, callbackName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The name as Spring AI's MCP client rewrites it, ignoring case. */
+    private static String normalized(String toolName) {
+        return toolName.replaceAll("[^A-Za-z0-9_-]", "").replace('-', '_').toLowerCase(Locale.ROOT);
+    }
+}
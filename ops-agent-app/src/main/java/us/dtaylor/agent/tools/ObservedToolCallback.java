@@ -0,0 +1,60 @@
+package us.dtaylor.agent.tools;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reports the calls of a tool as {@link ToolCallEvent}s.  Created by
+ * {@link ToolCallEvent#observe}.
+ */
+class ObservedToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final Consumer<ToolCallEvent> listener;
+
+    ObservedToolCallback(ToolCallback delegate, Consumer<ToolCallEvent> listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return observe(() -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return observe(() -> delegate.call(toolInput, toolContext));
+    }
+
+    private String observe(Supplier<String> call) {
+        String tool = delegate.getToolDefinition().name();
+        listener.accept(new ToolCallEvent(tool, "started", null));
+        long started = System.nanoTime();
+        String status = "failed";
+        try {
+            String result = call.get();
+            status = "finished";
+            return result;
+        } finally {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            listener.accept(new ToolCallEvent(tool, status, millis));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package us.dtaylor.agent.tools;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the read-only tool calls the model asks for in one response
+ * concurrently instead of one after another, so looking up three assets
+ * takes as long as the slowest lookup.
+ *
+ * <p>The calls are taken in the order the model made them.  A run of
+ * consecutive read-only calls is executed concurrently, at most
+ * {@code maxConcurrency} at a time across all requests; any other call
+ * (a write such as {@code worklog.create}, or a tool not known to be
+ * read-only) waits for the run before it to finish and runs alone, on the
+ * calling thread, so writes keep their order relative to each other and
+ * to the reads around them.  MCP tool definitions carry no read-only hint
+ * yet, so the read-only tools are the ones listed for
+ * {@link ToolResultCache}, matched against the prefixed names the model
+ * calls them by as {@link McpToolNames} does.</p>
+ *
+ * <p>Each call is executed by {@code delegate}, Spring AI's
+ * {@code DefaultToolCallingManager}, so tool resolution, observations and
+ * the handling of tool errors are unchanged.  A concurrent call not done
+ * within {@code timeout}, time spent waiting for a slot included, is
+ * cancelled and answered with an error text the model can act on, and is
+ * counted by {@code agent.tool.timeouts}.  Responses go back to the model
+ * in the order of the calls.</p>
+ */
+public class ParallelToolCallingManager implements ToolCallingManager, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelToolCallingManager.class);
+
+    private final ToolCallingManager delegate;
+    private final Set<String> readOnlyTools;
+    private final Duration timeout;
+    private final Semaphore slots;
+    private final ExecutorService executor;
+    private final Counter timeouts;
+
+    /**
+     * @param delegate       executes a single tool call
+     * @param readOnlyTools  MCP names of the tools that may run concurrently
+     * @param maxConcurrency tool calls running at once, over all requests
+     * @param timeout        time a concurrent call may take
+     * @param meterRegistry  registry for the timeout counter
+     */
+    public ParallelToolCallingManager(ToolCallingManager delegate,
+                                      Set<String> readOnlyTools,
+                                      int maxConcurrency,
+                                      Duration timeout,
+                                      MeterRegistry meterRegistry) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("max-concurrency must be positive: " + maxConcurrency);
+        }
+        this.delegate = delegate;
+        this.readOnlyTools = Set.copyOf(readOnlyTools);
+        this.timeout = timeout;
+        this.slots = new Semaphore(maxConcurrency);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tool-call-", 0).factory());
+        this.timeouts = Counter.builder("agent.tool.timeouts")
+                .description("Concurrent tool calls cut off after the timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElse(null);
+        if (assistantMessage == null || assistantMessage.getToolCalls().size() < 2) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        int next = 0;
+        while (next < toolCalls.size()) {
+            int end = next;
+            while (end < toolCalls.size() && McpToolNames.matchesAny(readOnlyTools, toolCalls.get(end).name())) {
+                end++;
+            }
+            List<Call> run = end - next > 1
+                    ? concurrently(prompt, chatResponse, assistantMessage, toolCalls.subList(next, end))
+                    : List.of(call(prompt, chatResponse, assistantMessage, toolCalls.get(next)));
+            for (Call call : run) {
+                responses.add(call.response());
+                returnDirect &= call.returnDirect();
+            }
+            next += run.size();
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(new ToolResponseMessage(responses, Map.of()));
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    /** Stops the tool call threads; calls under way are interrupted. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private List<Call> concurrently(Prompt prompt, ChatResponse chatResponse, AssistantMessage assistantMessage,
+                                    List<AssistantMessage.ToolCall> toolCalls) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Future<Call>> futures = new ArrayList<>(toolCalls.size());
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            futures.add(executor.submit(() -> {
+                slots.acquire();
+                try {
+                    return call(prompt, chatResponse, assistantMessage, toolCall);
+                } finally {
+                    slots.release();
+                }
+            }));
+        }
+        List<Call> calls = new ArrayList<>(toolCalls.size());
+        try {
+            for (int i = 0; i < toolCalls.size(); i++) {
+                calls.add(await(futures.get(i), toolCalls.get(i), deadline));
+            }
+        } finally {
+            // a failed call fails the turn; nobody waits for the rest
+            futures.forEach(future -> future.cancel(true));
+        }
+        return calls;
+    }
+
+    private Call await(Future<Call> future, AssistantMessage.ToolCall toolCall, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            log.warn("Tool call {} timed out after {}", toolCall.name(), timeout);
+            return new Call(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(),
+                    "Error: the tool did not answer within " + timeout.toSeconds() + " seconds"), false);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Tool call " + toolCall.name() + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for tool call " + toolCall.name(), e);
+        }
+    }
+
+    /** Executes one tool call through the delegate, as if the model had asked for it alone. */
+    private Call call(Prompt prompt, ChatResponse chatResponse, AssistantMessage assistantMessage,
+                      AssistantMessage.ToolCall toolCall) {
+        AssistantMessage single = new AssistantMessage(assistantMessage.getText(), assistantMessage.getMetadata(),
+                List.of(toolCall));
+        ToolExecutionResult result = delegate.executeToolCalls(prompt,
+                new ChatResponse(List.of(new Generation(single)), chatResponse.getMetadata()));
+        List<Message> history = result.conversationHistory();
+        ToolResponseMessage responseMessage = (ToolResponseMessage) history.get(history.size() - 1);
+        return new Call(responseMessage.getResponses().get(0), result.returnDirect());
+    }
+
+    private record Call(ToolResponseMessage.ToolResponse response, boolean returnDirect) {
+    }
+}
@@ -0,0 +1,31 @@
+package us.dtaylor.agent.tools;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Progress of one tool call made by the model: {@code started} when the
+ * call begins, then {@code finished} or {@code failed} with the time it
+ * took.  Streamed to the client while the answer is being generated.
+ *
+ * @param tool   the tool name
+ * @param status {@code started}, {@code finished} or {@code failed}
+ * @param millis duration of the call, null while it is running
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ToolCallEvent(String tool, String status, Long millis) {
+
+    /**
+     * Wraps {@code callbacks} so that each call is reported to
+     * {@code listener} before and after it runs.  The listener may be
+     * called from any thread.
+     */
+    public static ToolCallback[] observe(ToolCallback[] callbacks, Consumer<ToolCallEvent> listener) {
+        return Arrays.stream(callbacks)
+                .map(callback -> (ToolCallback) new ObservedToolCallback(callback, listener))
+                .toArray(ToolCallback[]::new);
+    }
+}
@@ -0,0 +1,292 @@
+package us.dtaylor.agent.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of read-only MCP tools for the agent.  Within a
+ * conversation the model tends to look up the same asset several times;
+ * repeated calls with the same arguments are answered here instead of
+ * going back to the MCP server.
+ *
+ * <p>Entries are keyed on the tool name and the canonical JSON of the
+ * arguments (object keys sorted, whitespace dropped), so argument order
+ * does not matter.  They expire after {@code app.agent.tool-cache.ttl}.
+ * MCP tool definitions carry no read-only hint yet, so the read-only and
+ * the writing tools are listed in configuration, by the name the MCP server
+ * gives them; see {@link McpToolNames}.</p>
+ *
+ * <p>A call to a writing tool evicts every entry about the assets it
+ * names.  Tools refer to assets by id or by QR code; the pairing of the
+ * two is learned from {@code asset.search} results.  An entry made with a
+ * QR code whose asset id is not known yet is evicted by every write, as
+ * it might be about the asset written.  Results loaded while a write was
+ * in progress are not stored.</p>
+ *
+ * <p>Hits and misses are published as the {@code cache.*} meters tagged
+ * {@code cache=agent.tools}; model-visible latency avoided by hits (the
+ * time the original call took) is counted by {@code agent.tool.cache.saved}.</p>
+ */
+@Component
+public class ToolResultCache {
+
+    /** Argument names, at any depth, that refer to an asset by id or QR code. */
+    private static final Set<String> ASSET_ARGUMENTS = Set.of("qrOrId", "assetId", "asset_id");
+
+    private static final ObjectMapper CANONICAL = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final Set<String> readOnlyTools;
+    private final Set<String> writeTools;
+    private final Cache<String, Entry> results;
+    /** Asset id by QR code, as seen in {@code asset.search} results. */
+    private final Cache<String, String> assetIdByQr;
+    private final LongAdder savedNanos = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public ToolResultCache(@Value("${app.agent.tool-cache.enabled:true}") boolean enabled,
+                           @Value("${app.agent.tool-cache.max-size:1000}") long maxSize,
+                           @Value("${app.agent.tool-cache.ttl:60s}") Duration ttl,
+                           @Value("${app.agent.tool-cache.read-only-tools:asset.search,worklog.list}") Set<String> readOnlyTools,
+                           @Value("${app.agent.tool-cache.write-tools:worklog.create}") Set<String> writeTools,
+                           MeterRegistry meterRegistry) {
+        this(enabled ? maxSize : 0, ttl, readOnlyTools, writeTools, Ticker.systemTicker());
+        if (results != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, results, "agent.tools");
+            FunctionCounter.builder("agent.tool.cache.saved", savedNanos, n -> n.sum() / 1e9)
+                    .description("Tool call time avoided by cache hits")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Creates an unmonitored cache.  A max size of zero disables caching
+     * and every call goes to the tool.
+     */
+    public ToolResultCache(long maxSize, Duration ttl, Set<String> readOnlyTools, Set<String> writeTools) {
+        this(maxSize, ttl, readOnlyTools, writeTools, Ticker.systemTicker());
+    }
+
+    ToolResultCache(long maxSize, Duration ttl, Set<String> readOnlyTools, Set<String> writeTools, Ticker ticker) {
+        this.readOnlyTools = Set.copyOf(readOnlyTools);
+        this.writeTools = Set.copyOf(writeTools);
+        if (maxSize <= 0) {
+            this.results = null;
+            this.assetIdByQr = null;
+            return;
+        }
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.assetIdByQr = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .ticker(ticker)
+                .build();
+    }
+
+    /** A cache that never stores anything. */
+    public static ToolResultCache disabled() {
+        return new ToolResultCache(0, Duration.ZERO, Set.of(), Set.of());
+    }
+
+    /**
+     * Wraps the read-only and writing tools among {@code callbacks} so that
+     * they go through this cache; other tools are returned unchanged.
+     */
+    public ToolCallback[] wrap(ToolCallback[] callbacks) {
+        if (results == null) {
+            return callbacks;
+        }
+        return Arrays.stream(callbacks)
+                .map(callback -> {
+                    String name = callback.getToolDefinition().name();
+                    if (McpToolNames.matchesAny(readOnlyTools, name)) {
+                        return new CachingToolCallback(callback, this, false);
+                    }
+                    if (McpToolNames.matchesAny(writeTools, name)) {
+                        return new CachingToolCallback(callback, this, true);
+                    }
+                    return callback;
+                })
+                .toArray(ToolCallback[]::new);
+    }
+
+    /** Share of read-only tool calls answered from the cache, 0 when there were none. */
+    public double hitRate() {
+        return results == null ? 0 : results.stats().hitRate();
+    }
+
+    /** Total time the cached calls took when they were made, summed over all hits. */
+    public Duration savedTime() {
+        return Duration.ofNanos(savedNanos.sum());
+    }
+
+    /** Result of a read-only tool, from the cache when possible. */
+    String read(String tool, String arguments, Supplier<String> call) {
+        JsonNode args = parse(arguments);
+        if (args == null) {
+            return call.get();
+        }
+        String key = tool + " " + canonical(args);
+        Entry cached = results.getIfPresent(key);
+        if (cached != null) {
+            savedNanos.add(cached.loadNanos());
+            return cached.result();
+        }
+        long gen = generation.get();
+        long started = System.nanoTime();
+        String result = call.get();
+        long loadNanos = System.nanoTime() - started;
+        learnAssetIds(result);
+        if (generation.get() == gen) {
+            results.put(key, new Entry(result, loadNanos, assetRefs(args)));
+        }
+        return result;
+    }
+
+    /** Result of a writing tool, after which entries about its assets are evicted. */
+    String write(String arguments, Supplier<String> call) {
+        generation.incrementAndGet();
+        try {
+            return call.get();
+        } finally {
+            JsonNode args = parse(arguments);
+            evict(args == null ? null : assetRefs(args));
+        }
+    }
+
+    /** Drops entries about any of the assets, or everything when {@code refs} is null. */
+    private void evict(Set<String> refs) {
+        generation.incrementAndGet();
+        if (refs == null) {
+            results.invalidateAll();
+            return;
+        }
+        Set<String> written = new HashSet<>();
+        boolean unresolved = false;
+        for (String ref : refs) {
+            String id = assetId(ref);
+            written.add(ref);
+            if (id == null) {
+                unresolved = true;
+            } else {
+                written.add(id);
+            }
+        }
+        for (Iterator<Entry> it = results.asMap().values().iterator(); it.hasNext(); ) {
+            if (concerns(it.next(), written, unresolved)) {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean concerns(Entry entry, Set<String> written, boolean writtenUnresolved) {
+        for (String ref : entry.assetRefs()) {
+            String id = assetId(ref);
+            if (written.contains(ref) || id == null || written.contains(id)) {
+                return true;
+            }
+        }
+        // an unknown QR code written might be any asset an entry refers to by id
+        return writtenUnresolved && !entry.assetRefs().isEmpty();
+    }
+
+    /** The asset id a reference stands for, or null when not known. */
+    private String assetId(String ref) {
+        return isUuid(ref) ? ref.toLowerCase() : assetIdByQr.getIfPresent(ref);
+    }
+
+    /**
+     * Remembers the QR code of an asset found by {@code asset.search}.  MCP
+     * tool results arrive as a list of content items whose text is the
+     * tool's JSON answer.
+     */
+    private void learnAssetIds(String result) {
+        JsonNode node = parse(result);
+        if (node == null) {
+            return;
+        }
+        for (JsonNode item : node.isArray() ? node : List.of(node)) {
+            JsonNode answer = item.has("text") ? parse(item.get("text").asText()) : item;
+            if (answer != null && answer.hasNonNull("id") && answer.hasNonNull("qrCode")) {
+                assetIdByQr.put(answer.get("qrCode").asText(), answer.get("id").asText().toLowerCase());
+            }
+        }
+    }
+
+    private static Set<String> assetRefs(JsonNode args) {
+        Set<String> refs = new HashSet<>();
+        collectAssetRefs(args, refs);
+        return refs;
+    }
+
+    private static void collectAssetRefs(JsonNode node, Set<String> refs) {
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (ASSET_ARGUMENTS.contains(field.getKey()) && field.getValue().isTextual()) {
+                refs.add(field.getValue().asText());
+            } else if (field.getValue().isObject()) {
+                collectAssetRefs(field.getValue(), refs);
+            }
+        }
+    }
+
+    private static String canonical(JsonNode args) {
+        try {
+            return CANONICAL.writeValueAsString(CANONICAL.treeToValue(args, Object.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonNode parse(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return CANONICAL.readTree(json);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static boolean isUuid(String value) {
+        try {
+            return value.length() == 36 && UUID.fromString(value) != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private record Entry(String result, long loadNanos, Set<String> assetRefs) {
+    }
+}
@@ -10,5 +10,16 @@ CREATE TABLE IF NOT EXISTS SPRING_AI_CHAT_MEMORY (
     "timestamp" TIMESTAMP DEFAULT CURRENT_TIMESTAMP
     );
 
-CREATE INDEX IF NOT EXISTS idx_spring_ai_chat_memory_conv
-    ON SPRING_AI_CHAT_MEMORY (conversation_id);
+-- Serves the latest-messages read of WindowedJdbcChatMemoryRepository and the
+-- idle check of ChatMemoryRetentionJob (same name as the Postgres index).
+CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx
+    ON SPRING_AI_CHAT_MEMORY (conversation_id, "timestamp");
+
+-- Idle conversations, when app.agent.memory.retention.mode=archive.
+CREATE TABLE IF NOT EXISTS SPRING_AI_CHAT_MEMORY_ARCHIVE (
+    conversation_id VARCHAR(255) NOT NULL,
+    content CLOB NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    "timestamp" TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+    );
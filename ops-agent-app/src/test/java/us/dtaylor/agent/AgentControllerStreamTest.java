@@ -0,0 +1,239 @@
+package us.dtaylor.agent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import us.dtaylor.agent.api.AgentController;
+import us.dtaylor.agent.routing.IntentRouter;
+import us.dtaylor.agent.tools.McpToolDiscovery;
+import us.dtaylor.agent.tools.ToolResultCache;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for {@code POST /agent/ask/stream} against a {@link ScriptedChatModel}
+ * behind a real {@link ChatClient}, set up like {@code ChatClientConfig}:
+ * chat memory is a default advisor.
+ */
+class AgentControllerStreamTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentControllerStreamTest.class);
+
+    private final ChatMemory chatMemory = MessageWindowChatMemory.builder()
+            .chatMemoryRepository(new InMemoryChatMemoryRepository())
+            .build();
+
+    @Test
+    void streamsToolProgressTokensAndDoneThenSavesTheExchange() throws Exception {
+        ScriptedChatModel model = new ScriptedChatModel(Duration.ofMillis(5), "Pump", " P-100", " is", " OK.")
+                .callingTool("asset.search", "{\"qrOrId\":\"QR-1\"}");
+        StubTool search = new StubTool("asset.search");
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller(model, search)).build();
+
+        MvcResult started = mvc.perform(post("/agent/ask/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content("{\"userMessage\":\"Status of QR-1?\",\"conversationId\":\"c1\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).containsSubsequence(
+                "event:tool", "\"tool\":\"asset.search\",\"status\":\"started\"",
+                "event:tool", "\"tool\":\"asset.search\",\"status\":\"finished\",\"millis\":",
+                "event:token", "{\"text\":\"Pump\"}",
+                "event:token", "{\"text\":\" P-100\"}",
+                "event:token", "{\"text\":\" is\"}",
+                "event:token", "{\"text\":\" OK.\"}",
+                "event:done", "{\"toolCount\":1}");
+        assertThat(search.calls.get()).isEqualTo(1);
+
+        List<Message> saved = chatMemory.get("c1");
+        assertThat(saved).extracting(Message::getMessageType)
+                .containsExactly(MessageType.USER, MessageType.ASSISTANT);
+        assertThat(saved.get(1).getText()).isEqualTo("Pump P-100 is OK.");
+    }
+
+    @Test
+    void modelFailureEndsTheStreamWithAnErrorEvent() throws Exception {
+        ScriptedChatModel model = new ScriptedChatModel(Duration.ofMillis(5), "never sent")
+                .callingTool("manual.get", "{}");
+        AgentController controller = controller(model, new StubTool("asset.search"));
+
+        List<ServerSentEvent<Object>> events = controller
+                .askStream(new AgentController.AskRequest("Manual?", "c2"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("error");
+        assertThat(events.get(0).data().toString()).contains("No tool named manual.get");
+        // the question is remembered before the model is called, as with ask
+        assertThat(chatMemory.get("c2")).extracting(Message::getMessageType)
+                .containsExactly(MessageType.USER);
+    }
+
+    /**
+     * On Tomcat, an answer streams for longer than the MVC async request
+     * timeout, here 500 ms standing in for the 30 s default.
+     */
+    @Test
+    void answerStreamsPastTheAsyncRequestTimeout() throws Exception {
+        ScriptedChatModel model = new ScriptedChatModel(Duration.ofMillis(300), "Pump", " P-100", " is", " OK.");
+        AgentController controller = controller(model);
+
+        try (ConfigurableApplicationContext server = new SpringApplicationBuilder(StreamServer.class)
+                .properties("server.port=0", "spring.mvc.async.request-timeout=500ms",
+                        "spring.main.banner-mode=off", "spring.profiles.active=")
+                .initializers(context -> context.getBeanFactory().registerSingleton("agentController", controller))
+                .run()) {
+            int port = ((ServletWebServerApplicationContext) server).getWebServer().getPort();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/agent/ask/stream"))
+                            .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                            .header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE)
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"userMessage\":\"Status of QR-1?\",\"conversationId\":\"c3\"}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).containsSubsequence(
+                    "event:token", "{\"text\":\"Pump\"}", "event:token", "{\"text\":\" OK.\"}", "event:done");
+        }
+    }
+
+    @Test
+    void answerNotDoneWithinTheStreamTimeoutEndsWithAnErrorEvent() {
+        ScriptedChatModel model = new ScriptedChatModel(Duration.ofMillis(100), "one", " two", " three", " four", " five");
+        AgentController limited = new AgentController(chatClient(model), new McpToolDiscovery(List.of()),
+                ToolResultCache.disabled(), IntentRouter.disabled(), Duration.ofMillis(250));
+
+        List<ServerSentEvent<Object>> events = limited
+                .askStream(new AgentController.AskRequest("Count to five", "c4"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(events).extracting(ServerSentEvent::event).startsWith("token").endsWith("error")
+                .doesNotContain("done").hasSizeLessThan(5);
+        assertThat(events.get(events.size() - 1).data().toString()).contains("took longer than");
+    }
+
+    /**
+     * Time to first token of the stream versus the time {@code ask} takes
+     * to return, for a model producing 40 tokens at 25 ms each after one
+     * tool call.  Run with {@code -Dbench=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void firstTokenArrivesLongBeforeTheBlockingAnswer() throws Exception {
+        String[] tokens = new String[40];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = " word" + i;
+        }
+        ScriptedChatModel model = new ScriptedChatModel(Duration.ofMillis(25), tokens)
+                .callingTool("asset.search", "{\"qrOrId\":\"QR-1\"}");
+        AgentController controller = controller(model, new StubTool("asset.search"));
+
+        long blockingStarted = System.nanoTime();
+        controller.ask(new AgentController.AskRequest("Status of QR-1?", "bench-ask"));
+        long blockingMillis = (System.nanoTime() - blockingStarted) / 1_000_000;
+
+        long streamStarted = System.nanoTime();
+        long[] firstToken = {-1};
+        controller.askStream(new AgentController.AskRequest("Status of QR-1?", "bench-stream"))
+                .doOnNext(event -> {
+                    if ("token".equals(event.event()) && firstToken[0] < 0) {
+                        firstToken[0] = (System.nanoTime() - streamStarted) / 1_000_000;
+                    }
+                })
+                .blockLast(Duration.ofSeconds(10));
+        long streamMillis = (System.nanoTime() - streamStarted) / 1_000_000;
+
+        log.info("{} tokens at 25 ms: ask returned after {} ms; stream first token after {} ms, done after {} ms",
+                tokens.length, blockingMillis, firstToken[0], streamMillis);
+        assertThat(firstToken[0]).isBetween(0L, blockingMillis / 5);
+    }
+
+    private AgentController controller(ScriptedChatModel model, ToolCallback... tools) throws Exception {
+        AgentController controller = new AgentController(chatClient(model), List.of());
+        Field field = AgentController.class.getDeclaredField("toolCallbackProvider");
+        field.setAccessible(true);
+        field.set(controller, (ToolCallbackProvider) () -> tools);
+        return controller;
+    }
+
+    private ChatClient chatClient(ScriptedChatModel model) {
+        return ChatClient.builder(model)
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
+                .build();
+    }
+
+    /** Tomcat and Spring MVC only, for the controller registered by the test. */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+    static class StreamServer {
+    }
+
+    private static final class StubTool implements ToolCallback {
+
+        private final ToolDefinition definition;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubTool(String name) {
+            this.definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return definition;
+        }
+
+        @Override
+        public String call(String toolInput) {
+            calls.incrementAndGet();
+            return "[{\"type\":\"text\",\"text\":\"{\\\"status\\\":\\\"OK\\\"}\"}]";
+        }
+    }
+}
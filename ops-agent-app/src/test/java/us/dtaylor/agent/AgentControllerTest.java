@@ -7,7 +7,6 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import us.dtaylor.agent.api.AgentController;
@@ -32,7 +31,6 @@ import static org.assertj.core.api.Assertions.assertThat;
 class AgentControllerTest {
 
     private ChatClient chatClient;
-    private ChatMemory chatMemory;
     private AgentController controller;
 
     @BeforeEach
@@ -52,14 +50,10 @@ class AgentControllerTest {
                         .content()
         ).thenReturn("stubbed-answer");
 
-        // Create a trivial ChatMemory mock.  The contents of the memory
-        // are not inspected by the controller tests.
-        this.chatMemory = Mockito.mock(ChatMemory.class);
-
         // Initialise the controller with no MCP clients (empty list).  The
         // internal provider will initially expose no tools, but we will
         // override it per test via reflection.
-        this.controller = new AgentController(chatClient, chatMemory, List.of());
+        this.controller = new AgentController(chatClient, List.of());
     }
 
     /**
@@ -0,0 +1,117 @@
+package us.dtaylor.agent;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A local stand-in for the language model.  Every prompt gets the same
+ * answer, produced one chunk at a time with a fixed delay per chunk the
+ * way a hosted model generates tokens.  Before answering it calls the
+ * scripted tools, looked up by name among the tool callbacks of the
+ * prompt, so tool calling goes through the real callbacks.  Given a
+ * {@link ToolCallingManager} it instead asks for all of them in one
+ * response and has the manager run them, as the hosted models do.
+ */
+public class ScriptedChatModel implements ChatModel {
+
+    private final List<String> chunks;
+    private final Duration chunkDelay;
+    private final List<ToolCall> toolCalls = new ArrayList<>();
+    private ToolCallingManager toolCallingManager;
+
+    public ScriptedChatModel(Duration chunkDelay, String... chunks) {
+        this.chunks = List.of(chunks);
+        this.chunkDelay = chunkDelay;
+    }
+
+    /** Calls {@code tool} with {@code arguments} before answering. */
+    public ScriptedChatModel callingTool(String tool, String arguments) {
+        toolCalls.add(new ToolCall(tool, arguments));
+        return this;
+    }
+
+    /** Has {@code manager} run the scripted tool calls, all asked for in one response. */
+    public ScriptedChatModel executingToolsWith(ToolCallingManager manager) {
+        this.toolCallingManager = manager;
+        return this;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        callTools(prompt);
+        sleep(chunkDelay.multipliedBy(chunks.size()));
+        return response(String.join("", chunks));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+                    callTools(prompt);
+                    return Flux.fromIterable(chunks)
+                            .delayElements(chunkDelay)
+                            .map(ScriptedChatModel::response);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return ToolCallingChatOptions.builder().build();
+    }
+
+    private void callTools(Prompt prompt) {
+        if (toolCalls.isEmpty()) {
+            return;
+        }
+        if (toolCallingManager != null) {
+            List<AssistantMessage.ToolCall> requested = new ArrayList<>();
+            for (ToolCall call : toolCalls) {
+                requested.add(new AssistantMessage.ToolCall("call-" + requested.size(), "function",
+                        call.tool(), call.arguments()));
+            }
+            toolCallingManager.executeToolCalls(prompt,
+                    new ChatResponse(List.of(new Generation(new AssistantMessage("", Map.of(), requested)))));
+            return;
+        }
+        List<ToolCallback> callbacks = prompt.getOptions() instanceof ToolCallingChatOptions options
+                ? options.getToolCallbacks()
+                : List.of();
+        for (ToolCall call : toolCalls) {
+            callbacks.stream()
+                    .filter(callback -> callback.getToolDefinition().name().equals(call.tool()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No tool named " + call.tool()))
+                    .call(call.arguments());
+        }
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ToolCall(String tool, String arguments) {
+    }
+}
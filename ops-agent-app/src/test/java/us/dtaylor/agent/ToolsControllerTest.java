@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 import us.dtaylor.agent.api.ToolsController;
 import us.dtaylor.agent.config.SecurityConfig;
+import us.dtaylor.agent.tools.McpToolDiscovery;
 
 import java.util.List;
 
@@ -33,7 +34,7 @@ public class ToolsControllerTest {
     private List<McpSyncClient> mcpSyncClients;
 
     @MockBean
-    private org.springframework.ai.mcp.SyncMcpToolCallbackProvider toolCallbackProvider;
+    private McpToolDiscovery toolDiscovery;
 
     @Test
     void testListToolsRequiresAuth() throws Exception {
@@ -44,7 +45,7 @@ public class ToolsControllerTest {
 
     @Test
     void testListToolsReturnsEmptyListWithAuth() throws Exception {
-        when(toolCallbackProvider.getToolCallbacks()).thenReturn(new ToolCallback[0]);
+        when(toolDiscovery.getToolCallbacks()).thenReturn(new ToolCallback[0]);
         mockMvc.perform(get("/agent/tools").with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic("agent", "password")))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(0)));
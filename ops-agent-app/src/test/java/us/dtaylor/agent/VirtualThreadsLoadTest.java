@@ -0,0 +1,126 @@
+package us.dtaylor.agent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency ceiling of the servlet container with platform threads
+ * versus {@code spring.threads.virtual.enabled}.  The endpoint stands in
+ * for {@code AgentController.ask}: it blocks for a fixed time the way
+ * {@code ChatClient.call()} blocks on the model.  The Tomcat pool is kept
+ * small so the ceiling shows with a modest number of clients; with the
+ * default 200 threads it moves, but it is still there.  Run with
+ * {@code -Dbench=true}.
+ */
+class VirtualThreadsLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsLoadTest.class);
+
+    private static final int TOMCAT_THREADS = 20;
+    private static final int CLIENTS = 400;
+    private static final long MODEL_LATENCY_MS = 500;
+
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void virtualThreadsLiftTheConcurrencyCeiling() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("{} concurrent asks of {} ms: platform threads (max {}) peak {} in flight, {} ms; "
+                        + "virtual threads peak {} in flight, {} ms",
+                CLIENTS, MODEL_LATENCY_MS, TOMCAT_THREADS, platform.peak(), platform.millis(),
+                virtual.peak(), virtual.millis());
+        assertThat(platform.peak()).isLessThanOrEqualTo(TOMCAT_THREADS);
+        assertThat(virtual.peak()).isGreaterThan(TOMCAT_THREADS * 5);
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        SlowModelController.inFlight.set(0);
+        SlowModelController.peak.set(0);
+        try (var context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(SlowModelApp.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.main.banner-mode=off");
+             ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder().executor(clientThreads).build();
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/slow");
+
+            long started = System.nanoTime();
+            List<CompletableFuture<HttpResponse<String>>> calls = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                calls.add(http.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString()));
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            assertThat(calls).allSatisfy(call -> assertThat(call.join().statusCode()).isEqualTo(200));
+            return new Result(SlowModelController.peak.get(), millis);
+        }
+    }
+
+    private record Result(int peak, long millis) {
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class})
+    @Import(SlowModelController.class)
+    static class SlowModelApp {
+    }
+
+    @RestController
+    static class SlowModelController {
+
+        static final AtomicInteger inFlight = new AtomicInteger();
+        static final AtomicInteger peak = new AtomicInteger();
+
+        @GetMapping("/slow")
+        String slow() throws InterruptedException {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(MODEL_LATENCY_MS);
+                return "ok";
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
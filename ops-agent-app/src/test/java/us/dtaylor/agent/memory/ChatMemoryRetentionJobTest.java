@@ -0,0 +1,125 @@
+package us.dtaylor.agent.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ChatMemoryRetentionJob} on H2 with the dev schema,
+ * {@code schema-h2.sql}.
+ */
+class ChatMemoryRetentionJobTest {
+
+    private static final Instant NOW = Instant.now();
+
+    private SimpleDriverDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private WriteBackChatMemoryRepository writeBack;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        writeBack = new WriteBackChatMemoryRepository(new WindowedJdbcChatMemoryRepository(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), 20), 100, 100, Duration.ZERO, Duration.ofSeconds(30));
+
+        // idle for 40 days, 31 days, and active yesterday
+        insert("idle-1", NOW.minus(Duration.ofDays(40)), 3);
+        insert("idle-2", NOW.minus(Duration.ofDays(31)), 2);
+        insert("active", NOW.minus(Duration.ofDays(1)), 2);
+        for (int i = 0; i < 7; i++) {
+            insert("idle-batch-" + i, NOW.minus(Duration.ofDays(60)), 1);
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void deletesIdleConversationsInBatches() {
+        ChatMemoryRetentionJob job = job(ChatMemoryRetentionJob.Mode.DELETE, 3);
+        job.ensureSchema();
+
+        assertThat(job.purgeIdleConversations()).isEqualTo(9);
+
+        assertThat(conversationIds("SPRING_AI_CHAT_MEMORY")).containsExactly("active");
+        assertThat(meterRegistry.get("agent.memory.purged").tag("mode", "delete").counter().count())
+                .isEqualTo(9);
+        assertThat(job.purgeIdleConversations()).isZero();
+    }
+
+    @Test
+    void archivesIdleConversationsBeforeDeletingThem() {
+        ChatMemoryRetentionJob job = job(ChatMemoryRetentionJob.Mode.ARCHIVE, 500);
+        job.ensureSchema();
+
+        assertThat(job.purgeIdleConversations()).isEqualTo(9);
+
+        assertThat(conversationIds("SPRING_AI_CHAT_MEMORY")).containsExactly("active");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM SPRING_AI_CHAT_MEMORY_ARCHIVE WHERE conversation_id = 'idle-1'", Integer.class))
+                .isEqualTo(3);
+        assertThat(conversationIds("SPRING_AI_CHAT_MEMORY_ARCHIVE")).hasSize(9);
+    }
+
+    @Test
+    void purgedConversationsAreDroppedFromTheWriteBackCache() {
+        assertThat(writeBack.findByConversationId("idle-1")).hasSize(3);
+
+        job(ChatMemoryRetentionJob.Mode.DELETE, 500).purgeIdleConversations();
+
+        assertThat(writeBack.findByConversationId("idle-1")).isEmpty();
+    }
+
+    @Test
+    void conversationResumedBeforeThePurgeIsKept() {
+        writeBack.saveAll("idle-2", List.of(new UserMessage("back on P-100")));
+        writeBack.flush();
+
+        job(ChatMemoryRetentionJob.Mode.DELETE, 500).purgeIdleConversations();
+
+        assertThat(conversationIds("SPRING_AI_CHAT_MEMORY")).containsExactlyInAnyOrder("active", "idle-2");
+    }
+
+    private ChatMemoryRetentionJob job(ChatMemoryRetentionJob.Mode mode, int batchSize) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("writeBack", writeBack);
+        return new ChatMemoryRetentionJob(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                Duration.ofDays(30), batchSize, mode, beans.getBeanProvider(WriteBackChatMemoryRepository.class),
+                meterRegistry);
+    }
+
+    private void insert(String conversationId, Instant at, int messages) {
+        for (int i = 0; i < messages; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO SPRING_AI_CHAT_MEMORY (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)",
+                    conversationId, "message " + i, "USER", Timestamp.from(at.plusMillis(i)));
+        }
+    }
+
+    private List<String> conversationIds(String table) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT conversation_id FROM " + table, String.class);
+    }
+}
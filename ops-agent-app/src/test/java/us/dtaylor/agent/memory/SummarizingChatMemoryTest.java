@@ -0,0 +1,174 @@
+package us.dtaylor.agent.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import us.dtaylor.agent.ScriptedChatModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SummarizingChatMemory} with {@link ScriptedChatModel}
+ * writing the summaries, and for the per-turn meters of
+ * {@link PromptMetricsAdvisor}.
+ */
+class SummarizingChatMemoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SummarizingChatMemoryTest.class);
+
+    private static final String SUMMARY = "Pump P-100: bearing replaced by Ana, vibration check still open.";
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final InMemoryChatMemoryRepository repository = new InMemoryChatMemoryRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void conversationWithinTheBudgetIsKeptAsItIs() {
+        SummarizingChatMemory memory = memory(new ScriptedChatModel(Duration.ZERO, SUMMARY), 1000, Runnable::run);
+
+        memory.add("c1", turn(0));
+        memory.add("c1", turn(1));
+
+        assertThat(memory.get("c1")).hasSize(4).extracting(Message::getMessageType).doesNotContain(MessageType.SYSTEM);
+        assertThat(meterRegistry.find("agent.memory.compaction").timers()).isEmpty();
+    }
+
+    @Test
+    void olderTurnsAreFoldedIntoASummaryOnceOverTheBudget() {
+        SummarizingChatMemory memory = memory(new ScriptedChatModel(Duration.ZERO, SUMMARY), 100, Runnable::run);
+
+        for (int turn = 0; turn < 6; turn++) {
+            memory.add("c1", turn(turn));
+        }
+
+        List<Message> conversation = memory.get("c1");
+        assertThat(conversation.get(0).getMessageType()).isEqualTo(MessageType.SYSTEM);
+        assertThat(conversation.get(0).getText()).isEqualTo(SummarizingChatMemory.SUMMARY_PREFIX + SUMMARY);
+        assertThat(conversation.get(1).getMessageType()).isEqualTo(MessageType.USER);
+        assertThat(conversation.get(conversation.size() - 1).getText()).isEqualTo("answer 5");
+        assertThat(memory.tokens(conversation)).isLessThanOrEqualTo(100);
+        assertThat(meterRegistry.get("agent.memory.compaction").tag("outcome", "compacted").timer().count())
+                .isPositive();
+    }
+
+    @Test
+    void compactionRunsOffTheRequestPathAndKeepsTurnsAddedMeanwhile() throws InterruptedException {
+        // the summary takes 300 ms to write
+        SummarizingChatMemory memory = new SummarizingChatMemory(repository,
+                new ScriptedChatModel(Duration.ofMillis(100), "Pump P-100: ", "bearing replaced, ", "check open."),
+                tokenCountEstimator, 150, 20, meterRegistry);
+        for (int turn = 0; turn < 3; turn++) {
+            memory.add("c1", turn(turn));
+        }
+
+        long start = System.nanoTime();
+        memory.add("c1", turn(3));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(200));
+        assertThat(memory.isCompacting("c1")).isTrue();
+
+        memory.add("c1", turn(4));
+        awaitCompaction(memory, "c1");
+
+        List<Message> conversation = memory.get("c1");
+        assertThat(conversation.get(0).getText()).startsWith(SummarizingChatMemory.SUMMARY_PREFIX);
+        assertThat(conversation).extracting(Message::getText).endsWith("question 4 " + filler(), "answer 4");
+        memory.close();
+    }
+
+    @Test
+    void failedCompactionKeepsTheConversationWithinMaxMessages() {
+        ChatModel failing = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new IllegalStateException("model unavailable");
+            }
+        };
+        SummarizingChatMemory memory = memory(failing, 100, Runnable::run);
+
+        for (int turn = 0; turn < 10; turn++) {
+            memory.add("c1", turn(turn));
+        }
+
+        assertThat(memory.get("c1")).hasSize(6).extracting(Message::getText).endsWith("answer 9");
+        assertThat(meterRegistry.get("agent.memory.compaction").tag("outcome", "failed").timer().count())
+                .isPositive();
+        assertThat(memory.isCompacting("c1")).isFalse();
+    }
+
+    /**
+     * Prompt tokens per turn, from {@code agent.prompt.tokens}, over one
+     * long conversation: window memory replays the latest 20 messages,
+     * summary memory stays near its budget.
+     */
+    @Test
+    void summaryMemoryKeepsPromptsSmallerThanTheWindow() {
+        double window = largestPrompt("window", MessageWindowChatMemory.builder()
+                .chatMemoryRepository(new InMemoryChatMemoryRepository())
+                .maxMessages(20)
+                .build());
+        double summary = largestPrompt("summary",
+                memory(new ScriptedChatModel(Duration.ZERO, SUMMARY), 200, Runnable::run));
+
+        log.info("Largest prompt over 15 turns: window memory {} tokens, summary memory {} tokens", window, summary);
+        assertThat(summary).isLessThan(window * 0.6);
+        assertThat(meterRegistry.get("agent.turn").tag("memory", "summary").tag("mode", "call").timer().count())
+                .isEqualTo(15);
+    }
+
+    private double largestPrompt(String mode, ChatMemory chatMemory) {
+        ChatClient chatClient = ChatClient.builder(new ScriptedChatModel(Duration.ZERO, "Logged, anything else on it?"))
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build(),
+                        new PromptMetricsAdvisor(tokenCountEstimator, mode, meterRegistry))
+                .build();
+        for (int turn = 0; turn < 15; turn++) {
+            chatClient.prompt()
+                    .user("question " + turn + " " + filler())
+                    .advisors(spec -> spec.param(ChatMemory.CONVERSATION_ID, mode))
+                    .call()
+                    .content();
+        }
+        return meterRegistry.get("agent.prompt.tokens").tag("memory", mode).summary().max();
+    }
+
+    private SummarizingChatMemory memory(ChatModel chatModel, int tokenBudget, Executor executor) {
+        return new SummarizingChatMemory(repository, chatModel, tokenCountEstimator, tokenBudget, 6, executor,
+                meterRegistry);
+    }
+
+    private static List<Message> turn(int turn) {
+        return List.of(new UserMessage("question " + turn + " " + filler()), new AssistantMessage("answer " + turn));
+    }
+
+    /** Roughly 30 tokens of a field report. */
+    private static String filler() {
+        return "Technician reports the pump on line two vibrates above limits after the bearing swap, "
+                + "please log the inspection and schedule a follow-up check.";
+    }
+
+    private static void awaitCompaction(SummarizingChatMemory memory, String conversationId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (memory.isCompacting(conversationId) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(memory.isCompacting(conversationId)).isFalse();
+    }
+}
@@ -0,0 +1,98 @@
+package us.dtaylor.agent.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link WindowedJdbcChatMemoryRepository} on H2 with the dev
+ * schema, {@code schema-h2.sql}.
+ */
+class WindowedJdbcChatMemoryRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private WindowedJdbcChatMemoryRepository repository;
+
+    @BeforeEach
+    void setup() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new WindowedJdbcChatMemoryRepository(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), 3);
+    }
+
+    @AfterEach
+    void shutdown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void readsOnlyTheLatestWindowOldestFirst() {
+        // a long history, e.g. written before the window was lowered
+        Instant start = Instant.parse("2025-01-01T08:00:00Z");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(new Object[]{"c1", "message " + i, i % 2 == 0 ? "USER" : "ASSISTANT",
+                    Timestamp.from(start.plusSeconds(i))});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO SPRING_AI_CHAT_MEMORY (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)",
+                rows);
+
+        assertThat(repository.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("message 47", "message 48", "message 49");
+        assertThat(repository.findByConversationId("c2")).isEmpty();
+    }
+
+    @Test
+    void savingReplacesTheConversationsInOneBatch() {
+        repository.saveAll("c1", List.of(new UserMessage("old")));
+
+        repository.saveAll(Map.of(
+                "c1", List.of(new UserMessage("Pump P-100?"), new AssistantMessage("OK.")),
+                "c2", List.of(new UserMessage("Valve V-7?"))));
+
+        assertThat(repository.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("Pump P-100?", "OK.");
+        assertThat(repository.findConversationIds()).containsExactlyInAnyOrder("c1", "c2");
+
+        repository.deleteByConversationId("c1");
+        assertThat(repository.findConversationIds()).containsExactly("c2");
+    }
+
+    @Test
+    void windowChatMemoryKeepsTheLatestTurns() {
+        ChatMemory chatMemory = MessageWindowChatMemory.builder()
+                .chatMemoryRepository(repository)
+                .maxMessages(3)
+                .build();
+
+        for (int turn = 0; turn < 4; turn++) {
+            chatMemory.add("c1", List.of(new UserMessage("question " + turn), new AssistantMessage("answer " + turn)));
+        }
+
+        assertThat(chatMemory.get("c1")).extracting(Message::getText)
+                .containsExactly("answer 2", "question 3", "answer 3");
+    }
+}
@@ -0,0 +1,295 @@
+package us.dtaylor.agent.memory;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import us.dtaylor.agent.ScriptedChatModel;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link WriteBackChatMemoryRepository} on an in-memory H2
+ * database in PostgreSQL mode, counting the statements and commits sent
+ * to it as database round trips.
+ */
+class WriteBackChatMemoryRepositoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBackChatMemoryRepositoryTest.class);
+
+    private static final String SCHEMA = """
+            CREATE TABLE SPRING_AI_CHAT_MEMORY (
+                conversation_id VARCHAR(36) NOT NULL,
+                content TEXT NOT NULL,
+                type VARCHAR(10) NOT NULL CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')),
+                "timestamp" TIMESTAMP NOT NULL
+            )""";
+
+    private static final Duration CACHE_TTL = Duration.ofSeconds(30);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private CountingDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private WriteBackChatMemoryRepository repository;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new CountingDataSource(new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(SCHEMA);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        repository = writeBack(1000);
+        dataSource.roundTrips.set(0);
+    }
+
+    @AfterEach
+    void shutdown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void savesAreReadBackFromMemoryAndFlushedTogetherInOneTransaction() {
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?"), new AssistantMessage("OK.")));
+        repository.saveAll("c2", List.of(new UserMessage("Valve V-7?")));
+        repository.saveAll("c3", List.of(new UserMessage("Fan F-2?")));
+
+        assertThat(repository.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("Pump P-100?", "OK.");
+        assertThat(repository.findConversationIds()).contains("c1", "c2", "c3");
+        int beforeFlush = dataSource.roundTrips.get();
+
+        repository.flush();
+
+        // one batch of deletes, one batch of inserts, one commit
+        assertThat(dataSource.roundTrips.get() - beforeFlush).isEqualTo(3);
+        assertThat(repository.pendingConversations()).isZero();
+        assertThat(jdbc().findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("Pump P-100?", "OK.");
+        assertThat(jdbc().findConversationIds()).containsExactlyInAnyOrder("c1", "c2", "c3");
+    }
+
+    @Test
+    void crashLosesOnlyTheReportedPendingConversations() {
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?")));
+        repository.flush();
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?"), new AssistantMessage("OK.")));
+        repository.saveAll("c2", List.of(new UserMessage("Valve V-7?")));
+
+        assertThat(repository.pendingConversations()).isEqualTo(2);
+        assertThat(repository.oldestPendingAge()).isPositive();
+
+        // the process dies: the repository is dropped without close()
+        WriteBackChatMemoryRepository restarted = writeBack(1000);
+        assertThat(restarted.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("Pump P-100?");
+        assertThat(restarted.findByConversationId("c2")).isEmpty();
+
+        // a normal shutdown writes what is pending
+        restarted.saveAll("c2", List.of(new UserMessage("Valve V-7?")));
+        restarted.close();
+        assertThat(jdbc().findByConversationId("c2")).hasSize(1);
+    }
+
+    @Test
+    void failedFlushKeepsConversationsPendingUntilTheNextOne() {
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?")));
+        jdbcTemplate.execute("ALTER TABLE SPRING_AI_CHAT_MEMORY RENAME TO SPRING_AI_CHAT_MEMORY_OFFLINE");
+
+        assertThatThrownBy(() -> repository.flush()).isInstanceOf(RuntimeException.class);
+        assertThat(repository.pendingConversations()).isEqualTo(1);
+        assertThat(repository.lastFlushFailure()).isNotNull();
+
+        jdbcTemplate.execute("ALTER TABLE SPRING_AI_CHAT_MEMORY_OFFLINE RENAME TO SPRING_AI_CHAT_MEMORY");
+        repository.flush();
+        assertThat(repository.pendingConversations()).isZero();
+        assertThat(repository.lastFlushFailure()).isNull();
+        assertThat(jdbc().findByConversationId("c1")).hasSize(1);
+    }
+
+    @Test
+    void deleteRemovesPendingAndWrittenMessages() {
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?")));
+        repository.flush();
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?"), new AssistantMessage("OK.")));
+
+        repository.deleteByConversationId("c1");
+        repository.flush();
+
+        assertThat(repository.findByConversationId("c1")).isEmpty();
+        assertThat(jdbc().findByConversationId("c1")).isEmpty();
+    }
+
+    /**
+     * Two instances of the agent on one database: a conversation continued
+     * on the other one is seen here once the cached copy has expired.
+     */
+    @Test
+    void cachedConversationsExpireSoOtherInstancesTurnsAreSeen() {
+        WriteBackChatMemoryRepository other = writeBack(1000);
+        repository.saveAll("c1", List.of(new UserMessage("Pump P-100?")));
+        repository.flush();
+        other.saveAll("c1", List.of(new UserMessage("Pump P-100?"), new AssistantMessage("OK.")));
+        other.flush();
+
+        nanos.addAndGet(CACHE_TTL.minusSeconds(1).toNanos());
+        assertThat(repository.findByConversationId("c1")).hasSize(1);
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(repository.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("Pump P-100?", "OK.");
+
+        // a pending conversation is served as saved, however old
+        repository.saveAll("c2", List.of(new UserMessage("Valve V-7?")));
+        nanos.addAndGet(CACHE_TTL.multipliedBy(2).toNanos());
+        assertThat(repository.findByConversationId("c2")).hasSize(1);
+    }
+
+    @Test
+    void savingBeyondMaxPendingFlushes() {
+        WriteBackChatMemoryRepository small = writeBack(2);
+
+        small.saveAll("c1", List.of(new UserMessage("one")));
+        small.saveAll("c2", List.of(new UserMessage("two")));
+        assertThat(jdbc().findConversationIds()).isEmpty();
+
+        small.saveAll("c3", List.of(new UserMessage("three")));
+        assertThat(small.pendingConversations()).isZero();
+        assertThat(jdbc().findConversationIds()).containsExactlyInAnyOrder("c1", "c2", "c3");
+    }
+
+    /**
+     * Database round trips per turn through the chat client: the old
+     * {@code ask}, which added a second memory advisor to the default one,
+     * one advisor over the JDBC repository, and one advisor over the
+     * write-back repository with its flushes counted in.
+     */
+    @Test
+    void roundTripsPerTurn() {
+        double twoAdvisors = roundTripsPerTurn(jdbc(), true);
+        double oneAdvisor = roundTripsPerTurn(jdbc(), false);
+        double writeBack = roundTripsPerTurn(repository, false);
+
+        log.info("Chat memory round trips per turn: two advisors {}, one advisor {}, one advisor with write-back {}",
+                twoAdvisors, oneAdvisor, writeBack);
+        assertThat(oneAdvisor).isLessThan(twoAdvisors);
+        assertThat(writeBack).isLessThan(oneAdvisor / 4);
+    }
+
+    /** 5 conversations of 4 turns each, flushed after every round of turns. */
+    private double roundTripsPerTurn(ChatMemoryRepository memoryRepository, boolean secondAdvisor) {
+        ChatMemory chatMemory = MessageWindowChatMemory.builder().chatMemoryRepository(memoryRepository).build();
+        ChatClient chatClient = ChatClient.builder(new ScriptedChatModel(Duration.ZERO, "OK."))
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
+                .build();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        int turns = 0;
+        dataSource.roundTrips.set(0);
+        for (int round = 0; round < 4; round++) {
+            for (int conversation = 0; conversation < 5; conversation++) {
+                String conversationId = run + "-" + conversation;
+                chatClient.prompt()
+                        .user("Status of P-" + round + "?")
+                        .advisors(spec -> {
+                            if (secondAdvisor) {
+                                spec.advisors(MessageChatMemoryAdvisor.builder(chatMemory).build());
+                            }
+                            spec.param(ChatMemory.CONVERSATION_ID, conversationId);
+                        })
+                        .call()
+                        .content();
+                turns++;
+            }
+            if (memoryRepository instanceof WriteBackChatMemoryRepository writeBack) {
+                writeBack.flush();
+            }
+        }
+        return (double) dataSource.roundTrips.get() / turns;
+    }
+
+    private WriteBackChatMemoryRepository writeBack(int maxPending) {
+        return new WriteBackChatMemoryRepository(
+                new WindowedJdbcChatMemoryRepository(jdbcTemplate, transactionManager, 20),
+                100, maxPending, Duration.ZERO, CACHE_TTL, ticker);
+    }
+
+    private JdbcChatMemoryRepository jdbc() {
+        return JdbcChatMemoryRepository.builder()
+                .jdbcTemplate(jdbcTemplate)
+                .transactionManager(transactionManager)
+                .build();
+    }
+
+    /** Counts statement executions and commits on the connections it hands out. */
+    private static final class CountingDataSource extends DelegatingDataSource {
+
+        private final AtomicInteger roundTrips = new AtomicInteger();
+
+        CountingDataSource(SimpleDriverDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("commit")) {
+                            roundTrips.incrementAndGet();
+                        }
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement statement ? counting(statement) : result;
+                    });
+        }
+
+        private Object counting(Statement statement) {
+            Class<?> type = statement.getClass().getInterfaces().length > 0
+                    ? statement.getClass().getInterfaces()[0]
+                    : Statement.class;
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            roundTrips.incrementAndGet();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package us.dtaylor.agent.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.mcp.SyncMcpToolCallback;
+import org.springframework.ai.tool.ToolCallback;
+import us.dtaylor.agent.ScriptedChatModel;
+import us.dtaylor.agent.api.AgentController;
+import us.dtaylor.agent.tools.McpToolDiscovery;
+import us.dtaylor.agent.tools.ToolResultCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link IntentRouter} against a stubbed asset MCP server,
+ * through {@link SyncMcpToolCallback}s as the agent gets them.
+ */
+class IntentRouterTest {
+
+    private static final String ASSET_ID = "5f0c6d2e-8a51-4f4e-9c1a-2b7d4e9f0a11";
+    private static final String ASSET = """
+            {"status":"OK","id":"%s","qrCode":"QR-1A2B3C4D","name":"Pump P-100","model":"CP-40",\
+            "location":"Plant 2","jobCount":3,"totalMinutes":135,"lastTechnician":"Ana",\
+            "lastWorkedAt":"2025-03-04T10:15:00Z"}""".formatted(ASSET_ID);
+    private static final String WORKLOGS = """
+            [{"id":"a","technician":"Ana","action":"Replaced bearing","durationMinutes":45,\
+            "createdAt":"2025-03-04T10:15:00Z","notes":"Vibration back to normal"},\
+            {"id":"b","technician":"Raj","action":"Inspection","durationMinutes":null,\
+            "createdAt":"2025-02-11T08:00:00Z","notes":null}]""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChatMemory chatMemory = MessageWindowChatMemory.builder()
+            .chatMemoryRepository(new InMemoryChatMemoryRepository())
+            .build();
+    private final AtomicInteger toolCalls = new AtomicInteger();
+    private McpSyncClient server;
+    private IntentRouter router;
+
+    @BeforeEach
+    void setup() {
+        server = assetServer();
+        router = new IntentRouter(chatMemory, true, 5, meterRegistry);
+    }
+
+    @Test
+    void recognisesAssetAndHistoryQuestions() {
+        assertThat(router.route("c1", "what is asset QR-1A2B3C4D?", tools()))
+                .isEqualTo("Pump P-100 (QR-1A2B3C4D), CP-40 at Plant 2: 3 jobs, 135 minutes in total; "
+                        + "last worked on 2025-03-04 by Ana.");
+        assertThat(router.route("c1", "Show history for " + ASSET_ID.toUpperCase(), tools()))
+                .isEqualTo("""
+                        Latest work on %s:
+                        - 2025-03-04, Ana: Replaced bearing (45 min). Vibration back to normal
+                        - 2025-02-11, Raj: Inspection""".formatted(ASSET_ID));
+        assertThat(router.route("c1", "worklogs for qr-1a2b3c4d", tools())).startsWith("Latest work on QR-1A2B3C4D:");
+
+        assertThat(meterRegistry.get("agent.router.requests").tag("route", "asset").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("agent.router.requests").tag("route", "history").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("agent.router.latency").tag("route", "history").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void otherQuestionsAreLeftToTheModel() {
+        for (String question : List.of(
+                "Replaced the bearing on QR-1A2B3C4D, took 45 minutes",
+                "what is wrong with QR-1A2B3C4D?",
+                "show history for pump 100",
+                "Compare QR-1A2B3C4D and QR-5E6F7A8B")) {
+            assertThat(router.route("c1", question, tools())).as(question).isNull();
+        }
+
+        assertThat(toolCalls.get()).isZero();
+        assertThat(chatMemory.get("c1")).isEmpty();
+        assertThat(meterRegistry.get("agent.router.requests").tag("route", "model").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void unknownAssetIsAnsweredAndFailedToolCallGoesToTheModel() {
+        Mockito.doReturn(result("{\"status\":\"NOT_FOUND\"}"))
+                .doThrow(new IllegalStateException("server unavailable"))
+                .when(server).callTool(any());
+
+        assertThat(router.route("c1", "what is QR-0000AAAA", tools())).isEqualTo("I could not find an asset for QR-0000AAAA.");
+        assertThat(router.route("c1", "history for QR-0000AAAA", tools())).isNull();
+        assertThat(router.route("c1", "what is QR-0000AAAA", new ToolCallback[0])).isNull();
+    }
+
+    @Test
+    void disabledRouterLeavesEverythingToTheModel() {
+        assertThat(IntentRouter.disabled().route("c1", "what is asset QR-1A2B3C4D?", tools())).isNull();
+        assertThat(toolCalls.get()).isZero();
+    }
+
+    /**
+     * {@code /agent/ask} answers a routed question without calling the model
+     * and remembers it, so the next question, which does go to the model,
+     * has it in its prompt.
+     */
+    @Test
+    void askAnswersRoutedQuestionsWithoutTheModel() {
+        AtomicInteger modelCalls = new AtomicInteger();
+        ScriptedChatModel scripted = new ScriptedChatModel(Duration.ZERO, "It was the bearing.");
+        ChatModel model = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                modelCalls.incrementAndGet();
+                assertThat(prompt.getInstructions()).extracting(Message::getText)
+                        .contains("what is asset QR-1A2B3C4D?");
+                return scripted.call(prompt);
+            }
+        };
+        ChatClient chatClient = ChatClient.builder(model)
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
+                .build();
+        AgentController controller = new AgentController(chatClient, new McpToolDiscovery(List.of(server)),
+                ToolResultCache.disabled(), router);
+
+        Map<String, Object> routed = controller.ask(new AgentController.AskRequest("what is asset QR-1A2B3C4D?", "c1"));
+        assertThat(routed.get("answer").toString()).startsWith("Pump P-100 (QR-1A2B3C4D)");
+        assertThat(modelCalls.get()).isZero();
+
+        Map<String, Object> answered = controller.ask(new AgentController.AskRequest("Why was it repaired?", "c1"));
+        assertThat(answered.get("answer")).isEqualTo("It was the bearing.");
+        assertThat(modelCalls.get()).isEqualTo(1);
+        assertThat(chatMemory.get("c1")).extracting(Message::getMessageType).containsExactly(
+                MessageType.USER, MessageType.ASSISTANT, MessageType.USER, MessageType.ASSISTANT);
+    }
+
+    private ToolCallback[] tools() {
+        return new ToolCallback[]{
+                new SyncMcpToolCallback(server, tool("asset.search")),
+                new SyncMcpToolCallback(server, tool("worklog.list")),
+                new SyncMcpToolCallback(server, tool("worklog.create"))};
+    }
+
+    /**
+     * Answers asset.search and worklog.list the way the asset MCP server
+     * does, and rejects arguments their input schemas do not declare.
+     */
+    private McpSyncClient assetServer() {
+        McpSyncClient client = Mockito.mock(McpSyncClient.class);
+        when(client.getClientInfo()).thenReturn(new McpSchema.Implementation("agent", "1.0"));
+        when(client.getServerInfo()).thenReturn(new McpSchema.Implementation("assets", "1.0"));
+        when(client.listTools()).thenReturn(new McpSchema.ListToolsResult(
+                List.of(tool("asset.search"), tool("worklog.list"), tool("worklog.create")), null));
+        when(client.callTool(any())).thenAnswer(invocation -> {
+            toolCalls.incrementAndGet();
+            McpSchema.CallToolRequest request = invocation.getArgument(0);
+            return switch (request.name()) {
+                case "asset.search" -> {
+                    assertThat(request.arguments()).containsOnlyKeys("qrOrId");
+                    yield result(ASSET);
+                }
+                case "worklog.list" -> {
+                    assertThat(request.arguments()).containsOnlyKeys("assetId", "limit").containsEntry("limit", 5);
+                    yield result(WORKLOGS);
+                }
+                default -> throw new IllegalStateException("unexpected tool " + request.name());
+            };
+        });
+        return client;
+    }
+
+    private static McpSchema.CallToolResult result(String json) {
+        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(json)), false);
+    }
+
+    private static McpSchema.Tool tool(String name) {
+        return new McpSchema.Tool(name, name, "{\"type\":\"object\"}");
+    }
+}
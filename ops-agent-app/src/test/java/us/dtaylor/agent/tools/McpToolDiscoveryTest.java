@@ -0,0 +1,144 @@
+package us.dtaylor.agent.tools;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link McpToolDiscovery} with mocked MCP clients counting
+ * their {@code tools/list} round trips.
+ */
+class McpToolDiscoveryTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private McpSyncClient assets;
+    private McpSyncClient manuals;
+    private McpToolDiscovery discovery;
+
+    @BeforeEach
+    void setup() {
+        assets = client("assets", "asset_search", "worklog_list");
+        manuals = client("manuals", "manual_get");
+        discovery = new McpToolDiscovery(() -> List.of(assets, manuals), Duration.ofMinutes(5),
+                meterRegistry, nanos::get);
+    }
+
+    @Test
+    void toolsAreListedOnceUntilTheTtlExpires() {
+        assertThat(names(discovery.getToolCallbacks()))
+                .containsExactly("agent_asset_search", "agent_worklog_list", "agent_manual_get");
+        discovery.getToolCallbacks();
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        discovery.getToolCallbacks();
+        verify(assets, times(1)).listTools();
+
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        discovery.getToolCallbacks();
+        verify(assets, times(2)).listTools();
+        verify(manuals, times(2)).listTools();
+
+        assertThat(meterRegistry.get("agent.tools.discovery").tag("reason", "initial").timer().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("agent.tools.discovery").tag("reason", "ttl").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void listChangedNotificationRefreshesTheTools() {
+        McpClient.SyncSpec spec = Mockito.mock(McpClient.SyncSpec.class);
+        discovery.customize("assetServer", spec);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<List<McpSchema.Tool>>> consumer = ArgumentCaptor.forClass(Consumer.class);
+        verify(spec).toolsChangeConsumer(consumer.capture());
+
+        discovery.getToolCallbacks();
+        when(assets.listTools()).thenReturn(tools("asset_search"));
+        consumer.getValue().accept(tools("asset_search").tools());
+
+        assertThat(names(discovery.getToolCallbacks()))
+                .containsExactly("agent_asset_search", "agent_manual_get");
+        verify(assets, times(2)).listTools();
+        assertThat(meterRegistry.get("agent.tools.discovery").tag("reason", "list_changed").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void reconnectRefreshesTheToolsOfThatServer() {
+        discovery.getToolCallbacks();
+        // a new session brings a new server info
+        when(assets.getServerInfo()).thenReturn(new McpSchema.Implementation("assets", "1.0"));
+
+        discovery.getToolCallbacks();
+
+        verify(assets, times(2)).listTools();
+        verify(manuals, times(1)).listTools();
+    }
+
+    @Test
+    void failedListingIsNotKept() {
+        when(manuals.listTools())
+                .thenThrow(new IllegalStateException("server unavailable"))
+                .thenReturn(tools("manual_get"));
+
+        assertThatThrownBy(() -> discovery.getToolCallbacks()).hasMessage("server unavailable");
+        assertThat(names(discovery.getToolCallbacks())).contains("agent_manual_get");
+        discovery.getToolCallbacks();
+
+        verify(manuals, times(2)).listTools();
+    }
+
+    @Test
+    void forServersOnlyListsTheToolsOfTheNamedServers() {
+        assertThat(names(discovery.forServers(Set.of("manuals")).getToolCallbacks()))
+                .containsExactly("agent_manual_get");
+        verify(assets, times(0)).listTools();
+    }
+
+    @Test
+    void withoutTtlToolsAreListedOnEveryCall() {
+        McpToolDiscovery uncached = new McpToolDiscovery(List.of(assets));
+
+        uncached.getToolCallbacks();
+        uncached.getToolCallbacks();
+
+        verify(assets, times(2)).listTools();
+    }
+
+    private static McpSyncClient client(String serverName, String... toolNames) {
+        McpSyncClient client = Mockito.mock(McpSyncClient.class);
+        when(client.getClientInfo()).thenReturn(new McpSchema.Implementation("agent", "1.0"));
+        when(client.getServerInfo()).thenReturn(new McpSchema.Implementation(serverName, "1.0"));
+        when(client.listTools()).thenReturn(tools(toolNames));
+        return client;
+    }
+
+    private static McpSchema.ListToolsResult tools(String... names) {
+        return new McpSchema.ListToolsResult(Arrays.stream(names)
+                .map(name -> new McpSchema.Tool(name, name, "{\"type\":\"object\"}"))
+                .toList(), null);
+    }
+
+    private static List<String> names(ToolCallback[] callbacks) {
+        return Arrays.stream(callbacks).map(callback -> callback.getToolDefinition().name()).toList();
+    }
+}
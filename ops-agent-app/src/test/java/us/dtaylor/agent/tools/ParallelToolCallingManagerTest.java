@@ -0,0 +1,205 @@
+package us.dtaylor.agent.tools;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.mcp.SyncMcpToolCallback;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tool.ToolCallback;
+import us.dtaylor.agent.ScriptedChatModel;
+import us.dtaylor.agent.memory.PromptMetricsAdvisor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ParallelToolCallingManager} against a stubbed MCP server
+ * that takes {@code LATENCY} to answer every tool call and records when
+ * each call starts and ends.
+ */
+class ParallelToolCallingManagerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelToolCallingManagerTest.class);
+
+    private static final Duration LATENCY = Duration.ofMillis(200);
+    /** As configured by {@code app.agent.tool-cache.read-only-tools}. */
+    private static final Set<String> READ_ONLY = Set.of("asset.search", "worklog.list");
+    /** The names the model calls the tools by, as Spring AI's MCP client gives them. */
+    private static final String SEARCH = "agent_assetsearch";
+    private static final String LIST = "agent_workloglist";
+    private static final String CREATE = "agent_worklogcreate";
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ToolCallback[] callbacks;
+    private ParallelToolCallingManager manager;
+
+    @BeforeEach
+    void setup() {
+        McpSyncClient server = slowServer();
+        callbacks = new ToolCallback[]{
+                new SyncMcpToolCallback(server, tool("asset.search")),
+                new SyncMcpToolCallback(server, tool("worklog.list")),
+                new SyncMcpToolCallback(server, tool("worklog.create"))};
+        assertThat(callbacks).extracting(callback -> callback.getToolDefinition().name())
+                .containsExactly(SEARCH, LIST, CREATE);
+        manager = parallel(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void shutdown() {
+        manager.close();
+    }
+
+    @Test
+    void readOnlyCallsRunConcurrentlyAndAnswerInOrder() {
+        long start = System.nanoTime();
+        ToolExecutionResult result = manager.executeToolCalls(prompt(), response(
+                call(SEARCH, "QR-1"), call(SEARCH, "QR-2"), call(LIST, "QR-3")));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(elapsed).isLessThan(LATENCY.multipliedBy(2));
+        assertThat(responses(result)).extracting(ToolResponseMessage.ToolResponse::id)
+                .containsExactly(SEARCH + " QR-1", SEARCH + " QR-2", LIST + " QR-3");
+        assertThat(responses(result)).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .allSatisfy(data -> assertThat(data).contains("done"));
+        assertThat(result.conversationHistory()).hasSize(3);
+    }
+
+    @Test
+    void writesKeepTheirOrderAndWaitForTheReadsBeforeThem() {
+        manager.executeToolCalls(prompt(), response(
+                call(SEARCH, "QR-1"), call(SEARCH, "QR-2"),
+                call(CREATE, "QR-1"), call(CREATE, "QR-2"),
+                call(LIST, "QR-1")));
+
+        List<String> order = List.copyOf(calls);
+        assertThat(order.subList(0, 4)).containsExactlyInAnyOrder(
+                "start asset.search QR-1", "start asset.search QR-2",
+                "end asset.search QR-1", "end asset.search QR-2");
+        assertThat(order.subList(4, order.size())).containsExactly(
+                "start worklog.create QR-1", "end worklog.create QR-1",
+                "start worklog.create QR-2", "end worklog.create QR-2",
+                "start worklog.list QR-1", "end worklog.list QR-1");
+    }
+
+    @Test
+    void callNotDoneWithinTheTimeoutIsAnsweredWithAnError() {
+        manager.close();
+        manager = parallel(LATENCY.dividedBy(4));
+
+        long start = System.nanoTime();
+        ToolExecutionResult result = manager.executeToolCalls(prompt(), response(
+                call(SEARCH, "QR-1"), call(SEARCH, "QR-2")));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(LATENCY);
+        assertThat(responses(result)).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .allSatisfy(data -> assertThat(data).startsWith("Error: the tool did not answer"));
+        assertThat(meterRegistry.get("agent.tool.timeouts").counter().count()).isEqualTo(2);
+    }
+
+    /**
+     * Turn latency, from {@code agent.turn}, when the model looks up three
+     * assets in one response: Spring AI's manager calls the server three
+     * times in a row, this one once in parallel.
+     */
+    @Test
+    void turnLatencyWithThreeLookups() {
+        double sequential = turnMillis(DefaultToolCallingManager.builder().build());
+        double parallel = turnMillis(manager);
+
+        log.info("Turn latency with three {} ms lookups: sequential {} ms, parallel {} ms",
+                LATENCY.toMillis(), sequential, parallel);
+        assertThat(sequential).isGreaterThanOrEqualTo(LATENCY.toMillis() * 3);
+        assertThat(parallel).isLessThan(LATENCY.toMillis() * 2);
+    }
+
+    private double turnMillis(ToolCallingManager toolCallingManager) {
+        SimpleMeterRegistry turns = new SimpleMeterRegistry();
+        ScriptedChatModel model = new ScriptedChatModel(Duration.ZERO, "Three pumps found.")
+                .executingToolsWith(toolCallingManager)
+                .callingTool(SEARCH, "{\"qrOrId\":\"QR-1\"}")
+                .callingTool(SEARCH, "{\"qrOrId\":\"QR-2\"}")
+                .callingTool(SEARCH, "{\"qrOrId\":\"QR-3\"}");
+        // the first turn through a manager pays for class loading and JIT
+        ChatClient.builder(model).build()
+                .prompt().user("Status of QR-1, QR-2 and QR-3?").toolCallbacks(callbacks).call().content();
+        ChatClient chatClient = ChatClient.builder(model)
+                .defaultAdvisors(new PromptMetricsAdvisor(new JTokkitTokenCountEstimator(), "window", turns))
+                .build();
+
+        chatClient.prompt().user("Status of QR-1, QR-2 and QR-3?").toolCallbacks(callbacks).call().content();
+
+        return turns.get("agent.turn").tag("mode", "call").timer().totalTime(TimeUnit.MILLISECONDS);
+    }
+
+    private ParallelToolCallingManager parallel(Duration timeout) {
+        return new ParallelToolCallingManager(DefaultToolCallingManager.builder().build(), READ_ONLY, 8, timeout,
+                meterRegistry);
+    }
+
+    private Prompt prompt() {
+        return new Prompt(List.of(new UserMessage("Status?")),
+                ToolCallingChatOptions.builder().toolCallbacks(callbacks).build());
+    }
+
+    /** The tool calls of one model response; ids are the tool name and asset. */
+    private static ChatResponse response(AssistantMessage.ToolCall... toolCalls) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage("", Map.of(), List.of(toolCalls)))));
+    }
+
+    private static AssistantMessage.ToolCall call(String tool, String qr) {
+        return new AssistantMessage.ToolCall(tool + " " + qr, "function", tool, "{\"qrOrId\":\"" + qr + "\"}");
+    }
+
+    private static List<ToolResponseMessage.ToolResponse> responses(ToolExecutionResult result) {
+        List<Message> history = result.conversationHistory();
+        return ((ToolResponseMessage) history.get(history.size() - 1)).getResponses();
+    }
+
+    /** An MCP server taking {@code LATENCY} per tool call. */
+    private McpSyncClient slowServer() {
+        McpSyncClient client = Mockito.mock(McpSyncClient.class);
+        when(client.getClientInfo()).thenReturn(new McpSchema.Implementation("agent", "1.0"));
+        when(client.callTool(any())).thenAnswer(invocation -> {
+            McpSchema.CallToolRequest request = invocation.getArgument(0);
+            String call = request.name() + " " + request.arguments().get("qrOrId");
+            calls.add("start " + call);
+            Thread.sleep(LATENCY);
+            calls.add("end " + call);
+            return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent("done: " + call)), false);
+        });
+        return client;
+    }
+
+    private static McpSchema.Tool tool(String name) {
+        return new McpSchema.Tool(name, name, "{\"type\":\"object\"}");
+    }
+}
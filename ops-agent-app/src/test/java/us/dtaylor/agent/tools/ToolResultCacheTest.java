@@ -0,0 +1,222 @@
+package us.dtaylor.agent.tools;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.ai.mcp.SyncMcpToolCallback;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ToolResultCache} with stub tools standing in for the
+ * MCP tool callbacks.  Results use the MCP shape: a list of content items
+ * whose text is the tool's JSON answer.
+ */
+class ToolResultCacheTest {
+
+    private static final String ASSET_1 = UUID.randomUUID().toString();
+    private static final String ASSET_2 = UUID.randomUUID().toString();
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private ToolResultCache cache;
+
+    private StubTool search;
+    private StubTool list;
+    private StubTool create;
+    private StubTool manual;
+
+    @BeforeEach
+    void setup() {
+        cache = new ToolResultCache(100, Duration.ofMinutes(1),
+                Set.of("asset.search", "worklog.list"), Set.of("worklog.create"), ticker);
+        search = new StubTool("asset.search", input -> input.contains("QR-1") || input.contains(ASSET_1)
+                ? content("{\"status\":\"OK\",\"id\":\"" + ASSET_1 + "\",\"qrCode\":\"QR-1\"}")
+                : content("{\"status\":\"NOT_FOUND\"}"));
+        list = new StubTool("worklog.list", input -> content("[]"));
+        create = new StubTool("worklog.create", input -> content("{\"status\":\"CREATED\"}"));
+        manual = new StubTool("manual.get", input -> content("manual"));
+    }
+
+    @Test
+    void readOnlyResultsAreCachedPerToolAndCanonicalArguments() {
+        ToolCallback[] tools = cache.wrap(new ToolCallback[]{search, list, manual});
+
+        tools[0].call("{\"qrOrId\":\"QR-1\"}");
+        tools[0].call("{ \"qrOrId\" : \"QR-1\" }");
+        tools[1].call("{\"assetId\":\"" + ASSET_1 + "\",\"limit\":5}");
+        tools[1].call("{\"limit\":5,\"assetId\":\"" + ASSET_1 + "\"}");
+        tools[1].call("{\"limit\":10,\"assetId\":\"" + ASSET_1 + "\"}");
+
+        assertThat(search.calls.get()).isEqualTo(1);
+        assertThat(list.calls.get()).isEqualTo(2);
+        assertThat(cache.hitRate()).isEqualTo(2 / 5.0);
+        assertThat(cache.savedTime()).isPositive();
+
+        // tools that are neither read-only nor writing are left alone
+        assertThat(tools[2]).isSameAs(manual);
+        tools[2].call("{}");
+        tools[2].call("{}");
+        assertThat(manual.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        ToolCallback cached = cache.wrap(new ToolCallback[]{search})[0];
+
+        cached.call("{\"qrOrId\":\"QR-1\"}");
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        cached.call("{\"qrOrId\":\"QR-1\"}");
+        assertThat(search.calls.get()).isEqualTo(1);
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        cached.call("{\"qrOrId\":\"QR-1\"}");
+        assertThat(search.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void writesEvictEntriesAboutTheSameAsset() {
+        ToolCallback[] tools = cache.wrap(new ToolCallback[]{search, list, create});
+        // found by QR code, which teaches the cache the asset's id
+        tools[0].call("{\"qrOrId\":\"QR-1\"}");
+        tools[1].call("{\"assetId\":\"" + ASSET_1 + "\"}");
+        tools[1].call("{\"assetId\":\"" + ASSET_2 + "\"}");
+
+        tools[2].call("{\"req\":{\"asset_id\":\"" + ASSET_1 + "\",\"action\":\"Oil change\"}}");
+        assertThat(create.calls.get()).isEqualTo(1);
+
+        tools[0].call("{\"qrOrId\":\"QR-1\"}");
+        tools[1].call("{\"assetId\":\"" + ASSET_1 + "\"}");
+        tools[1].call("{\"assetId\":\"" + ASSET_2 + "\"}");
+        assertThat(search.calls.get()).isEqualTo(2);
+        assertThat(list.calls.get()).isEqualTo(3);
+
+        // writes are never cached
+        tools[2].call("{\"req\":{\"asset_id\":\"" + ASSET_1 + "\",\"action\":\"Oil change\"}}");
+        assertThat(create.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void entriesForUnknownQrCodesAreEvictedByAnyWrite() {
+        ToolCallback[] tools = cache.wrap(new ToolCallback[]{list, create});
+
+        tools[0].call("{\"assetId\":\"QR-9\"}");
+        tools[1].call("{\"req\":{\"asset_id\":\"" + ASSET_2 + "\"}}");
+        tools[0].call("{\"assetId\":\"QR-9\"}");
+
+        assertThat(list.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failedCallsAreNotCached() {
+        AtomicInteger failures = new AtomicInteger();
+        StubTool flaky = new StubTool("asset.search", input -> {
+            if (failures.getAndIncrement() == 0) {
+                throw new IllegalStateException("server unavailable");
+            }
+            return content("{\"status\":\"NOT_FOUND\"}");
+        });
+        ToolCallback cached = cache.wrap(new ToolCallback[]{flaky})[0];
+
+        assertThatThrownBy(() -> cached.call("{\"qrOrId\":\"QR-1\"}")).hasMessage("server unavailable");
+        cached.call("{\"qrOrId\":\"QR-1\"}");
+        cached.call("{\"qrOrId\":\"QR-1\"}");
+
+        assertThat(flaky.calls.get()).isEqualTo(2);
+    }
+
+    /**
+     * The configured names are the MCP server's ({@code asset.search}); the
+     * callbacks of Spring AI's MCP client carry the client prefix and lose
+     * the dots.
+     */
+    @Test
+    void mcpToolCallbacksAreMatchedByTheServersToolNames() {
+        List<String> serverCalls = Collections.synchronizedList(new ArrayList<>());
+        McpSyncClient server = Mockito.mock(McpSyncClient.class);
+        when(server.getClientInfo()).thenReturn(new McpSchema.Implementation("spring-ai-mcp-client - assetServer", "1.0"));
+        when(server.callTool(any())).thenAnswer(invocation -> {
+            McpSchema.CallToolRequest request = invocation.getArgument(0);
+            serverCalls.add(request.name());
+            return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(
+                    "{\"status\":\"OK\",\"id\":\"" + ASSET_1 + "\",\"qrCode\":\"QR-1\"}")), false);
+        });
+        ToolCallback[] callbacks = {
+                new SyncMcpToolCallback(server, mcpTool("asset.search")),
+                new SyncMcpToolCallback(server, mcpTool("worklog.create")),
+                new SyncMcpToolCallback(server, mcpTool("manual.get"))};
+        assertThat(callbacks[0].getToolDefinition().name()).isEqualTo("spring_ai_mcp_client_assetServer_assetsearch");
+
+        ToolCallback[] tools = cache.wrap(callbacks);
+        assertThat(tools[0]).isInstanceOf(CachingToolCallback.class);
+        assertThat(tools[1]).isInstanceOf(CachingToolCallback.class);
+        assertThat(tools[2]).isSameAs(callbacks[2]);
+
+        tools[0].call("{\"qrOrId\":\"QR-1\"}");
+        tools[0].call("{\"qrOrId\":\"QR-1\"}");
+        tools[1].call("{\"req\":{\"asset_id\":\"" + ASSET_1 + "\",\"action\":\"Oil change\"}}");
+        tools[0].call("{\"qrOrId\":\"QR-1\"}");
+
+        assertThat(serverCalls).containsExactly("asset.search", "worklog.create", "asset.search");
+    }
+
+    @Test
+    void disabledCacheReturnsTheToolsUnchanged() {
+        ToolCallback[] tools = {search, create};
+
+        assertThat(ToolResultCache.disabled().wrap(tools)).isSameAs(tools);
+    }
+
+    private static McpSchema.Tool mcpTool(String name) {
+        return new McpSchema.Tool(name, name, "{\"type\":\"object\"}");
+    }
+
+    private static String content(String text) {
+        return "[{\"type\":\"text\",\"text\":" + quote(text) + "}]";
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static final class StubTool implements ToolCallback {
+
+        private final ToolDefinition definition;
+        private final Function<String, String> answer;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubTool(String name, Function<String, String> answer) {
+            this.definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+            this.answer = answer;
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return definition;
+        }
+
+        @Override
+        public String call(String toolInput) {
+            calls.incrementAndGet();
+            return answer.apply(toolInput);
+        }
+    }
+}